@@ -0,0 +1,11 @@
+/**
+ * Annotation processor that generates matchers for model classes at compile
+ * time.
+ */
+module org.itsallcode.automatcher.processor {
+    exports org.itsallcode.matcher.processor;
+
+    requires transitive java.compiler;
+
+    provides javax.annotation.processing.Processor with org.itsallcode.matcher.processor.MatcherProcessor;
+}
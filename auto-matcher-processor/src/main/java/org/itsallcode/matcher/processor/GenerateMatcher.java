@@ -0,0 +1,21 @@
+package org.itsallcode.matcher.processor;
+
+import java.lang.annotation.*;
+
+/**
+ * Generate a matcher for the annotated model class at compile time.
+ * <p>
+ * For a class {@code Person} the {@link MatcherProcessor} generates class
+ * {@code PersonMatcher} in the same package with a static method
+ * {@code equalTo(Person expected)}. The matcher compares the same properties in
+ * the same order as {@code AutoMatcher.equalTo()} but reads them using direct
+ * getter calls instead of reflection.
+ * <p>
+ * Nested model objects are only compared without reflection if their class is
+ * annotated as well. See {@link MatcherProcessor} for details.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateMatcher {
+}
@@ -0,0 +1,253 @@
+package org.itsallcode.matcher.processor;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * This annotation processor generates a matcher for each class annotated with
+ * {@link GenerateMatcher}. The generated matcher uses
+ * {@code ConfigurableMatcher} with the same properties in the same order as
+ * {@code AutoMatcher.equalTo()}, but it reads the properties with direct getter
+ * calls. This avoids the cost of reflection and also works when the model
+ * classes are encapsulated in a module.
+ * <p>
+ * Only the properties of the annotated class itself are read without
+ * reflection. Properties of a type that is also annotated with
+ * {@link GenerateMatcher} use the generated matcher of that type. Properties of
+ * any other non-simple type are compared with {@code AutoMatcher.equalTo()},
+ * which reads their properties with reflection. Such types must therefore be
+ * public and in a package that is exported (or opened) to the
+ * {@code org.itsallcode.automatcher} module.
+ */
+@SupportedAnnotationTypes("org.itsallcode.matcher.processor.GenerateMatcher")
+public class MatcherProcessor extends AbstractProcessor {
+
+    /** Must be the same as in {@code MatchStrategy}. */
+    private static final List<String> SIMPLE_TYPES = asList("java.lang.String", "java.lang.Long", "java.lang.Integer",
+            "java.lang.Byte", "java.lang.Boolean", "java.lang.Float", "java.lang.Double", "java.lang.Character",
+            "java.lang.Short", "java.math.BigInteger", "java.math.BigDecimal", "java.util.Calendar", "java.util.Date",
+            "java.sql.Date", "java.sql.Timestamp", "java.time.Instant", "java.time.LocalDate",
+            "java.time.temporal.Temporal", "java.util.Currency", "java.io.File", "java.nio.file.Path",
+            "java.util.UUID", "java.lang.Class", "java.lang.Package", "java.lang.Enum", "java.net.URL",
+            "java.net.URI");
+
+    /** Must be the same as in {@code AutoConfigBuilder}. */
+    private static final Set<String> IGNORED_METHOD_NAMES = new HashSet<>(
+            asList("getClass", "getProtectionDomain", "getClassLoader", "getURLs", "hashCode", "toString"));
+
+    private static final String AUTO_MATCHER = "org.itsallcode.matcher.auto.AutoMatcher";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (final Element element : roundEnv.getElementsAnnotatedWith(GenerateMatcher.class)) {
+            if (isSupported(element)) {
+                generateMatcher((TypeElement) element);
+            }
+        }
+        return true;
+    }
+
+    private boolean isSupported(final Element element) {
+        if (!element.getKind().isClass() && !element.getKind().isInterface()) {
+            error(element, "@GenerateMatcher is only supported for classes, records and interfaces");
+            return false;
+        }
+        final TypeElement type = (TypeElement) element;
+        if (!type.getTypeParameters().isEmpty()) {
+            error(element, "@GenerateMatcher is not supported for generic type " + type.getQualifiedName());
+            return false;
+        }
+        if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)
+                && type.getKind() == ElementKind.CLASS) {
+            error(element, "@GenerateMatcher is not supported for inner class " + type.getQualifiedName());
+            return false;
+        }
+        if (type.getModifiers().contains(Modifier.PRIVATE)) {
+            error(element, "@GenerateMatcher is not supported for private type " + type.getQualifiedName());
+            return false;
+        }
+        return true;
+    }
+
+    private void generateMatcher(final TypeElement type) {
+        final List<ExecutableElement> getters = getGetters(type);
+        if (getters.isEmpty()) {
+            error(type, "Type " + type.getQualifiedName() + " has no properties");
+            return;
+        }
+        final String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        final String matcherName = getMatcherSimpleName(type);
+        final String qualifiedMatcherName = packageName.isEmpty() ? matcherName : packageName + "." + matcherName;
+        try (PrintWriter writer = new PrintWriter(
+                processingEnv.getFiler().createSourceFile(qualifiedMatcherName, type).openWriter())) {
+            writeMatcher(writer, type, packageName, matcherName, getters);
+        } catch (final IOException e) {
+            error(type, "Failed to generate " + qualifiedMatcherName + ": " + e.getMessage());
+        }
+    }
+
+    private void writeMatcher(final PrintWriter writer, final TypeElement type, final String packageName,
+            final String matcherName, final List<ExecutableElement> getters) {
+        final String typeName = type.getQualifiedName().toString();
+        final String visibility = type.getModifiers().contains(Modifier.PUBLIC) ? "public " : "";
+        if (!packageName.isEmpty()) {
+            writer.println("package " + packageName + ";");
+            writer.println();
+        }
+        writer.println("/**");
+        writer.println(" * Matcher for {@link " + typeName + "} generated from annotation {@link "
+                + GenerateMatcher.class.getName() + "}.");
+        writer.println(" */");
+        writer.println(visibility + "final class " + matcherName + " {");
+        writer.println();
+        writer.println("    private " + matcherName + "() {");
+        writer.println("        // not instantiable");
+        writer.println("    }");
+        writer.println();
+        writer.println("    /**");
+        writer.println("     * Creates a matcher that matches the expected object.");
+        writer.println("     *");
+        writer.println("     * @param expected expected object");
+        writer.println("     * @return a matcher that matches the expected object");
+        writer.println("     */");
+        writer.println("    " + visibility + "static org.hamcrest.Matcher<" + typeName + "> equalTo(final " + typeName
+                + " expected) {");
+        writer.println("        if (expected == null) {");
+        writer.println("            return org.hamcrest.Matchers.nullValue(" + typeName + ".class);");
+        writer.println("        }");
+        writer.println("        return new org.itsallcode.matcher.config.ConfigurableMatcher<>("
+                + "org.itsallcode.matcher.config.MatcherConfig.builder(expected) //");
+        for (final ExecutableElement getter : getters) {
+            final String methodName = getter.getSimpleName().toString();
+            writer.println("                .addProperty(\"" + getPropertyName(methodName) + "\", " + typeName + "::"
+                    + methodName + ", " + getMatcherFactory(getter.getReturnType()) + ") //");
+        }
+        writer.println("                .build());");
+        writer.println("    }");
+        writer.println("}");
+    }
+
+    /**
+     * Get the getters of the given type, or the accessors of the components for
+     * records, sorted in the same order as by {@code AutoConfigBuilder}.
+     */
+    private List<ExecutableElement> getGetters(final TypeElement type) {
+        final boolean isRecord = "RECORD".equals(type.getKind().name());
+        final Set<String> recordComponents = getRecordComponentNames(type);
+        final List<? extends Element> members = processingEnv.getElementUtils().getAllMembers(type);
+        return ElementFilter.methodsIn(members).stream() //
+                .filter(method -> method.getModifiers().contains(Modifier.PUBLIC)) //
+                .filter(method -> !method.getModifiers().contains(Modifier.STATIC)) //
+                .filter(method -> !IGNORED_METHOD_NAMES.contains(method.getSimpleName().toString())) //
+                .filter(method -> isRecord ? recordComponents.contains(method.getSimpleName().toString())
+                        : isGetterMethodName(method.getSimpleName().toString())) //
+                .filter(method -> method.getParameters().isEmpty()
+                        && method.getReturnType().getKind() != TypeKind.VOID) //
+                .sorted(Comparator.<ExecutableElement, Boolean>comparing(this::hasSimpleReturnType).reversed() //
+                        .thenComparing(method -> method.getReturnType().getKind() == TypeKind.ARRAY) //
+                        .thenComparing(method -> method.getSimpleName().toString())) //
+                .collect(toList());
+    }
+
+    /**
+     * Get the names of the record components. Element kind
+     * {@code RECORD_COMPONENT} is compared by name because it is not available
+     * in Java 11.
+     */
+    private static Set<String> getRecordComponentNames(final TypeElement type) {
+        final Set<String> names = new HashSet<>();
+        for (final Element element : type.getEnclosedElements()) {
+            if ("RECORD_COMPONENT".equals(element.getKind().name())) {
+                names.add(element.getSimpleName().toString());
+            }
+        }
+        return names;
+    }
+
+    private static boolean isGetterMethodName(final String methodName) {
+        return methodName.startsWith("get") || methodName.startsWith("is");
+    }
+
+    private boolean hasSimpleReturnType(final ExecutableElement method) {
+        final TypeMirror type = method.getReturnType();
+        if (type.getKind().isPrimitive()) {
+            return true;
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        if (((DeclaredType) type).asElement().getKind() == ElementKind.ENUM) {
+            return true;
+        }
+        final TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        for (final String simpleTypeName : SIMPLE_TYPES) {
+            final TypeElement simpleType = processingEnv.getElementUtils().getTypeElement(simpleTypeName);
+            if (simpleType != null && processingEnv.getTypeUtils().isAssignable(erasure,
+                    processingEnv.getTypeUtils().erasure(simpleType.asType()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String getMatcherFactory(final TypeMirror returnType) {
+        if (returnType.getKind() == TypeKind.DECLARED) {
+            final Element element = ((DeclaredType) returnType).asElement();
+            if (element.getAnnotation(GenerateMatcher.class) != null) {
+                final TypeElement type = (TypeElement) element;
+                final String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName()
+                        .toString();
+                final String matcherName = getMatcherSimpleName(type);
+                return (packageName.isEmpty() ? matcherName : packageName + "." + matcherName) + "::equalTo";
+            }
+        }
+        return AUTO_MATCHER + "::equalTo";
+    }
+
+    private static String getMatcherSimpleName(final TypeElement type) {
+        final Deque<String> names = new ArrayDeque<>();
+        Element element = type;
+        while (element instanceof TypeElement) {
+            names.addFirst(element.getSimpleName().toString());
+            element = element.getEnclosingElement();
+        }
+        return String.join("_", names) + "Matcher";
+    }
+
+    /** Must be the same as in {@code AutoConfigBuilder}. */
+    static String getPropertyName(final String methodName) {
+        final int prefixLength;
+        if (methodName.startsWith("get")) {
+            prefixLength = 3;
+        } else if (methodName.startsWith("is")) {
+            prefixLength = 2;
+        } else {
+            return methodName;
+        }
+        if (methodName.length() == prefixLength) {
+            return methodName;
+        }
+        final String propertyName = methodName.substring(prefixLength);
+        return Character.toLowerCase(propertyName.charAt(0)) + propertyName.substring(1);
+    }
+
+    private void error(final Element element, final String message) {
+        processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,20 @@
+package org.itsallcode.matcher.processor;
+
+@GenerateMatcher
+public class Address {
+    private final String city;
+    private final int zipCode;
+
+    public Address(final String city, final int zipCode) {
+        this.city = city;
+        this.zipCode = zipCode;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public int getZipCode() {
+        return zipCode;
+    }
+}
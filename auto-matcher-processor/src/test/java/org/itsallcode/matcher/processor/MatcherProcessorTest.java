@@ -0,0 +1,73 @@
+package org.itsallcode.matcher.processor;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.itsallcode.matcher.auto.AutoMatcher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class MatcherProcessorTest {
+
+    @Test
+    void generatedMatcherMatches() {
+        assertThat(person("Alice", 42), PersonMatcher.equalTo(person("Alice", 42)));
+    }
+
+    @Test
+    void generatedMatcherDoesNotMatch() {
+        assertThat(person("Alice", 42), not(PersonMatcher.equalTo(person("Bob", 42))));
+        assertThat(person("Alice", 42), not(PersonMatcher.equalTo(person("Alice", 43))));
+    }
+
+    @Test
+    void generatedMatcherForNull() {
+        assertThat(null, PersonMatcher.equalTo(null));
+        assertThat(person("Alice", 42), not(PersonMatcher.equalTo(null)));
+    }
+
+    @Test
+    void generatedMatcherForEmptyList() {
+        final Person expected = new Person("Alice", 42, true, null, emptyList(), null);
+        assertThat(new Person("Alice", 42, true, null, emptyList(), null), PersonMatcher.equalTo(expected));
+    }
+
+    @Test
+    void descriptionEqualToAutoMatcher() {
+        final Person expected = person("Alice", 42);
+        assertEquals(StringDescription.toString(AutoMatcher.equalTo(expected)),
+                StringDescription.toString(PersonMatcher.equalTo(expected)));
+    }
+
+    @Test
+    void mismatchDescriptionEqualToAutoMatcher() {
+        final Person expected = person("Alice", 42);
+        final Person actual = new Person("Bob", 42, false, new Address("Berlin", 10115),
+                asList(new Address("Hamburg", 20095)), new String[] { "bobby" });
+        assertEquals(describeMismatch(AutoMatcher.equalTo(expected), actual),
+                describeMismatch(PersonMatcher.equalTo(expected), actual));
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "getName,name", "isActive,active", "get,get", "otherName,otherName" })
+    void getPropertyName(final String methodName, final String expectedPropertyName) {
+        assertEquals(expectedPropertyName, MatcherProcessor.getPropertyName(methodName));
+    }
+
+    private static <T> String describeMismatch(final Matcher<T> matcher, final T actual) {
+        final StringDescription description = new StringDescription();
+        matcher.describeMismatch(actual, description);
+        return description.toString();
+    }
+
+    private static Person person(final String name, final int age) {
+        return new Person(name, age, true, new Address("Munich", 80331),
+                asList(new Address("Hamburg", 20095), new Address("Cologne", 50667)), new String[] { "nick" });
+    }
+}
@@ -0,0 +1,51 @@
+package org.itsallcode.matcher.processor;
+
+import java.util.List;
+
+@GenerateMatcher
+public class Person {
+    private final String name;
+    private final int age;
+    private final boolean active;
+    private final Address address;
+    private final List<Address> previousAddresses;
+    private final String[] nicknames;
+
+    public Person(final String name, final int age, final boolean active, final Address address,
+            final List<Address> previousAddresses, final String[] nicknames) {
+        this.name = name;
+        this.age = age;
+        this.active = active;
+        this.address = address;
+        this.previousAddresses = previousAddresses;
+        this.nicknames = nicknames;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public Address getAddress() {
+        return address;
+    }
+
+    public List<Address> getPreviousAddresses() {
+        return previousAddresses;
+    }
+
+    public String[] getNicknames() {
+        return nicknames;
+    }
+
+    public String computeSummary() {
+        return name + " (" + age + ")";
+    }
+}
@@ -35,6 +35,47 @@ class AutoMatcherRecordTest {
         assertThat(properties.get(1).getPropertyName(), equalTo("name"));
     }
 
+    @Test
+    void derivedMethodsAreIgnored() {
+        final MatcherConfig<RecordWithDerivedMethod> config = AutoConfigBuilder
+                .create(new RecordWithDerivedMethod("Alice")).build();
+        final List<PropertyConfig<RecordWithDerivedMethod, Object>> properties = config.getPropertyConfigs();
+        assertThat(properties, hasSize(1));
+        assertThat(properties.get(0).getPropertyName(), equalTo("name"));
+    }
+
+    @Test
+    void recordsWithDerivedMethodEqual() {
+        assertThat(new RecordWithDerivedMethod("Alice"), AutoMatcher.equalTo(new RecordWithDerivedMethod("Alice")));
+    }
+
+    @Test
+    void isRecord() {
+        assertThat(RecordSupport.isRecord(Record.class), is(true));
+        assertThat(RecordSupport.isRecord(String.class), is(false));
+    }
+
+    @Test
+    void multiReleaseJarUsesNativeRecordSupport() {
+        assertThat(RecordSupport.class.getDeclaredFields(), emptyArray());
+    }
+
+    @Test
+    void recordAccessorsInDeclarationOrder() {
+        assertThat(RecordSupport.getAccessors(Record.class).stream().map(m -> m.getName()).toArray(),
+                arrayContaining("name", "age"));
+    }
+
     static record Record(String name, int age) {
     }
+
+    static record RecordWithDerivedMethod(String name) {
+        public String upperCaseName() {
+            return name.toUpperCase();
+        }
+
+        public String expensive() {
+            throw new UnsupportedOperationException("must not be called");
+        }
+    }
 }
@@ -0,0 +1,5 @@
+package org.itsallcode.matcher.processor;
+
+@GenerateMatcher
+public record AddressRecord(String city) {
+}
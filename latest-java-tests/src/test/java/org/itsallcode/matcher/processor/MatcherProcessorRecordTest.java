@@ -0,0 +1,53 @@
+package org.itsallcode.matcher.processor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.itsallcode.matcher.auto.AutoMatcher;
+import org.junit.jupiter.api.Test;
+
+class MatcherProcessorRecordTest {
+
+    @Test
+    void generatedMatcherMatchesRecord() {
+        assertThat(person("Alice", 42), PersonRecordMatcher.equalTo(person("Alice", 42)));
+        assertThat(person("Alice", 42), not(PersonRecordMatcher.equalTo(person("Alice", 43))));
+        assertThat(person("Alice", 42), not(PersonRecordMatcher.equalTo(person("Bob", 42))));
+    }
+
+    @Test
+    void derivedMethodsAreIgnored() {
+        assertEquals("{age=<42>, name=\"Alice\", addresses=iterable containing [{city=\"Munich\"}]}",
+                StringDescription.toString(PersonRecordMatcher.equalTo(person("Alice", 42))));
+    }
+
+    @Test
+    void descriptionEqualToAutoMatcher() {
+        final PersonRecord expected = person("Alice", 42);
+        assertEquals(StringDescription.toString(AutoMatcher.equalTo(expected)),
+                StringDescription.toString(PersonRecordMatcher.equalTo(expected)));
+    }
+
+    @Test
+    void mismatchDescriptionEqualToAutoMatcher() {
+        final PersonRecord expected = person("Alice", 42);
+        final PersonRecord actual = new PersonRecord("Bob", 42, List.of(new AddressRecord("Berlin")));
+        assertEquals(describeMismatch(AutoMatcher.equalTo(expected), actual),
+                describeMismatch(PersonRecordMatcher.equalTo(expected), actual));
+    }
+
+    private static <T> String describeMismatch(final Matcher<T> matcher, final T actual) {
+        final StringDescription description = new StringDescription();
+        matcher.describeMismatch(actual, description);
+        return description.toString();
+    }
+
+    private static PersonRecord person(final String name, final int age) {
+        return new PersonRecord(name, age, List.of(new AddressRecord("Munich")));
+    }
+}
@@ -0,0 +1,15 @@
+package org.itsallcode.matcher.processor;
+
+import java.util.List;
+
+@GenerateMatcher
+public record PersonRecord(String name, int age, List<AddressRecord> addresses) {
+
+    public String upperCaseName() {
+        throw new UnsupportedOperationException("must not be called");
+    }
+
+    public String getNickName() {
+        throw new UnsupportedOperationException("must not be called");
+    }
+}
@@ -3,7 +3,9 @@
  * in case of a test failure.
  */
 module org.itsallcode.automatcher {
+    exports org.itsallcode.matcher;
     exports org.itsallcode.matcher.auto;
+    exports org.itsallcode.matcher.config;
 
     requires java.sql;
     requires java.logging;
@@ -1,15 +1,44 @@
 package org.itsallcode.matcher;
 
-import org.hamcrest.Description;
-import org.hamcrest.TypeSafeDiagnosingMatcher;
+import org.hamcrest.*;
 
 /**
  * This is the base class for all matchers that allows using
  * {@link DescriptionBuilder} and {@link MismatchReporter}.
+ * <p>
+ * {@link #matches(Object)} only checks if the actual object matches using
+ * {@link #isMatching(Object)} without creating any description. Nested
+ * matchers are checked using {@link #matchesWithoutDescription(Matcher, Object)},
+ * which skips the {@link Description.NullDescription} that
+ * {@link TypeSafeDiagnosingMatcher#matches(Object)} allocates for each checked
+ * object, so matching nested objects does not allocate memory.
+ * <p>
+ * {@link #describeMismatch(Object, Description)} records the description of
+ * the last mismatch while comparing. When the mismatch of the same actual object
+ * is described again while describing the same mismatch, the recorded
+ * description is used instead of comparing the object again. This ensures that
+ * nested matchers are evaluated only once instead of once per level.
+ * <p>
+ * The expected object is fixed when the matcher is created, so
+ * {@link #describeTo(Description)} renders the description only once and
+ * reuses it for later calls with the same {@link RenderingBudget}. Only the
+ * description of the outermost matcher is cached. Nested matchers describe
+ * their expected objects directly into the description of their parent, so the
+ * text is neither copied nor kept once per nesting level. Descriptions longer
+ * than {@value #MAX_CACHED_LENGTH} characters are not cached.
+ * <p>
+ * {@link #collectMismatches(Object, MismatchPath, MismatchSink)} reports the
+ * mismatches of all properties as structured {@link Mismatch}es for a
+ * {@link MismatchTree}.
  *
  * @param <T> the type supported by the matcher.
  */
-public abstract class BaseTypeSafeDiagnosingMatcher<T> extends TypeSafeDiagnosingMatcher<T> {
+public abstract class BaseTypeSafeDiagnosingMatcher<T> extends TypeSafeDiagnosingMatcher<T>
+        implements MismatchSource {
+    private static final int MAX_CACHED_LENGTH = 1 << 20;
+
+    private volatile RecordedMismatch lastMismatch;
+    private volatile CachedDescription cachedDescription;
 
     /**
      * Create a new {@link BaseTypeSafeDiagnosingMatcher} with the expected value.
@@ -21,9 +50,32 @@ public abstract class BaseTypeSafeDiagnosingMatcher<T> extends TypeSafeDiagnosin
 
     @Override
     public final void describeTo(final Description description) {
+        if (RenderingScope.currentDepth() > 0) {
+            describeExpected(description);
+            return;
+        }
+        final RenderingBudget budget = RenderingBudget.current();
+        final CachedDescription cached = this.cachedDescription;
+        if (cached != null && cached.budget == budget) {
+            description.appendText(cached.text);
+            return;
+        }
+        final Description rendered = budget.createDescription();
+        describeExpected(rendered);
+        final String text = rendered.toString();
+        if (text.length() <= MAX_CACHED_LENGTH) {
+            this.cachedDescription = new CachedDescription(budget, text);
+        }
+        description.appendText(text);
+    }
+
+    private void describeExpected(final Description description) {
         final DescriptionBuilder builder = DescriptionBuilder.start(description);
-        describeTo(builder);
-        builder.close();
+        try {
+            describeTo(builder);
+        } finally {
+            builder.close();
+        }
     }
 
     /**
@@ -33,9 +85,122 @@ public abstract class BaseTypeSafeDiagnosingMatcher<T> extends TypeSafeDiagnosin
      */
     protected abstract void describeTo(DescriptionBuilder description);
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public final boolean collectMismatches(final Object actual, final MismatchPath path,
+            final MismatchSink collector) {
+        if (actual == null) {
+            collector.accept(Mismatch.different(path, this, null));
+            return false;
+        }
+        final MismatchReporter mismatchReporter = MismatchReporter.collecting(path, collector);
+        reportMismatches((T) actual, mismatchReporter);
+        return mismatchReporter.finishAndCheckMatching();
+    }
+
+    /**
+     * Check if the actual value matches the expected value and describe the
+     * mismatch. {@link #matches(Object)} passes a
+     * {@link Description.NullDescription}. It is not passed on, so that the
+     * JIT compiler can remove its allocation.
+     *
+     * @param actual              the actual value to compare to the expected
+     *                            value.
+     * @param mismatchDescription the description of the mismatch.
+     * @return {@code true} if the actual value matches.
+     */
     @Override
     protected final boolean matchesSafely(final T actual, final Description mismatchDescription) {
-        final MismatchReporter mismatchReporter = MismatchReporter.start(mismatchDescription);
+        if (mismatchDescription instanceof Description.NullDescription) {
+            return matchesWithoutDescription(actual);
+        }
+        final EvaluationScope scope = EvaluationScope.current();
+        scope.enter(true);
+        try {
+            return matchesSafely(actual, mismatchDescription, scope);
+        } finally {
+            scope.exit();
+        }
+    }
+
+    /**
+     * Check if the matcher matches the actual object. For a
+     * {@link BaseTypeSafeDiagnosingMatcher} this is the same as
+     * {@link #matches(Object)} but does not allocate a
+     * {@link Description.NullDescription}. Matchers use this for checking their
+     * nested matchers.
+     *
+     * @param matcher the matcher
+     * @param actual  the actual object
+     * @return {@code true} if the matcher matches the actual object
+     */
+    @SuppressWarnings("unchecked") // the type of the actual object is checked by the properties
+    public static boolean matchesWithoutDescription(final Matcher<?> matcher, final Object actual) {
+        if (matcher instanceof BaseTypeSafeDiagnosingMatcher) {
+            final BaseTypeSafeDiagnosingMatcher<Object> baseMatcher = (BaseTypeSafeDiagnosingMatcher<Object>) matcher;
+            return actual != null && baseMatcher.matchesWithoutDescription(actual);
+        }
+        return matcher.matches(actual);
+    }
+
+    /**
+     * Check if the actual value matches. The mismatch is only described if an
+     * enclosing matcher currently describes a mismatch, so that it can be
+     * reused, otherwise {@link #isMatching(Object)} is used.
+     */
+    private boolean matchesWithoutDescription(final T actual) {
+        final EvaluationScope scope = EvaluationScope.current();
+        final boolean describing = scope.enter(false);
+        try {
+            if (!describing) {
+                return isMatching(actual);
+            }
+            return matchesSafely(actual, Description.NONE, scope);
+        } finally {
+            scope.exit();
+        }
+    }
+
+    private boolean matchesSafely(final T actual, final Description mismatchDescription,
+            final EvaluationScope scope) {
+        final RecordedMismatch previousMismatch = this.lastMismatch;
+        if (previousMismatch != null && previousMismatch.actual == actual && previousMismatch.scope == scope
+                && previousMismatch.generation == scope.getGeneration()) {
+            mismatchDescription.appendText(previousMismatch.description);
+            return false;
+        }
+        final Description description = RenderingBudget.current().createDescription();
+        final MismatchReporter mismatchReporter = MismatchReporter.start(description);
+        final boolean matches;
+        try {
+            reportMismatches(actual, mismatchReporter);
+        } finally {
+            matches = mismatchReporter.finishAndCheckMatching();
+        }
+        if (matches) {
+            this.lastMismatch = null;
+            return true;
+        }
+        final RecordedMismatch mismatch = new RecordedMismatch(actual, description.toString(), scope);
+        this.lastMismatch = mismatch;
+        mismatchDescription.appendText(mismatch.description);
+        return false;
+    }
+
+    /**
+     * Check if the actual value matches the expected value without describing
+     * the mismatch. This is used by {@link #matches(Object)}.
+     * <p>
+     * The default implementation calls
+     * {@link #reportMismatches(Object, MismatchReporter)} with a
+     * {@link MismatchReporter} that skips all checks after the first mismatch.
+     * Subclasses may override this to avoid reading the remaining values.
+     *
+     * @param actual the actual value to compare to the expected value.
+     * @return {@code true} if the actual value matches.
+     */
+    protected boolean isMatching(final T actual) {
+        final MismatchReporter mismatchReporter = MismatchReporter.failFast();
         reportMismatches(actual, mismatchReporter);
         return mismatchReporter.finishAndCheckMatching();
     }
@@ -47,4 +212,32 @@ public abstract class BaseTypeSafeDiagnosingMatcher<T> extends TypeSafeDiagnosin
      * @param mismatchReporter the {@link MismatchReporter}.
      */
     protected abstract void reportMismatches(T actual, MismatchReporter mismatchReporter);
+
+    /**
+     * A rendered description of the expected object. The description depends
+     * on the budget it was rendered with.
+     */
+    private static final class CachedDescription {
+        private final RenderingBudget budget;
+        private final String text;
+
+        private CachedDescription(final RenderingBudget budget, final String text) {
+            this.budget = budget;
+            this.text = text;
+        }
+    }
+
+    private static final class RecordedMismatch {
+        private final Object actual;
+        private final String description;
+        private final EvaluationScope scope;
+        private final long generation;
+
+        private RecordedMismatch(final Object actual, final String description, final EvaluationScope scope) {
+            this.actual = actual;
+            this.description = description;
+            this.scope = scope;
+            this.generation = scope.getGeneration();
+        }
+    }
 }
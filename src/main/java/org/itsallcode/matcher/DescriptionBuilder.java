@@ -6,18 +6,27 @@ import org.hamcrest.*;
  * This class builds a {@link Description} based on {@link Matcher} and a
  * description. It can be used for
  * {@link org.hamcrest.TypeSafeDiagnosingMatcher#describeTo(Description)}.
+ * <p>
+ * When the maximum depth of the current {@link RenderingBudget} is reached, the
+ * object is described as <code>{...}</code> without describing its properties.
  */
 public final class DescriptionBuilder {
     private final Description description;
+    private final boolean elided;
     private boolean firstElement = true;
 
-    private DescriptionBuilder(final Description description) {
+    private DescriptionBuilder(final Description description, final boolean elided) {
         this.description = description;
+        this.elided = elided;
     }
 
     static DescriptionBuilder start(final Description description) {
+        if (!RenderingScope.enterLevel()) {
+            description.appendText("{...");
+            return new DescriptionBuilder(description, true);
+        }
         description.appendText("{");
-        return new DescriptionBuilder(description);
+        return new DescriptionBuilder(description, false);
     }
 
     /**
@@ -28,6 +37,9 @@ public final class DescriptionBuilder {
      * @return {@code this} for method chaining
      */
     public DescriptionBuilder append(final String message, final SelfDescribing matcher) {
+        if (elided) {
+            return this;
+        }
         appendComma();
         this.description.appendText(message) //
                 .appendText("=") //
@@ -44,5 +56,8 @@ public final class DescriptionBuilder {
 
     void close() {
         this.description.appendText("}");
+        if (!elided) {
+            RenderingScope.exitLevel();
+        }
     }
 }
@@ -0,0 +1,58 @@
+package org.itsallcode.matcher;
+
+/**
+ * Tracks the evaluation of {@link BaseTypeSafeDiagnosingMatcher}s on the
+ * current thread. It decides when a recorded mismatch may be reused instead of
+ * comparing the actual object again.
+ * <p>
+ * Each top level evaluation starts a new generation. A recorded mismatch is
+ * only reused during the same generation, i.e. while evaluating nested
+ * matchers. This way repeated evaluations, e.g. when polling a mutable object,
+ * always compare the current state of the object.
+ * <p>
+ * The top level evaluation also decides if mismatches are described: a call
+ * of {@code matches()} only checks if the object matches. A call of
+ * {@code describeMismatch()} describes mismatches of all nested matchers,
+ * including the ones that are checked via {@code matches()} by other matchers,
+ * so that their mismatch can be reused when it is described.
+ */
+final class EvaluationScope {
+    private static final ThreadLocal<EvaluationScope> CURRENT = ThreadLocal.withInitial(EvaluationScope::new);
+
+    private int depth = 0;
+    private long generation = 0;
+    private boolean describing = false;
+
+    private EvaluationScope() {
+        // use current()
+    }
+
+    static EvaluationScope current() {
+        return CURRENT.get();
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Start evaluating a matcher.
+     *
+     * @param describingMismatch {@code true} if the matcher is called to
+     *                           describe a mismatch
+     * @return {@code true} if the matcher must describe mismatches,
+     *         {@code false} if it only needs to check if the object matches
+     */
+    boolean enter(final boolean describingMismatch) {
+        if (depth == 0) {
+            generation++;
+            describing = describingMismatch;
+        }
+        depth++;
+        return describing || describingMismatch;
+    }
+
+    void exit() {
+        depth--;
+    }
+}
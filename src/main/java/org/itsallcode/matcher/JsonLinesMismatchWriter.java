@@ -0,0 +1,207 @@
+package org.itsallcode.matcher;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.function.Consumer;
+
+import org.hamcrest.Description;
+
+/**
+ * A {@link MismatchSink} that writes each mismatch as soon as it is found as
+ * one line of JSON (<a href="https://jsonlines.org">JSON Lines</a>), e.g.
+ *
+ * <pre>
+ * {"path":"children[3].currency","kind":"DIFFERENT","expected":"EUR","actual":"USD"}
+ * </pre>
+ *
+ * Strings, numbers, booleans, characters, enums and {@code null} are written
+ * as JSON values. Other values are written as strings containing their
+ * description, limited by the {@link RenderingBudget} of the writer. The
+ * {@code expected} field is left out for {@link Mismatch.Kind#UNEXPECTED}
+ * mismatches and the {@code actual} field for {@link Mismatch.Kind#MISSING}
+ * mismatches.
+ * <p>
+ * The writer does not keep any mismatches, so memory use does not depend on
+ * the number of mismatches. Instances are not thread-safe.
+ */
+public final class JsonLinesMismatchWriter implements MismatchSink, Closeable, Flushable {
+    private static final RenderingBudget DEFAULT_BUDGET = RenderingBudget.builder().build();
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Writer writer;
+    private final RenderingBudget budget;
+    private final StringBuilder pathBuilder = new StringBuilder();
+    private long count = 0;
+
+    /**
+     * Create a new writer that limits descriptions to the default
+     * {@link RenderingBudget}.
+     *
+     * @param writer the target, should be buffered
+     */
+    public JsonLinesMismatchWriter(final Writer writer) {
+        this(writer, DEFAULT_BUDGET);
+    }
+
+    /**
+     * Create a new writer.
+     *
+     * @param writer the target, should be buffered
+     * @param budget limits the descriptions of values that are not written as
+     *               JSON values
+     */
+    public JsonLinesMismatchWriter(final Writer writer, final RenderingBudget budget) {
+        this.writer = writer;
+        this.budget = budget;
+    }
+
+    /**
+     * Create a new writer that writes UTF-8 encoded lines to a buffer of the
+     * given stream.
+     *
+     * @param stream the target
+     */
+    public JsonLinesMismatchWriter(final OutputStream stream) {
+        this(new BufferedWriter(new OutputStreamWriter(stream, UTF_8)));
+    }
+
+    /**
+     * Write the mismatch as one line.
+     *
+     * @throws UncheckedIOException if writing fails
+     */
+    @Override
+    public void accept(final Mismatch mismatch) {
+        try {
+            write(mismatch);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to write mismatch at " + mismatch.getPath(), e);
+        }
+        count++;
+    }
+
+    private void write(final Mismatch mismatch) throws IOException {
+        pathBuilder.setLength(0);
+        mismatch.getPath().appendTo(pathBuilder);
+        writer.write("{\"path\":");
+        writeString(pathBuilder);
+        writer.write(",\"kind\":\"");
+        writer.write(mismatch.getKind().name());
+        writer.write('"');
+        if (mismatch.getKind() != Mismatch.Kind.UNEXPECTED) {
+            writer.write(",\"expected\":");
+            if (mismatch.hasExpected() && isJsonValue(mismatch.getExpected())) {
+                writeJsonValue(mismatch.getExpected());
+            } else {
+                writeString(render(mismatch::describeExpected));
+            }
+        }
+        if (mismatch.getKind() != Mismatch.Kind.MISSING) {
+            final Object actual = mismatch.getActual();
+            writer.write(",\"actual\":");
+            if (isJsonValue(actual)) {
+                writeJsonValue(actual);
+            } else {
+                writeString(render(description -> description.appendValue(actual)));
+            }
+        }
+        writer.write("}\n");
+    }
+
+    private String render(final Consumer<Description> describer) {
+        return RenderingScope.run(budget, () -> {
+            final Description description = budget.createDescription();
+            describer.accept(description);
+            return description.toString();
+        });
+    }
+
+    private static boolean isJsonValue(final Object value) {
+        return value == null || value instanceof String || value instanceof Boolean || value instanceof Character
+                || value instanceof Enum || isJsonNumber(value);
+    }
+
+    private static boolean isJsonNumber(final Object value) {
+        if (value instanceof Double) {
+            return Double.isFinite((Double) value);
+        }
+        if (value instanceof Float) {
+            return Float.isFinite((Float) value);
+        }
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof BigInteger || value instanceof BigDecimal;
+    }
+
+    private void writeJsonValue(final Object value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+        } else if (value instanceof Enum) {
+            writeString(((Enum<?>) value).name());
+        } else if (value instanceof String || value instanceof Character) {
+            writeString(value.toString());
+        } else {
+            writer.write(value.toString());
+        }
+    }
+
+    private void writeString(final CharSequence value) throws IOException {
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                writer.append(value, start, i);
+                writeEscaped(c);
+                start = i + 1;
+            }
+        }
+        writer.append(value, start, value.length());
+        writer.write('"');
+    }
+
+    private void writeEscaped(final char c) throws IOException {
+        switch (c) {
+        case '"':
+            writer.write("\\\"");
+            break;
+        case '\\':
+            writer.write("\\\\");
+            break;
+        case '\n':
+            writer.write("\\n");
+            break;
+        case '\r':
+            writer.write("\\r");
+            break;
+        case '\t':
+            writer.write("\\t");
+            break;
+        default:
+            writer.write("\\u00");
+            writer.write(HEX_DIGITS[c >> 4]);
+            writer.write(HEX_DIGITS[c & 0xF]);
+        }
+    }
+
+    /**
+     * Get the number of mismatches written so far.
+     *
+     * @return the number of written lines
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
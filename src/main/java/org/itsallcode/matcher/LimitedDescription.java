@@ -0,0 +1,171 @@
+package org.itsallcode.matcher;
+
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.Map.Entry;
+
+import org.hamcrest.*;
+
+/**
+ * A {@link Description} that appends to another description and respects a
+ * {@link RenderingBudget}.
+ * <p>
+ * Text exceeding the maximum number of characters is dropped and replaced by
+ * {@value #TRUNCATED}. Arrays, collections and maps appended as values or
+ * lists show at most the maximum number of elements followed by a marker
+ * created by {@link RenderingBudget#describeElided(int)}.
+ */
+final class LimitedDescription extends BaseDescription {
+    private static final String TRUNCATED = "...";
+
+    private final Description target;
+    private final int maxElements;
+    private int remainingCharacters;
+    private boolean truncated = false;
+
+    private LimitedDescription(final Description target, final RenderingBudget budget) {
+        this.target = target;
+        this.maxElements = budget.getMaxElements();
+        this.remainingCharacters = budget.getMaxCharacters();
+    }
+
+    /**
+     * Create a new empty description.
+     */
+    static LimitedDescription create(final RenderingBudget budget) {
+        return new LimitedDescription(new StringDescription(), budget);
+    }
+
+    /**
+     * Create a new description that appends to the given description.
+     */
+    static LimitedDescription wrap(final Description target, final RenderingBudget budget) {
+        return new LimitedDescription(target, budget);
+    }
+
+    @Override
+    protected void append(final String str) {
+        if (str.isEmpty()) {
+            return;
+        }
+        if (str.length() <= remainingCharacters) {
+            target.appendText(str);
+            remainingCharacters -= str.length();
+            return;
+        }
+        if (remainingCharacters > 0) {
+            target.appendText(str.substring(0, remainingCharacters));
+            remainingCharacters = 0;
+        }
+        if (!truncated) {
+            truncated = true;
+            target.appendText(TRUNCATED);
+        }
+    }
+
+    @Override
+    protected void append(final char c) {
+        append(String.valueOf(c));
+    }
+
+    @Override
+    public Description appendValue(final Object value) {
+        if (value != null && value.getClass().isArray()) {
+            final int length = Array.getLength(value);
+            final int described = Math.min(length, maxElements);
+            append("[");
+            for (int i = 0; i < described; i++) {
+                if (i > 0) {
+                    append(", ");
+                }
+                appendValue(Array.get(value, i));
+            }
+            appendElided(length - described);
+            append("]");
+            return this;
+        }
+        if (value instanceof Collection && ((Collection<?>) value).size() > maxElements) {
+            appendLimitedToString("<[", ((Collection<?>) value).iterator(), ((Collection<?>) value).size(), "]>");
+            return this;
+        }
+        if (value instanceof Map && ((Map<?, ?>) value).size() > maxElements) {
+            appendLimitedToString("<{", ((Map<?, ?>) value).entrySet().iterator(), ((Map<?, ?>) value).size(), "}>");
+            return this;
+        }
+        return super.appendValue(value);
+    }
+
+    /**
+     * Append the first elements like {@link AbstractCollection#toString()} and
+     * {@link AbstractMap#toString()}.
+     */
+    private void appendLimitedToString(final String start, final Iterator<?> elements, final int size,
+            final String end) {
+        append(start);
+        for (int i = 0; i < maxElements && elements.hasNext(); i++) {
+            if (i > 0) {
+                append(", ");
+            }
+            final Object element = elements.next();
+            if (element instanceof Entry) {
+                final Entry<?, ?> entry = (Entry<?, ?>) element;
+                append(String.valueOf(entry.getKey()) + "=" + entry.getValue());
+            } else {
+                append(String.valueOf(element));
+            }
+        }
+        appendElided(size - maxElements);
+        append(end);
+    }
+
+    @Override
+    public <T> Description appendValueList(final String start, final String separator, final String end,
+            final Iterable<T> values) {
+        append(start);
+        int count = 0;
+        final Iterator<T> iterator = values.iterator();
+        while (iterator.hasNext()) {
+            final T value = iterator.next();
+            if (count < maxElements) {
+                if (count > 0) {
+                    append(separator);
+                }
+                appendValue(value);
+            }
+            count++;
+        }
+        appendElided(count - maxElements);
+        append(end);
+        return this;
+    }
+
+    @Override
+    public Description appendList(final String start, final String separator, final String end,
+            final Iterable<? extends SelfDescribing> values) {
+        append(start);
+        int count = 0;
+        for (final SelfDescribing value : values) {
+            if (count < maxElements) {
+                if (count > 0) {
+                    append(separator);
+                }
+                appendDescriptionOf(value);
+            }
+            count++;
+        }
+        appendElided(count - maxElements);
+        append(end);
+        return this;
+    }
+
+    private void appendElided(final int count) {
+        if (count > 0) {
+            append(", " + RenderingBudget.describeElided(count));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return target.toString();
+    }
+}
@@ -0,0 +1,48 @@
+package org.itsallcode.matcher;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+
+/**
+ * Delegates to a matcher and limits its descriptions to a
+ * {@link RenderingBudget}.
+ *
+ * @param <T> type of the matched objects
+ */
+final class LimitedMatcher<T> extends BaseMatcher<T> implements MismatchSource {
+    private final Matcher<T> delegate;
+    private final RenderingBudget budget;
+
+    LimitedMatcher(final Matcher<T> delegate, final RenderingBudget budget) {
+        this.delegate = delegate;
+        this.budget = budget;
+    }
+
+    @Override
+    public boolean matches(final Object actual) {
+        return delegate.matches(actual);
+    }
+
+    @Override
+    public boolean collectMismatches(final Object actual, final MismatchPath path,
+            final MismatchSink collector) {
+        return Mismatch.collect(path, delegate, actual, collector);
+    }
+
+    @Override
+    public void describeTo(final Description description) {
+        RenderingScope.run(budget, () -> {
+            delegate.describeTo(LimitedDescription.wrap(description, budget));
+            return null;
+        });
+    }
+
+    @Override
+    public void describeMismatch(final Object actual, final Description description) {
+        RenderingScope.run(budget, () -> {
+            delegate.describeMismatch(actual, LimitedDescription.wrap(description, budget));
+            return null;
+        });
+    }
+}
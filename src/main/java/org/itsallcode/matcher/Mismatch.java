@@ -0,0 +1,264 @@
+package org.itsallcode.matcher;
+
+import org.hamcrest.*;
+
+/**
+ * A single difference between an expected and an actual object, located by its
+ * {@link MismatchPath}.
+ * <p>
+ * A mismatch only keeps references to the matcher and the compared values.
+ * Its text is rendered by {@link #describeTo(Description)} when required, so
+ * that mismatches can be counted and classified without formatting them.
+ */
+public final class Mismatch implements SelfDescribing {
+    private static final Object UNKNOWN = new Object();
+
+    private final MismatchPath path;
+    private final Kind kind;
+    private final Matcher<?> matcher;
+    private final Object expected;
+    private final Object actual;
+
+    private Mismatch(final MismatchPath path, final Kind kind, final Matcher<?> matcher, final Object expected,
+            final Object actual) {
+        this.path = path;
+        this.kind = kind;
+        this.matcher = matcher;
+        this.expected = expected;
+        this.actual = actual;
+    }
+
+    /**
+     * Collect the mismatches between the actual object and the given matcher.
+     * Matchers implementing {@link MismatchSource} report the mismatches of
+     * their nested objects, all other matchers are reported as a single
+     * {@link Kind#DIFFERENT} mismatch.
+     *
+     * @param path      path of the actual object
+     * @param matcher   the matcher for the expected object
+     * @param actual    the actual object
+     * @param collector receives the mismatches in the order they are found
+     * @return {@code true} if the actual object matches
+     */
+    public static boolean collect(final MismatchPath path, final Matcher<?> matcher, final Object actual,
+            final MismatchSink collector) {
+        return collect(path, matcher, UNKNOWN, actual, collector);
+    }
+
+    /**
+     * Collect the mismatches between the actual object and the given matcher
+     * for an expected value that is known to the caller.
+     *
+     * @param path      path of the actual object
+     * @param matcher   the matcher for the expected object
+     * @param expected  the expected value
+     * @param actual    the actual object
+     * @param collector receives the mismatches in the order they are found
+     * @return {@code true} if the actual object matches
+     * @see #collect(MismatchPath, Matcher, Object, MismatchSink)
+     */
+    public static boolean collect(final MismatchPath path, final Matcher<?> matcher, final Object expected,
+            final Object actual, final MismatchSink collector) {
+        if (matcher instanceof MismatchSource) {
+            return ((MismatchSource) matcher).collectMismatches(actual, path, collector);
+        }
+        if (matcher.matches(actual)) {
+            return true;
+        }
+        collector.accept(new Mismatch(path, Kind.DIFFERENT, matcher, expected, actual));
+        return false;
+    }
+
+    /**
+     * Create a mismatch of an actual value not matching the given matcher.
+     *
+     * @param path    path of the actual value
+     * @param matcher the matcher
+     * @param actual  the actual value
+     * @return the new mismatch
+     */
+    public static Mismatch different(final MismatchPath path, final Matcher<?> matcher, final Object actual) {
+        return new Mismatch(path, Kind.DIFFERENT, matcher, UNKNOWN, actual);
+    }
+
+    /**
+     * Create a mismatch of an actual value not equal to the expected value.
+     *
+     * @param path     path of the actual value
+     * @param expected the expected value
+     * @param actual   the actual value
+     * @return the new mismatch
+     */
+    public static Mismatch differentValue(final MismatchPath path, final Object expected, final Object actual) {
+        return new Mismatch(path, Kind.DIFFERENT, null, expected, actual);
+    }
+
+    /**
+     * Create a mismatch of an expected object that is missing in the actual
+     * object.
+     *
+     * @param path    path of the expected object
+     * @param matcher the matcher for the expected object
+     * @return the new mismatch
+     */
+    public static Mismatch missing(final MismatchPath path, final Matcher<?> matcher) {
+        return new Mismatch(path, Kind.MISSING, matcher, UNKNOWN, null);
+    }
+
+    /**
+     * Create a mismatch of an expected object that is missing in the actual
+     * object for an expected value that is known to the caller.
+     *
+     * @param path     path of the expected object
+     * @param matcher  the matcher for the expected object
+     * @param expected the expected value
+     * @return the new mismatch
+     */
+    public static Mismatch missing(final MismatchPath path, final Matcher<?> matcher, final Object expected) {
+        return new Mismatch(path, Kind.MISSING, matcher, expected, null);
+    }
+
+    /**
+     * Create a mismatch of an expected value that is missing in the actual
+     * object.
+     *
+     * @param path     path of the expected value
+     * @param expected the expected value
+     * @return the new mismatch
+     */
+    public static Mismatch missingValue(final MismatchPath path, final Object expected) {
+        return new Mismatch(path, Kind.MISSING, null, expected, null);
+    }
+
+    /**
+     * Create a mismatch of an actual value that is not expected.
+     *
+     * @param path   path of the actual value
+     * @param actual the actual value
+     * @return the new mismatch
+     */
+    public static Mismatch unexpected(final MismatchPath path, final Object actual) {
+        return new Mismatch(path, Kind.UNEXPECTED, null, UNKNOWN, actual);
+    }
+
+    /**
+     * Get the location of the mismatch.
+     *
+     * @return the path
+     */
+    public MismatchPath getPath() {
+        return path;
+    }
+
+    /**
+     * Get the kind of the mismatch.
+     *
+     * @return the kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Get the matcher for the expected value.
+     *
+     * @return the matcher or {@code null} if the values were compared using
+     *         {@link Object#equals(Object)} or the actual value is
+     *         {@link Kind#UNEXPECTED}
+     */
+    public Matcher<?> getMatcher() {
+        return matcher;
+    }
+
+    /**
+     * Check if the expected value is known. If it is not known, the expected
+     * value is only described by {@link #getMatcher()}.
+     *
+     * @return {@code true} if {@link #getExpected()} returns the expected value
+     */
+    public boolean hasExpected() {
+        return expected != UNKNOWN;
+    }
+
+    /**
+     * Get the expected value.
+     *
+     * @return the expected value or {@code null} if it is not known
+     */
+    public Object getExpected() {
+        return hasExpected() ? expected : null;
+    }
+
+    /**
+     * Get the actual value.
+     *
+     * @return the actual value or {@code null} if it is {@link Kind#MISSING}
+     */
+    public Object getActual() {
+        return actual;
+    }
+
+    /**
+     * Describe the expected value.
+     *
+     * @param description the description to append to
+     */
+    public void describeExpected(final Description description) {
+        if (kind == Kind.UNEXPECTED) {
+            description.appendText("nothing");
+        } else if (matcher != null) {
+            matcher.describeTo(description);
+        } else {
+            description.appendValue(getExpected());
+        }
+    }
+
+    /**
+     * Describe the actual value, e.g. {@code was "USD"}.
+     *
+     * @param description the description to append to
+     */
+    public void describeActual(final Description description) {
+        if (kind == Kind.MISSING) {
+            description.appendText("was missing");
+        } else if (matcher != null) {
+            matcher.describeMismatch(actual, description);
+        } else {
+            description.appendText("was ").appendValue(actual);
+        }
+    }
+
+    /**
+     * Describe the mismatch, e.g.
+     * {@code children[3].currency: expected "EUR" but was "USD"}.
+     */
+    @Override
+    public void describeTo(final Description description) {
+        if (!path.isRoot()) {
+            description.appendText(path.toString()).appendText(": ");
+        }
+        description.appendText("expected ");
+        describeExpected(description);
+        description.appendText(" but ");
+        describeActual(description);
+    }
+
+    @Override
+    public String toString() {
+        final Description description = RenderingBudget.current().createDescription();
+        describeTo(description);
+        return description.toString();
+    }
+
+    /**
+     * Kind of a mismatch.
+     */
+    public enum Kind {
+        /** The actual value differs from the expected value */
+        DIFFERENT,
+        /** The expected value is missing, e.g. a list is too short */
+        MISSING,
+        /** The actual value is not expected, e.g. a list is too long */
+        UNEXPECTED
+    }
+}
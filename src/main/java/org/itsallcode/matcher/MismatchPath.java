@@ -0,0 +1,183 @@
+package org.itsallcode.matcher;
+
+import java.util.Objects;
+
+/**
+ * The location of a {@link Mismatch} in the compared object, e.g.
+ * {@code children[3].currency}.
+ * <p>
+ * A path is a chain of segments: property names, collection indices and map
+ * keys. Segments are only linked when a mismatch is collected, the text is
+ * rendered by {@link #toString()} on demand.
+ */
+public final class MismatchPath {
+    private static final MismatchPath ROOT = new MismatchPath(null, Type.ROOT, null, -1);
+
+    private final MismatchPath parent;
+    private final Type type;
+    private final Object segment;
+    private final int index;
+
+    private MismatchPath(final MismatchPath parent, final Type type, final Object segment, final int index) {
+        this.parent = parent;
+        this.type = type;
+        this.segment = segment;
+        this.index = index;
+    }
+
+    /**
+     * Get the path of the compared object itself.
+     *
+     * @return the root path
+     */
+    public static MismatchPath root() {
+        return ROOT;
+    }
+
+    /**
+     * Get the path of a property of the object at this path.
+     *
+     * @param name name of the property
+     * @return the path of the property
+     */
+    public MismatchPath property(final String name) {
+        return new MismatchPath(this, Type.PROPERTY, Objects.requireNonNull(name, "name"), -1);
+    }
+
+    /**
+     * Get the path of an element of the collection or array at this path.
+     *
+     * @param index index of the element
+     * @return the path of the element
+     */
+    public MismatchPath index(final int index) {
+        return new MismatchPath(this, Type.INDEX, null, index);
+    }
+
+    /**
+     * Get the path of an entry of the map at this path.
+     *
+     * @param key key of the entry
+     * @return the path of the entry
+     */
+    public MismatchPath key(final Object key) {
+        return new MismatchPath(this, Type.KEY, key, -1);
+    }
+
+    /**
+     * Get the path of the object containing this segment.
+     *
+     * @return the parent path or {@code null} for the root path
+     */
+    public MismatchPath getParent() {
+        return parent;
+    }
+
+    /**
+     * Get the type of the last segment of this path.
+     *
+     * @return the segment type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Get the property name of a {@link Type#PROPERTY} segment.
+     *
+     * @return the property name or {@code null} for other segments
+     */
+    public String getName() {
+        return type == Type.PROPERTY ? (String) segment : null;
+    }
+
+    /**
+     * Get the index of an {@link Type#INDEX} segment.
+     *
+     * @return the index or {@code -1} for other segments
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Get the map key of a {@link Type#KEY} segment.
+     *
+     * @return the key or {@code null} for other segments
+     */
+    public Object getKey() {
+        return type == Type.KEY ? segment : null;
+    }
+
+    /**
+     * Check if this is the path of the compared object itself.
+     *
+     * @return {@code true} for the root path
+     */
+    public boolean isRoot() {
+        return parent == null;
+    }
+
+    /**
+     * Append the rendered path to the given builder.
+     *
+     * @param builder the builder
+     * @return the given builder
+     */
+    public StringBuilder appendTo(final StringBuilder builder) {
+        if (parent == null) {
+            return builder;
+        }
+        parent.appendTo(builder);
+        switch (type) {
+        case PROPERTY:
+            if (!parent.isRoot()) {
+                builder.append('.');
+            }
+            return builder.append(segment);
+        case INDEX:
+            return builder.append('[').append(index).append(']');
+        case KEY:
+            return builder.append('[').append(segment).append(']');
+        default:
+            throw new IllegalStateException("Unsupported segment type " + type);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder()).toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(parent, type, segment, index);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final MismatchPath other = (MismatchPath) obj;
+        return type == other.type && index == other.index && Objects.equals(segment, other.segment)
+                && Objects.equals(parent, other.parent);
+    }
+
+    /**
+     * Type of a path segment.
+     */
+    public enum Type {
+        /** The compared object itself */
+        ROOT,
+        /** A property of an object */
+        PROPERTY,
+        /** An element of a collection or array */
+        INDEX,
+        /** An entry of a map */
+        KEY
+    }
+}
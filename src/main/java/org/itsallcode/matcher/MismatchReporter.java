@@ -8,23 +8,80 @@ import org.hamcrest.Matcher;
  * matcher. It takes care of the overall matching state, i.e. when one attribute
  * does not match, the overall state is 'not matching'. Additionally it builds a
  * description of the mismatch.
+ * <p>
+ * When the maximum depth of the current {@link RenderingBudget} is reached,
+ * the mismatch is described as <code>{...}</code> and all checks after the
+ * first mismatch are skipped.
+ * <p>
+ * When collecting structured mismatches for a {@link MismatchTree}, the
+ * reporter does not build a description but passes each mismatch to a
+ * collector with the property name as last segment of its
+ * {@link MismatchPath}.
  */
 public final class MismatchReporter {
     private final Description mismatchDescription;
+    private final boolean failFast;
+    private final boolean elided;
+    private final MismatchPath path;
+    private final MismatchSink collector;
     private boolean firstMismatch = true;
     private boolean matches = true;
 
-    private MismatchReporter(final Description mismatchDescription) {
+    private MismatchReporter(final Description mismatchDescription, final boolean failFast, final boolean elided) {
+        this(mismatchDescription, failFast, elided, null, null);
+    }
+
+    private MismatchReporter(final Description mismatchDescription, final boolean failFast, final boolean elided,
+            final MismatchPath path, final MismatchSink collector) {
         this.mismatchDescription = mismatchDescription;
+        this.failFast = failFast;
+        this.elided = elided;
+        this.path = path;
+        this.collector = collector;
     }
 
     static MismatchReporter start(final Description mismatchDescription) {
+        if (!RenderingScope.enterLevel()) {
+            mismatchDescription.appendText("{...");
+            return new MismatchReporter(mismatchDescription, true, true);
+        }
         mismatchDescription.appendText("{");
-        return new MismatchReporter(mismatchDescription);
+        return new MismatchReporter(mismatchDescription, false, false);
+    }
+
+    /**
+     * Create a reporter that does not describe mismatches and skips all checks
+     * after the first mismatch.
+     */
+    static MismatchReporter failFast() {
+        return new MismatchReporter(Description.NONE, true, false);
     }
 
+    /**
+     * Create a reporter that passes the mismatches of the properties of the
+     * object at the given path to the collector.
+     */
+    static MismatchReporter collecting(final MismatchPath path, final MismatchSink collector) {
+        return new MismatchReporter(Description.NONE, false, false, path, collector);
+    }
+
+    /**
+     * Finish reporting and leave the nesting level entered by
+     * {@link #start(Description)}. Call this in a {@code finally} block, so that
+     * the level is also left when comparing fails with an exception.
+     *
+     * @return {@code true} if all checks matched
+     */
     boolean finishAndCheckMatching() {
-        this.mismatchDescription.appendText("}");
+        if (this.collector != null) {
+            return this.matches;
+        }
+        if (this.elided) {
+            this.mismatchDescription.appendText("}");
+        } else if (!this.failFast) {
+            this.mismatchDescription.appendText("}");
+            RenderingScope.exitLevel();
+        }
         return this.matches;
     }
 
@@ -40,7 +97,43 @@ public final class MismatchReporter {
      * @return this {@link MismatchReporter} allowing a fluent programming style.
      */
     public <T> MismatchReporter checkMismatch(final String message, final Matcher<T> matcher, final T actual) {
-        if (!matcher.matches(actual)) {
+        if (this.collector != null) {
+            return recordMatching(Mismatch.collect(this.path.property(message), matcher, actual, this.collector));
+        }
+        return check(message, matcher, actual);
+    }
+
+    /**
+     * Check if the actual object matches using the given {@link Matcher} and
+     * record a message if it does not match. The expected value is only used
+     * for the structured {@link Mismatch}es of a {@link MismatchTree}.
+     *
+     * @param message  the message to output in case of a failed match
+     * @param matcher  the {@link Matcher} used for checking the actual value
+     * @param expected the expected value the {@link Matcher} was created for
+     * @param actual   the actual value that will be compared using the
+     *                 {@link Matcher}.
+     * @param <T>      the type of the matcher.
+     * @return this {@link MismatchReporter} allowing a fluent programming style.
+     */
+    public <T> MismatchReporter checkMismatch(final String message, final Matcher<T> matcher, final T expected,
+            final T actual) {
+        if (this.collector != null) {
+            return recordMatching(
+                    Mismatch.collect(this.path.property(message), matcher, expected, actual, this.collector));
+        }
+        return check(message, matcher, actual);
+    }
+
+    private MismatchReporter recordMatching(final boolean propertyMatches) {
+        this.matches = this.matches && propertyMatches;
+        return this;
+    }
+
+    private <T> MismatchReporter check(final String message, final Matcher<T> matcher, final T actual) {
+        if (this.failFast) {
+            this.matches = this.matches && BaseTypeSafeDiagnosingMatcher.matchesWithoutDescription(matcher, actual);
+        } else if (!BaseTypeSafeDiagnosingMatcher.matchesWithoutDescription(matcher, actual)) {
             reportMismatch(message, matcher, actual);
             this.matches = false;
         }
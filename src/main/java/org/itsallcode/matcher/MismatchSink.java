@@ -0,0 +1,44 @@
+package org.itsallcode.matcher;
+
+import java.util.function.Consumer;
+
+import org.hamcrest.Matcher;
+
+/**
+ * Receives each {@link Mismatch} as soon as it is found while comparing an
+ * object.
+ * <p>
+ * Unlike {@link MismatchReporter}, which builds a single description, and
+ * {@link MismatchTree}, which keeps all mismatches, a sink can process the
+ * mismatches one by one, e.g. write them to a file using
+ * {@link JsonLinesMismatchWriter} or count them using
+ * {@link MismatchSummary}. Memory use then does not depend on the number of
+ * mismatches.
+ */
+@FunctionalInterface
+public interface MismatchSink extends Consumer<Mismatch> {
+
+    /**
+     * Compare the actual object with the given matcher and pass all mismatches
+     * to this sink.
+     *
+     * @param matcher the matcher for the expected object
+     * @param actual  the actual object
+     * @return {@code true} if the actual object matches
+     */
+    default boolean compare(final Matcher<?> matcher, final Object actual) {
+        return Mismatch.collect(MismatchPath.root(), matcher, actual, this);
+    }
+
+    /**
+     * Called once for each compared collection, array and map, also if all of
+     * its elements match. The default implementation does nothing.
+     *
+     * @param path  path of the collection
+     * @param count number of compared elements, i.e. the size of the larger one
+     *              of the expected and the actual collection
+     */
+    default void elementsCompared(final MismatchPath path, final int count) {
+        // not needed by most sinks
+    }
+}
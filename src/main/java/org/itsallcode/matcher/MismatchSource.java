@@ -0,0 +1,24 @@
+package org.itsallcode.matcher;
+
+/**
+ * A matcher that reports the mismatches of the nested objects of an actual
+ * object as structured {@link Mismatch}es instead of a single text.
+ * <p>
+ * Implementations report each differing nested object by calling
+ * {@link Mismatch#collect(MismatchPath, org.hamcrest.Matcher, Object, MismatchSink)}
+ * with the path of the nested object, and each missing or unexpected element
+ * by passing a new {@link Mismatch} to the collector. Mismatches must not be
+ * rendered while collecting them.
+ */
+public interface MismatchSource {
+
+    /**
+     * Collect the mismatches between the expected object and the actual object.
+     *
+     * @param actual    the actual object
+     * @param path      path of the actual object
+     * @param collector receives the mismatches in the order they are found
+     * @return {@code true} if the actual object matches
+     */
+    boolean collectMismatches(Object actual, MismatchPath path, MismatchSink collector);
+}
@@ -0,0 +1,319 @@
+package org.itsallcode.matcher;
+
+import java.util.*;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.SelfDescribing;
+
+/**
+ * A {@link MismatchSink} that groups mismatches by their path pattern and
+ * {@link Mismatch.Kind} instead of keeping each of them.
+ * <p>
+ * The path pattern replaces all indices and map keys of a path with
+ * {@code [*]}, so the same property differing in many elements of a
+ * collection is described by a single line like
+ *
+ * <pre>
+ * children[*].currency differs in 50,000 of 50,000 elements, e.g. [0], [1], [2]
+ * </pre>
+ *
+ * Each group keeps its number of mismatches, the first mismatch and the
+ * indices or keys of a few sample mismatches, so memory use and rendering
+ * time depend on the number of distinct paths, not on the number of
+ * mismatches. Groups with a single mismatch are described like the
+ * {@link Mismatch} itself. Instances are not thread-safe.
+ */
+public final class MismatchSummary implements MismatchSink, SelfDescribing {
+    private static final int DEFAULT_MAX_SAMPLES = 3;
+    private static final String WILDCARD = "[*]";
+
+    private final int maxSamples;
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+    private final Map<String, Long> elementCounts = new HashMap<>();
+    private final StringBuilder patternBuilder = new StringBuilder();
+    private final StringBuilder sampleBuilder = new StringBuilder();
+    private long mismatchCount = 0;
+
+    /**
+     * Create a new summary keeping three samples per group.
+     */
+    public MismatchSummary() {
+        this(DEFAULT_MAX_SAMPLES);
+    }
+
+    /**
+     * Create a new summary.
+     *
+     * @param maxSamples maximum number of sample indices or keys kept per group
+     */
+    public MismatchSummary(final int maxSamples) {
+        if (maxSamples < 0) {
+            throw new IllegalArgumentException("Maximum number of samples must not be negative");
+        }
+        this.maxSamples = maxSamples;
+    }
+
+    /**
+     * Compare the actual object with the given matcher and summarize all
+     * mismatches.
+     *
+     * @param matcher the matcher for the expected object
+     * @param actual  the actual object
+     * @return the summary, empty if the actual object matches
+     */
+    public static MismatchSummary of(final Matcher<?> matcher, final Object actual) {
+        final MismatchSummary summary = new MismatchSummary();
+        summary.compare(matcher, actual);
+        return summary;
+    }
+
+    /**
+     * Wrap the given matcher so that its mismatch is described by a
+     * {@link MismatchSummary} instead of listing each mismatch. Matching and
+     * the description of the expected object are delegated unchanged.
+     *
+     * @param <T>     type of the matched objects
+     * @param matcher the matcher to wrap
+     * @return a matcher describing mismatches as summary
+     */
+    public static <T> Matcher<T> summarizing(final Matcher<T> matcher) {
+        return new SummarizingMatcher<>(matcher);
+    }
+
+    /**
+     * Add the mismatch to the group of its path pattern and kind.
+     */
+    @Override
+    public void accept(final Mismatch mismatch) {
+        appendPattern(mismatch.getPath());
+        final String pattern = patternBuilder.toString();
+        final Group group = groups.computeIfAbsent(mismatch.getKind().name() + ':' + pattern,
+                key -> new Group(pattern, mismatch));
+        group.count++;
+        if (group.samples.size() < maxSamples && sampleBuilder.length() > 0) {
+            group.samples.add(sampleBuilder.toString());
+        }
+        mismatchCount++;
+    }
+
+    /**
+     * Count the compared elements of all collections with the same path
+     * pattern.
+     */
+    @Override
+    public void elementsCompared(final MismatchPath path, final int count) {
+        appendPattern(path);
+        patternBuilder.append(WILDCARD);
+        elementCounts.merge(patternBuilder.toString(), (long) count, Long::sum);
+    }
+
+    /**
+     * Render the pattern of the given path to {@link #patternBuilder} and its
+     * indices and keys to {@link #sampleBuilder}.
+     */
+    private void appendPattern(final MismatchPath path) {
+        patternBuilder.setLength(0);
+        sampleBuilder.setLength(0);
+        appendSegments(path);
+    }
+
+    private void appendSegments(final MismatchPath path) {
+        if (path.isRoot()) {
+            return;
+        }
+        appendSegments(path.getParent());
+        switch (path.getType()) {
+        case PROPERTY:
+            if (!path.getParent().isRoot()) {
+                patternBuilder.append('.');
+            }
+            patternBuilder.append(path.getName());
+            break;
+        case INDEX:
+            patternBuilder.append(WILDCARD);
+            sampleBuilder.append('[').append(path.getIndex()).append(']');
+            break;
+        case KEY:
+            patternBuilder.append(WILDCARD);
+            sampleBuilder.append('[').append(path.getKey()).append(']');
+            break;
+        default:
+            throw new IllegalStateException("Unsupported segment type " + path.getType());
+        }
+    }
+
+    /**
+     * Check if the actual object matched.
+     *
+     * @return {@code true} if there are no mismatches
+     */
+    public boolean isEmpty() {
+        return groups.isEmpty();
+    }
+
+    /**
+     * Get the groups of mismatches.
+     *
+     * @return the groups in the order their first mismatch was found
+     */
+    public List<Group> getGroups() {
+        return List.copyOf(groups.values());
+    }
+
+    /**
+     * Get the number of summarized mismatches.
+     *
+     * @return the number of mismatches of all groups
+     */
+    public long getMismatchCount() {
+        return mismatchCount;
+    }
+
+    /**
+     * Describe the groups one per line. The number of described groups is
+     * limited by the maximum number of elements of the current
+     * {@link RenderingBudget}.
+     */
+    @Override
+    public void describeTo(final Description description) {
+        final int maxDescribed = RenderingBudget.current().getMaxElements();
+        int described = 0;
+        for (final Group group : groups.values()) {
+            if (described == maxDescribed) {
+                description.appendText("\n" + RenderingBudget.describeElided(groups.size() - described));
+                return;
+            }
+            if (described > 0) {
+                description.appendText("\n");
+            }
+            group.describeTo(description);
+            described++;
+        }
+    }
+
+    @Override
+    public String toString() {
+        final Description description = RenderingBudget.current().createDescription();
+        describeTo(description);
+        return description.toString();
+    }
+
+    /**
+     * Mismatches of the same kind whose paths differ only in indices and map
+     * keys.
+     */
+    public final class Group implements SelfDescribing {
+        private final String pattern;
+        private final Mismatch first;
+        private final List<String> samples = new ArrayList<>();
+        private long count = 0;
+
+        private Group(final String pattern, final Mismatch first) {
+            this.pattern = pattern;
+            this.first = first;
+        }
+
+        /**
+         * Get the path pattern of the mismatches.
+         *
+         * @return the path with all indices and keys replaced by {@code [*]},
+         *         e.g. {@code children[*].currency}
+         */
+        public String getPattern() {
+            return pattern;
+        }
+
+        /**
+         * Get the kind of the mismatches.
+         *
+         * @return the kind
+         */
+        public Mismatch.Kind getKind() {
+            return first.getKind();
+        }
+
+        /**
+         * Get the number of mismatches in this group.
+         *
+         * @return the number of mismatches
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Get the number of compared elements of the innermost collections
+         * containing the mismatches.
+         *
+         * @return the number of elements or an empty {@link Optional} if the
+         *         mismatches are not located in a collection, array or map
+         */
+        public OptionalLong getElementCount() {
+            final int end = pattern.lastIndexOf(WILDCARD);
+            if (end < 0) {
+                return OptionalLong.empty();
+            }
+            final Long elementCount = elementCounts.get(pattern.substring(0, end + WILDCARD.length()));
+            return elementCount == null ? OptionalLong.empty() : OptionalLong.of(elementCount);
+        }
+
+        /**
+         * Get the indices and keys of the first mismatches.
+         *
+         * @return the samples, e.g. {@code [0]} or {@code [2][key]} for nested
+         *         collections
+         */
+        public List<String> getSamples() {
+            return Collections.unmodifiableList(samples);
+        }
+
+        /**
+         * Get the first mismatch of this group.
+         *
+         * @return the first mismatch
+         */
+        public Mismatch getFirstMismatch() {
+            return first;
+        }
+
+        @Override
+        public void describeTo(final Description description) {
+            if (count == 1 || !pattern.contains(WILDCARD)) {
+                first.describeTo(description);
+                return;
+            }
+            description.appendText(pattern).appendText(describeKind()).appendText(formatCount(count));
+            final OptionalLong elementCount = getElementCount();
+            if (elementCount.isPresent()) {
+                description.appendText(" of ").appendText(formatCount(elementCount.getAsLong()));
+            }
+            description.appendText(" elements");
+            if (!samples.isEmpty()) {
+                description.appendText(", e.g. ").appendText(String.join(", ", samples));
+            }
+        }
+
+        private String describeKind() {
+            switch (getKind()) {
+            case MISSING:
+                return " is missing in ";
+            case UNEXPECTED:
+                return " is unexpected in ";
+            default:
+                return " differs in ";
+            }
+        }
+
+        private String formatCount(final long value) {
+            return String.format(Locale.ROOT, "%,d", value);
+        }
+
+        @Override
+        public String toString() {
+            final Description description = RenderingBudget.current().createDescription();
+            describeTo(description);
+            return description.toString();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package org.itsallcode.matcher;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.SelfDescribing;
+
+/**
+ * The structured result of comparing an actual object with a matcher: a tree
+ * following the {@link MismatchPath}s of all {@link Mismatch}es.
+ * <p>
+ * Use {@link #of(Matcher, Object)} to compare an object. Unlike
+ * {@link Matcher#describeMismatch(Object, Description)} this does not render
+ * any text while comparing. Mismatches can be counted and classified using
+ * {@link #getMismatches()}, text is rendered only by
+ * {@link #describeTo(Description)} and {@link #toString()}.
+ */
+public final class MismatchTree implements SelfDescribing {
+    private final MismatchPath path;
+    private final List<MismatchTree> children = new ArrayList<>();
+    private Mismatch mismatch;
+
+    private MismatchTree(final MismatchPath path) {
+        this.path = path;
+    }
+
+    /**
+     * Compare the actual object with the given matcher and collect all
+     * mismatches.
+     *
+     * @param matcher the matcher for the expected object
+     * @param actual  the actual object
+     * @return the mismatches, empty if the actual object matches
+     */
+    public static MismatchTree of(final Matcher<?> matcher, final Object actual) {
+        final MismatchTree root = new MismatchTree(MismatchPath.root());
+        Mismatch.collect(MismatchPath.root(), matcher, actual, root::add);
+        return root;
+    }
+
+    private void add(final Mismatch newMismatch) {
+        final Deque<MismatchPath> segments = new ArrayDeque<>();
+        for (MismatchPath segment = newMismatch.getPath(); !segment.isRoot(); segment = segment.getParent()) {
+            segments.push(segment);
+        }
+        if (segments.isEmpty()) {
+            this.mismatch = newMismatch;
+            return;
+        }
+        MismatchTree node = this;
+        while (segments.size() > 1) {
+            node = node.getOrAddChild(segments.pop());
+        }
+        final MismatchTree leaf = node.getOrAddChild(segments.pop());
+        if (leaf.mismatch == null && leaf.children.isEmpty()) {
+            leaf.mismatch = newMismatch;
+        } else {
+            node.addChild(newMismatch.getPath()).mismatch = newMismatch;
+        }
+    }
+
+    /**
+     * Mismatches are collected depth first, so a child with the given path
+     * can only be the last child. Unordered collections may report a missing
+     * and an unexpected element at the same index, these are added as
+     * separate children.
+     */
+    private MismatchTree getOrAddChild(final MismatchPath childPath) {
+        if (!children.isEmpty()) {
+            final MismatchTree last = children.get(children.size() - 1);
+            if (last.path.equals(childPath)) {
+                return last;
+            }
+        }
+        return addChild(childPath);
+    }
+
+    private MismatchTree addChild(final MismatchPath childPath) {
+        final MismatchTree child = new MismatchTree(childPath);
+        children.add(child);
+        return child;
+    }
+
+    /**
+     * Check if the actual object matched.
+     *
+     * @return {@code true} if there are no mismatches
+     */
+    public boolean isEmpty() {
+        return mismatch == null && children.isEmpty();
+    }
+
+    /**
+     * Get the path of this node.
+     *
+     * @return the path
+     */
+    public MismatchPath getPath() {
+        return path;
+    }
+
+    /**
+     * Get the nodes for the properties, elements and entries containing
+     * mismatches.
+     *
+     * @return the child nodes in the order they were compared
+     */
+    public List<MismatchTree> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Get the mismatch of the object at this path.
+     *
+     * @return the mismatch or an empty {@link Optional} if only nested objects
+     *         differ
+     */
+    public Optional<Mismatch> getMismatch() {
+        return Optional.ofNullable(mismatch);
+    }
+
+    /**
+     * Get all mismatches of this node and its descendants.
+     *
+     * @return the mismatches in the order they were found
+     */
+    public List<Mismatch> getMismatches() {
+        final List<Mismatch> mismatches = new ArrayList<>();
+        forEachMismatch(mismatches::add);
+        return mismatches;
+    }
+
+    /**
+     * Get the number of mismatches of this node and its descendants.
+     *
+     * @return the number of mismatches
+     */
+    public int getMismatchCount() {
+        int count = mismatch == null ? 0 : 1;
+        for (final MismatchTree child : children) {
+            count += child.getMismatchCount();
+        }
+        return count;
+    }
+
+    /**
+     * Pass all mismatches of this node and its descendants to the given
+     * consumer.
+     *
+     * @param consumer the consumer
+     */
+    public void forEachMismatch(final Consumer<? super Mismatch> consumer) {
+        if (mismatch != null) {
+            consumer.accept(mismatch);
+        }
+        for (final MismatchTree child : children) {
+            child.forEachMismatch(consumer);
+        }
+    }
+
+    /**
+     * Describe the mismatches one per line. The number of described mismatches
+     * is limited by the maximum number of elements of the current
+     * {@link RenderingBudget}.
+     */
+    @Override
+    public void describeTo(final Description description) {
+        final int maxDescribed = RenderingBudget.current().getMaxElements();
+        final int[] count = { 0 };
+        forEachMismatch(item -> {
+            if (count[0] < maxDescribed) {
+                if (count[0] > 0) {
+                    description.appendText("\n");
+                }
+                item.describeTo(description);
+            }
+            count[0]++;
+        });
+        if (count[0] > maxDescribed) {
+            description.appendText("\n" + RenderingBudget.describeElided(count[0] - maxDescribed));
+        }
+    }
+
+    @Override
+    public String toString() {
+        final Description description = RenderingBudget.current().createDescription();
+        describeTo(description);
+        return description.toString();
+    }
+}
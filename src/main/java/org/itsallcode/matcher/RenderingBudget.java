@@ -0,0 +1,205 @@
+package org.itsallcode.matcher;
+
+import java.util.Locale;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+/**
+ * Limits the size of the descriptions of expected objects and mismatches.
+ * <p>
+ * Use {@link #limit(Matcher)} to wrap a matcher. While the wrapped matcher
+ * describes the expected object or a mismatch,
+ * <ul>
+ * <li>the description is truncated after {@link #getMaxCharacters()}
+ * characters,</li>
+ * <li>collections, arrays and maps show at most {@link #getMaxElements()}
+ * elements followed by a marker like {@code ... 199,990 more} and</li>
+ * <li>objects nested deeper than {@link #getMaxDepth()} levels are described as
+ * <code>{...}</code>.</li>
+ * </ul>
+ * Matchers that are not wrapped are not limited.
+ */
+public final class RenderingBudget {
+    private static final int DEFAULT_MAX_CHARACTERS = 100_000;
+    private static final int DEFAULT_MAX_ELEMENTS = 100;
+    private static final int DEFAULT_MAX_DEPTH = 20;
+    private static final RenderingBudget UNLIMITED = new RenderingBudget(Integer.MAX_VALUE, Integer.MAX_VALUE,
+            Integer.MAX_VALUE);
+
+    private final int maxCharacters;
+    private final int maxElements;
+    private final int maxDepth;
+
+    private RenderingBudget(final int maxCharacters, final int maxElements, final int maxDepth) {
+        this.maxCharacters = maxCharacters;
+        this.maxElements = maxElements;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Get a budget that does not limit descriptions. This is used for matchers
+     * that are not wrapped with {@link #limit(Matcher)}.
+     *
+     * @return the unlimited budget
+     */
+    public static RenderingBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Create a new {@link Builder}.
+     *
+     * @return new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get the budget for the description that is currently created on this
+     * thread. Matchers use this for limiting the number of described elements.
+     *
+     * @return the current budget or {@link #unlimited()}
+     */
+    public static RenderingBudget current() {
+        return RenderingScope.currentBudget();
+    }
+
+    /**
+     * Describe elements that were left out of a description.
+     *
+     * @param count number of left out elements
+     * @return the marker, e.g. {@code ... 199,990 more}
+     */
+    public static String describeElided(final int count) {
+        return String.format(Locale.ROOT, "... %,d more", count);
+    }
+
+    /**
+     * Get the maximum number of characters of a description.
+     *
+     * @return maximum number of characters
+     */
+    public int getMaxCharacters() {
+        return maxCharacters;
+    }
+
+    /**
+     * Get the maximum number of described elements of a collection, array or
+     * map.
+     *
+     * @return maximum number of elements
+     */
+    public int getMaxElements() {
+        return maxElements;
+    }
+
+    /**
+     * Get the maximum number of nested objects described.
+     *
+     * @return maximum depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Create a matcher that delegates to the given matcher and limits its
+     * descriptions to this budget.
+     *
+     * @param <T>     type of the matched objects
+     * @param matcher the matcher to wrap
+     * @return a matcher with limited descriptions
+     */
+    public <T> Matcher<T> limit(final Matcher<T> matcher) {
+        return new LimitedMatcher<>(matcher, this);
+    }
+
+    /**
+     * Create an empty description that keeps at most
+     * {@link #getMaxCharacters()} characters. Use this for descriptions that
+     * are recorded and appended later.
+     *
+     * @return a new description
+     */
+    public Description createDescription() {
+        if (this == UNLIMITED) {
+            return new StringDescription();
+        }
+        return LimitedDescription.create(this);
+    }
+
+    @Override
+    public String toString() {
+        return "RenderingBudget [maxCharacters=" + maxCharacters + ", maxElements=" + maxElements + ", maxDepth="
+                + maxDepth + "]";
+    }
+
+    /**
+     * Builder for {@link RenderingBudget}. Limits that are not set default to
+     * {@value RenderingBudget#DEFAULT_MAX_CHARACTERS} characters,
+     * {@value RenderingBudget#DEFAULT_MAX_ELEMENTS} elements and a depth of
+     * {@value RenderingBudget#DEFAULT_MAX_DEPTH}.
+     */
+    public static final class Builder {
+        private int maxCharacters = DEFAULT_MAX_CHARACTERS;
+        private int maxElements = DEFAULT_MAX_ELEMENTS;
+        private int maxDepth = DEFAULT_MAX_DEPTH;
+
+        private Builder() {
+            // use RenderingBudget.builder()
+        }
+
+        /**
+         * Set the maximum number of characters of a description.
+         *
+         * @param maxCharacters maximum number of characters
+         * @return {@code this} for method chaining
+         */
+        public Builder maxCharacters(final int maxCharacters) {
+            this.maxCharacters = validateLimit(maxCharacters);
+            return this;
+        }
+
+        /**
+         * Set the maximum number of described elements of a collection, array
+         * or map.
+         *
+         * @param maxElements maximum number of elements
+         * @return {@code this} for method chaining
+         */
+        public Builder maxElements(final int maxElements) {
+            this.maxElements = validateLimit(maxElements);
+            return this;
+        }
+
+        /**
+         * Set the maximum number of nested objects described.
+         *
+         * @param maxDepth maximum depth
+         * @return {@code this} for method chaining
+         */
+        public Builder maxDepth(final int maxDepth) {
+            this.maxDepth = validateLimit(maxDepth);
+            return this;
+        }
+
+        private static int validateLimit(final int limit) {
+            if (limit < 1) {
+                throw new IllegalArgumentException("Limit must be positive but was " + limit);
+            }
+            return limit;
+        }
+
+        /**
+         * Build the budget.
+         *
+         * @return new budget
+         */
+        public RenderingBudget build() {
+            return new RenderingBudget(maxCharacters, maxElements, maxDepth);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.itsallcode.matcher;
+
+import java.util.function.Supplier;
+
+/**
+ * Tracks the {@link RenderingBudget} and the nesting depth of the description
+ * that is currently created on this thread. The depth is also tracked for
+ * descriptions created without a {@link RenderingBudget}, so that matchers can
+ * tell if they are described as part of another description.
+ */
+final class RenderingScope {
+    private static final ThreadLocal<RenderingScope> CURRENT = new ThreadLocal<>();
+
+    private final RenderingBudget budget;
+    private final boolean implicit;
+    private int depth = 0;
+
+    private RenderingScope(final RenderingBudget budget, final boolean implicit) {
+        this.budget = budget;
+        this.implicit = implicit;
+    }
+
+    static RenderingBudget currentBudget() {
+        final RenderingScope scope = CURRENT.get();
+        return scope == null ? RenderingBudget.unlimited() : scope.budget;
+    }
+
+    /**
+     * Get the number of nested objects that are currently described.
+     *
+     * @return the depth or {@code 0} if no description is currently created
+     */
+    static int currentDepth() {
+        final RenderingScope scope = CURRENT.get();
+        return scope == null ? 0 : scope.depth;
+    }
+
+    /**
+     * Call the given supplier while describing with the given budget.
+     */
+    static <R> R run(final RenderingBudget budget, final Supplier<R> supplier) {
+        final RenderingScope previousScope = CURRENT.get();
+        CURRENT.set(new RenderingScope(budget, false));
+        try {
+            return supplier.get();
+        } finally {
+            if (previousScope == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previousScope);
+            }
+        }
+    }
+
+    /**
+     * Start describing a nested object.
+     *
+     * @return {@code true} if the object may be described, {@code false} if the
+     *         maximum depth is reached. Only call {@link #exitLevel()} when this
+     *         returned {@code true}.
+     */
+    static boolean enterLevel() {
+        RenderingScope scope = CURRENT.get();
+        if (scope == null) {
+            scope = new RenderingScope(RenderingBudget.unlimited(), true);
+            CURRENT.set(scope);
+        }
+        if (scope.depth >= scope.budget.getMaxDepth()) {
+            return false;
+        }
+        scope.depth++;
+        return true;
+    }
+
+    static void exitLevel() {
+        final RenderingScope scope = CURRENT.get();
+        if (scope != null) {
+            scope.depth--;
+            if (scope.depth == 0 && scope.implicit) {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.itsallcode.matcher;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+
+/**
+ * Delegates to a matcher and describes its mismatches as
+ * {@link MismatchSummary}.
+ *
+ * @param <T> type of the matched objects
+ */
+final class SummarizingMatcher<T> extends BaseMatcher<T> implements MismatchSource {
+    private final Matcher<T> delegate;
+
+    SummarizingMatcher(final Matcher<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean matches(final Object actual) {
+        return delegate.matches(actual);
+    }
+
+    @Override
+    public boolean collectMismatches(final Object actual, final MismatchPath path,
+            final MismatchSink collector) {
+        return Mismatch.collect(path, delegate, actual, collector);
+    }
+
+    @Override
+    public void describeTo(final Description description) {
+        delegate.describeTo(description);
+    }
+
+    @Override
+    public void describeMismatch(final Object actual, final Description description) {
+        MismatchSummary.of(delegate, actual).describeTo(description);
+    }
+}
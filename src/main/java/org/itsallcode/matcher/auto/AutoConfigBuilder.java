@@ -4,27 +4,15 @@ import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toList;
 import static org.hamcrest.Matchers.emptyArray;
 
-import java.io.File;
-import java.lang.reflect.*;
-import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.net.URI;
-import java.net.URL;
-import java.nio.file.Path;
-import java.time.Instant;
-import java.time.LocalDate;
-import java.time.temporal.Temporal;
+import java.lang.reflect.Method;
 import java.util.*;
-import java.util.Map.Entry;
 import java.util.function.Function;
-import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import org.hamcrest.Matcher;
 import org.hamcrest.Matchers;
-import org.hamcrest.collection.IsArray;
-import org.hamcrest.collection.IsMapContaining;
 import org.itsallcode.matcher.config.ConfigurableMatcher;
 import org.itsallcode.matcher.config.MatcherConfig;
 import org.itsallcode.matcher.config.MatcherConfig.Builder;
@@ -33,142 +21,168 @@ class AutoConfigBuilder<T> {
 
     private static final Logger LOG = Logger.getLogger(AutoConfigBuilder.class.getName());
 
-    private static final Set<Class<?>> SIMPLE_TYPES = Collections.unmodifiableSet(new HashSet<>(asList(String.class,
-            Long.class, Integer.class, Byte.class, Boolean.class, Float.class, Double.class, Character.class,
-            Short.class, BigInteger.class, BigDecimal.class, Calendar.class, Date.class, java.sql.Date.class,
-            java.sql.Timestamp.class, Instant.class, LocalDate.class,
-            Temporal.class, Currency.class,
-            File.class, Path.class, UUID.class, Class.class, Package.class, Enum.class, URL.class, URI.class)));
-
     private static final Set<String> IGNORED_METHOD_NAMES = new HashSet<>(
             asList("getClass", "getProtectionDomain", "getClassLoader", "getURLs", "hashCode", "toString"));
 
+    /**
+     * Getters of each class in the order in which they are compared. Using a
+     * {@link ClassValue} ensures that introspection runs only once per class
+     * without preventing the class and its class loader from being unloaded.
+     */
+    private static final ClassValue<List<PropertyGetter>> GETTERS = new ClassValue<>() {
+        @Override
+        protected List<PropertyGetter> computeValue(final Class<?> type) {
+            return findGetters(type);
+        }
+    };
+
     private final T expected;
     private final Builder<T> configBuilder;
-    private final boolean isRecord;
 
-    AutoConfigBuilder(final T expected, final boolean isRecord) {
+    AutoConfigBuilder(final T expected) {
         this.expected = expected;
-        this.isRecord = isRecord;
         this.configBuilder = MatcherConfig.builder(expected);
     }
 
     MatcherConfig<T> build() {
-        Arrays.stream(expected.getClass().getMethods()) //
-                .filter(AutoConfigBuilder::isNotIgnored) //
-                .filter(this::isGetterMethodName) //
-                .filter(AutoConfigBuilder::isGetterMethodSignature) //
-                .sorted(Comparator.comparing(this::hasSimpleReturnType).reversed() //
+        return build(getGetters(expected.getClass()));
+    }
+
+    private MatcherConfig<T> build(final List<PropertyGetter> getters) {
+        for (final PropertyGetter getter : getters) {
+            addConfigForGetter(getter);
+        }
+        return configBuilder.build();
+    }
+
+    static List<PropertyGetter> getGetters(final Class<?> type) {
+        return GETTERS.get(type);
+    }
+
+    /**
+     * Find the getters of the given type. For records these are the accessors of
+     * the record components. Like the getters of other classes they are sorted
+     * with simple types first and then by name instead of keeping the declaration
+     * order of the components, so that descriptions of records are the same as in
+     * previous versions.
+     */
+    private static List<PropertyGetter> findGetters(final Class<?> type) {
+        final List<PropertyGetter> getters = findGetterMethods(type) //
+                .sorted(Comparator.<Method, Boolean>comparing(AutoConfigBuilder::hasSimpleReturnType).reversed() //
                         .thenComparing(AutoConfigBuilder::hasArrayReturnType) //
                         .thenComparing(Method::getName)) //
-                .forEach(this::addConfigForGetter);
-        return configBuilder.build();
+                .map(method -> PropertyGetter.create(getPropertyName(method.getName()), method)) //
+                .collect(toList());
+        return Collections.unmodifiableList(getters);
     }
 
-    @SuppressWarnings("unchecked")
+    private static Stream<Method> findGetterMethods(final Class<?> type) {
+        if (RecordSupport.isRecord(type)) {
+            return RecordSupport.getAccessors(type).stream();
+        }
+        return Arrays.stream(type.getMethods()) //
+                .filter(AutoConfigBuilder::isNotIgnored) //
+                .filter(AutoConfigBuilder::isGetterMethodName) //
+                .filter(AutoConfigBuilder::isGetterMethodSignature);
+    }
+
+    /**
+     * Create a matcher for the expected object that only compares the given
+     * properties. Its mismatch description is the same as the one of the
+     * matcher created by {@link #createEqualToMatcher(Object)} if only the
+     * given properties don't match, except that nested objects shared with the
+     * other properties are described in full instead of by reference.
+     */
+    static <T> Matcher<T> createPropertiesMatcher(final T expected, final List<PropertyGetter> getters) {
+        return ConstructionContext.createMatcher(expected,
+                object -> new ConfigurableMatcher<>(new AutoConfigBuilder<>(object).build(getters)));
+    }
+
+    /**
+     * Create the matcher for the expected object. Matchers for objects that are
+     * reached more than once in the object graph are only created once, see
+     * {@link ConstructionContext}.
+     */
     static <T> Matcher<T> createEqualToMatcher(final T expected) {
+        return ConstructionContext.createMatcher(expected, AutoConfigBuilder::createMatcher);
+    }
+
+    static <T> Matcher<T> createEqualToMatcher(final T expected, final Parallelism parallelism) {
+        return ConstructionContext.createMatcher(expected, AutoConfigBuilder::createMatcher, parallelism);
+    }
+
+    /**
+     * Create the matchers for the expected elements of a collection, see
+     * {@link ConstructionContext#createMatchers(Object[], Function)}.
+     */
+    static <T> List<Matcher<? super T>> createElementMatchers(final T[] expected) {
+        return ConstructionContext.createMatchers(expected, AutoConfigBuilder::createMatcher);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Matcher<T> createMatcher(final T expected) {
         if (expected == null) {
             return (Matcher<T>) Matchers.nullValue();
         }
-        final Class<? extends Object> type = expected.getClass();
-        if (type.isArray()) {
+        switch (MatchStrategy.of(expected.getClass())) {
+        case ARRAY:
             return createArrayMatcher(expected);
-        }
-        if (isSimpleType(type)) {
+        case SIMPLE:
             return Matchers.equalTo(expected);
-        }
-        if (Map.class.isAssignableFrom(type)) {
+        case MAP:
             return createMapContainsMatcher(expected);
-        }
-        if (Iterable.class.isAssignableFrom(type)) {
+        case SET:
+            return createSetContainsMatcher(expected);
+        case ITERABLE:
             return createIterableContainsMatcher(expected);
-        }
-        if (Optional.class.isAssignableFrom(type)) {
+        case STREAM:
+            return (Matcher<T>) StreamMatcher.forSingleUse(expected);
+        case OPTIONAL:
             return createOptionalMatcher(expected);
+        case BEAN:
+        default:
+            final MatcherConfig<T> config = AutoConfigBuilder.create(expected).build();
+            return new ConfigurableMatcher<>(config);
         }
-        final MatcherConfig<T> config = AutoConfigBuilder.create(expected).build();
-        return new ConfigurableMatcher<>(config);
     }
 
     static <T> AutoConfigBuilder<T> create(final T expected) {
-        return new AutoConfigBuilder<>(expected, isRecord(expected.getClass()));
-    }
-
-    private static boolean isRecord(final Class<?> type) {
-        final Method isRecord;
-        try {
-            isRecord = type.getClass().getMethod("isRecord");
-        } catch (NoSuchMethodException | SecurityException e) {
-            LOG.log(Level.FINEST, e,
-                    () -> "Method Class.isRecord() does not exist, " + type.getName() + " is probably not a record");
-            return false;
-        }
-        try {
-            return (boolean) isRecord.invoke(type);
-        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-            LOG.log(Level.WARNING, e, () -> "Invocation of " + isRecord + " failed for " + type);
-            return false;
-        }
+        return new AutoConfigBuilder<>(expected);
     }
 
     @SuppressWarnings("unchecked")
     private static <T> Matcher<T> createArrayMatcher(final Object expected) {
-        final Class<T> componentType = (Class<T>) expected.getClass().getComponentType();
-        if (componentType.isPrimitive()) {
-            return (Matcher<T>) Matchers.equalTo(expected);
+        if (PrimitiveArrayMatcher.isPrimitiveArray(expected.getClass())) {
+            return (Matcher<T>) PrimitiveArrayMatcher.create(expected);
         }
         final Object[] expectedArray = (Object[]) expected;
         if (expectedArray.length == 0) {
             return (Matcher<T>) emptyArray();
         }
-        if (isSimpleType(componentType)) {
-            final Matcher<Object[]> arrayContaining = Matchers.arrayContaining(expectedArray);
-            return (Matcher<T>) arrayContaining;
-        }
-        final List<Matcher<?>> matchers = Arrays.stream(expectedArray).map(AutoMatcher::equalTo).collect(toList());
-        @SuppressWarnings("rawtypes")
-        final Matcher<Object[]> arrayContaining = IsArray.array(matchers.toArray(new Matcher[0]));
-        return (Matcher<T>) arrayContaining;
+        return (Matcher<T>) ContainsInOrderMatcher.forArray(expectedArray);
     }
 
     @SuppressWarnings("unchecked")
     private static <T, K, V> Matcher<T> createMapContainsMatcher(final T expected) {
-        final Map<K, V> expectedMap = (Map<K, V>) expected;
-
-        final Collection<Matcher<? super T>> matchers = new ArrayList<>();
-
-        matchers.add(mapSizeMatcher(expectedMap));
-
-        for (final Entry<K, V> expectedEntry : expectedMap.entrySet()) {
-            matchers.add((Matcher<? super T>) IsMapContaining.hasEntry(createEqualToMatcher(expectedEntry.getKey()),
-                    createEqualToMatcher(expectedEntry.getValue())));
-        }
-        return Matchers.allOf(matchers);
+        return (Matcher<T>) MapContainsMatcher.create((Map<K, V>) expected);
     }
 
-    private static <T, K, V> ConfigurableMatcher<T> mapSizeMatcher(final Map<K, V> expectedMap) {
+    private static <T> Matcher<T> createSetContainsMatcher(final T expected) {
         @SuppressWarnings("unchecked")
-        final MatcherConfig<T> config = (MatcherConfig<T>) MatcherConfig.builder(expectedMap)
-                .addEqualsProperty("size", Map::size).build();
-        return new ConfigurableMatcher<>(config);
+        final Matcher<T> matcher = (Matcher<T>) AutoMatcher.containsInAnyOrder(toArray(expected));
+        return matcher;
     }
 
     private static <T> Matcher<T> createIterableContainsMatcher(final T expected) {
         @SuppressWarnings("unchecked")
-        final Iterable<T> expectedIterable = (Iterable<T>) expected;
-        final Object[] elements = StreamSupport.stream(expectedIterable //
-                .spliterator(), false) //
-                .toArray();
-        if (expected instanceof Set) {
-            @SuppressWarnings("unchecked")
-            final Matcher<T> matcher = (Matcher<T>) AutoMatcher.containsInAnyOrder(elements);
-            return matcher;
-        }
-        @SuppressWarnings("unchecked")
-        final Matcher<T> matcher = (Matcher<T>) AutoMatcher.contains(elements);
+        final Matcher<T> matcher = (Matcher<T>) AutoMatcher.contains(toArray(expected));
         return matcher;
     }
 
+    private static Object[] toArray(final Object iterable) {
+        return StreamSupport.stream(((Iterable<?>) iterable).spliterator(), false).toArray();
+    }
+
     @SuppressWarnings("unchecked")
     private static <T> Matcher<T> createOptionalMatcher(final T expected) {
         final Optional<T> expectedOptional = (Optional<T>) expected;
@@ -187,44 +201,33 @@ class AutoConfigBuilder<T> {
                 && !method.getReturnType().equals(Void.TYPE);
     }
 
-    private boolean isGetterMethodName(final Method method) {
-        if (isRecord) {
-            return true;
-        }
+    private static boolean isGetterMethodName(final Method method) {
         final String methodName = method.getName();
         return methodName.startsWith("get")
                 || methodName.startsWith("is");
     }
 
-    private void addConfigForGetter(final Method method) {
-        final String propertyName = getPropertyName(method.getName());
-        LOG.finest(() -> "Adding general property '" + propertyName + "' for getter " + method);
-        configBuilder.addProperty(propertyName, createGetter(method), AutoMatcher::equalTo);
+    private void addConfigForGetter(final PropertyGetter getter) {
+        final String propertyName = getter.getPropertyName();
+        LOG.finest(() -> "Adding general property '" + propertyName + "' for getter " + getter.getMethod());
+        configBuilder.addProperty(propertyName, createGetter(getter),
+                ConstructionContext.capture("." + propertyName, AutoMatcher::equalTo));
     }
 
     private static boolean hasArrayReturnType(final Method method) {
         return method.getReturnType().isArray();
     }
 
-    private <P> Function<T, P> createGetter(final Method method) {
-        return object -> getPropertyValue(method, object);
+    private <P> Function<T, P> createGetter(final PropertyGetter getter) {
+        return getter::getValue;
     }
 
-    private boolean hasSimpleReturnType(final Method method) {
+    static boolean hasSimpleReturnType(final Method method) {
         final Class<? extends Object> type = method.getReturnType();
         if (type.isPrimitive() || type.isEnum()) {
             return true;
         }
-        return isSimpleType(type);
-    }
-
-    private static boolean isSimpleType(final Class<? extends Object> type) {
-        for (final Class<?> simpleType : SIMPLE_TYPES) {
-            if (simpleType.isAssignableFrom(type)) {
-                return true;
-            }
-        }
-        return false;
+        return MatchStrategy.isSimpleType(type);
     }
 
     static String getPropertyName(final String methodName) {
@@ -246,22 +249,4 @@ class AutoConfigBuilder<T> {
     private static String decapitalize(final String string) {
         return Character.toLowerCase(string.charAt(0)) + string.substring(1);
     }
-
-    @SuppressWarnings({ "unchecked", "java:S3011" }) // Need to use reflection and setAccessible()
-    private static <T, P> P getPropertyValue(final Method method, final T object) {
-        final Class<?> declaringClass = method.getDeclaringClass();
-        if (!declaringClass.isInstance(object)) {
-            throw new AssertionError("Expected object of type " + declaringClass.getName() + " but got "
-                    + object.getClass().getName() + ": " + object.toString());
-        }
-        if (!Modifier.isPublic(declaringClass.getModifiers())) {
-            method.setAccessible(true);
-        }
-        try {
-            return (P) method.invoke(object);
-        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-            throw new IllegalStateException("Error invoking method " + method + " on object " + object + " of type "
-                    + object.getClass().getName(), e);
-        }
-    }
 }
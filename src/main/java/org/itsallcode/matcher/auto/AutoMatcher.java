@@ -1,10 +1,8 @@
 package org.itsallcode.matcher.auto;
 
-import static java.util.stream.Collectors.toList;
 import static org.hamcrest.Matchers.emptyIterable;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.Objects;
 
 import org.hamcrest.Matcher;
 import org.hamcrest.Matchers;
@@ -31,9 +29,58 @@ public final class AutoMatcher {
         return AutoConfigBuilder.createEqualToMatcher(expected);
     }
 
+    /**
+     * Creates a matcher that matches the expected object like
+     * {@link #equalTo(Object)}, but compares large Lists, arrays and Sets in
+     * the object graph in parallel using the given settings.
+     * 
+     * @param <T>         type of the expected object
+     * @param expected    expected object
+     * @param parallelism settings for parallel comparison
+     * @return a matcher that matches the expected object
+     */
+    public static <T> Matcher<T> equalTo(final T expected, final Parallelism parallelism) {
+        return AutoConfigBuilder.createEqualToMatcher(expected, Objects.requireNonNull(parallelism, "parallelism"));
+    }
+
+    /**
+     * Creates a matcher that matches the expected object like
+     * {@link #equalTo(Object)}, but compares objects using comparators that are
+     * generated once per class. The comparators invoke the getters directly,
+     * compare properties of primitive type without boxing and don't create any
+     * nested matchers. For classes that are not public they loop over one
+     * comparator per property instead. The matcher returned by
+     * {@link #equalTo(Object)} is only created when a description of the
+     * expected object or a mismatch is required, so descriptions are the same.
+     * <p>
+     * Use this for model types that are matched very often, e.g. in large
+     * collections.
+     * 
+     * @param <T>      type of the expected object
+     * @param expected expected object
+     * @return a matcher that matches the expected object
+     */
+    public static <T> Matcher<T> compiledEqualTo(final T expected) {
+        return new CompiledMatcher<>(expected);
+    }
+
+    /**
+     * Creates a {@link ComparisonPlan} for comparing many pairs of expected and
+     * actual objects of the given type without creating a matcher for each
+     * expected object. The plan is immutable and thread-safe.
+     * 
+     * @param <T>  compared type
+     * @param type compared type
+     * @return a plan for comparing objects of the given type
+     */
+    public static <T> ComparisonPlan<T> planFor(final Class<T> type) {
+        return ComparisonPlan.create(type);
+    }
+
     /**
      * Creates a matcher that matches an iterable containing the expected elements
-     * in the same order.
+     * in the same order. Matchers for the elements are only created when they are
+     * compared, and a mismatch reports up to ten differing elements.
      * 
      * @param <T>      type of the elements in the iterable
      * @param expected expected elements
@@ -46,12 +93,31 @@ public final class AutoMatcher {
         if (expected.length == 0) {
             return emptyIterable();
         }
-        return Matchers.contains(getMatchers(expected));
+        return ContainsInOrderMatcher.forIterable(expected);
+    }
+
+    /**
+     * Creates a matcher that matches a {@link java.util.stream.Stream}, an
+     * {@link java.util.Iterator} or an {@link Iterable} containing the expected
+     * elements in the same order. The actual sequence is traversed only once and
+     * its elements are not stored, so it may be a single-use sequence like a
+     * {@link java.nio.file.DirectoryStream}. The expected elements are traversed
+     * for each comparison without copying them, so the heap stays bounded even
+     * for very long sequences generated on the fly.
+     * 
+     * @param expected expected elements, can be traversed repeatedly
+     * @return a matcher that matches a sequence containing the expected elements
+     *         in the same order
+     */
+    public static Matcher<Object> containsSequence(final Iterable<?> expected) {
+        return StreamMatcher.forIterable(Objects.requireNonNull(expected, "expected"));
     }
 
     /**
      * Creates a matcher that matches an iterable containing the expected elements
-     * in any order.
+     * in any order. Unlike {@link Matchers#containsInAnyOrder(Object...)} this
+     * finds an optimal assignment of actual to expected elements, so a mismatch
+     * reports the smallest possible set of unmatched elements.
      * 
      * @param <T>      type of the elements in the iterable
      * @param expected expected elements
@@ -64,12 +130,6 @@ public final class AutoMatcher {
         if (expected.length == 0) {
             return emptyIterable();
         }
-        return Matchers.containsInAnyOrder(getMatchers(expected));
-    }
-
-    private static <T> List<Matcher<? super T>> getMatchers(final T[] expected) {
-        return Arrays.stream(expected) //
-                .map(AutoMatcher::equalTo) //
-                .collect(toList());
+        return ContainsInAnyOrderMatcher.create(expected, AutoConfigBuilder.createElementMatchers(expected));
     }
 }
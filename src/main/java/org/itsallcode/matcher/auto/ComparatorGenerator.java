@@ -0,0 +1,517 @@
+package org.itsallcode.matcher.auto;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generates a class per model class that compares all properties of two
+ * objects in straight-line code. Each getter is invoked directly, primitive
+ * values are compared without boxing and other values are compared by
+ * {@link TypeComparator}. This way the call sites of the getters are
+ * monomorphic and the JIT compiler can inline the comparison of an object.
+ * <p>
+ * The class file is written without a bytecode library. It uses class file
+ * version 49, which does not require stack map frames. On Java 15 and later the
+ * class is defined as hidden class, which can be unloaded together with the
+ * model class. On older versions it is defined with
+ * {@link MethodHandles.Lookup#defineClass(byte[])}. In both cases the class
+ * belongs to the package of this library, so a comparator is only generated if
+ * all classes declaring the getters are public, visible from the class loader
+ * of this library and exported to its module.
+ */
+final class ComparatorGenerator {
+    private static final Logger LOG = Logger.getLogger(ComparatorGenerator.class.getName());
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+
+    private static final int CLASS_FILE_VERSION = 49;
+    private static final int MAX_BRANCH_OFFSET = Short.MAX_VALUE;
+    private static final int MAX_CODE_LENGTH = 0xffff;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int ICONST_0 = 0x03;
+    private static final int ICONST_1 = 0x04;
+    private static final int SIPUSH = 0x11;
+    private static final int ALOAD = 0x19;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_3 = 0x2d;
+    private static final int AALOAD = 0x32;
+    private static final int ASTORE = 0x3a;
+    private static final int LCMP = 0x94;
+    private static final int IFEQ = 0x99;
+    private static final int IFNE = 0x9a;
+    private static final int IF_ICMPNE = 0xa0;
+    private static final int IRETURN = 0xac;
+    private static final int RETURN = 0xb1;
+    private static final int GETFIELD = 0xb4;
+    private static final int PUTFIELD = 0xb5;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int INVOKEINTERFACE = 0xb9;
+    private static final int ATHROW = 0xbf;
+    private static final int CHECKCAST = 0xc0;
+
+    private static final int EXPECTED_LOCAL = 1;
+    private static final int ACTUAL_LOCAL = 2;
+    private static final int EXCEPTION_LOCAL = 4;
+
+    private static final String OBJECT = "java/lang/Object";
+    private static final String GETTERS_FIELD = "getters";
+    private static final String GETTERS_DESCRIPTOR = "[" + descriptor(PropertyGetter.class);
+    private static final String MATCHES_DESCRIPTOR = "(L" + OBJECT + ";L" + OBJECT + ";"
+            + descriptor(TypeComparator.VisitedPairs.class) + ")Z";
+
+    private static final Method DEFINE_HIDDEN_CLASS;
+    private static final Object NO_CLASS_OPTIONS;
+
+    static {
+        Method defineHiddenClass = null;
+        Object noClassOptions = null;
+        try {
+            final Class<?> classOption = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            noClassOptions = Array.newInstance(classOption, 0);
+            defineHiddenClass = MethodHandles.Lookup.class.getMethod("defineHiddenClass", byte[].class,
+                    boolean.class, noClassOptions.getClass());
+        } catch (final ClassNotFoundException | NoSuchMethodException e) {
+            LOG.log(Level.FINEST, e, () -> "Hidden classes are not supported, using Lookup.defineClass()");
+        }
+        DEFINE_HIDDEN_CLASS = defineHiddenClass;
+        NO_CLASS_OPTIONS = noClassOptions;
+    }
+
+    private ComparatorGenerator() {
+        // not instantiable
+    }
+
+    /**
+     * Generate the comparison of the given properties of the given type.
+     *
+     * @param type    the compared type
+     * @param getters the getters of the compared properties
+     * @return the generated comparison or {@code null} if the getters can't be
+     *         invoked from a generated class
+     */
+    static TypeComparator.PropertiesComparison generate(final Class<?> type, final List<PropertyGetter> getters) {
+        return generate(type, getters, DEFINE_HIDDEN_CLASS != null);
+    }
+
+    /**
+     * Generate the comparison of the given properties of the given type.
+     *
+     * @param type        the compared type
+     * @param getters     the getters of the compared properties
+     * @param hiddenClass {@code true} to define a hidden class, {@code false} to
+     *                    use {@link MethodHandles.Lookup#defineClass(byte[])}
+     * @return the generated comparison or {@code null} if the getters can't be
+     *         invoked from a generated class
+     */
+    static TypeComparator.PropertiesComparison generate(final Class<?> type, final List<PropertyGetter> getters,
+            final boolean hiddenClass) {
+        for (final PropertyGetter getter : getters) {
+            if (!isAccessible(getter.getMethod().getDeclaringClass())) {
+                LOG.finest(() -> "Getter " + getter.getMethod() + " is not accessible, comparing properties in a loop");
+                return null;
+            }
+        }
+        final String className = ComparatorGenerator.class.getPackageName().replace('.', '/') + "/GeneratedComparator$"
+                + type.getName().replace('.', '_') + "$" + CLASS_COUNTER.incrementAndGet();
+        final byte[] classFile = new ClassFileWriter(className, getters).write();
+        if (classFile == null) {
+            LOG.finest(() -> "Comparison of " + type.getName() + " is too large, comparing properties in a loop");
+            return null;
+        }
+        try {
+            final Class<?> generatedClass = defineClass(classFile, hiddenClass);
+            return (TypeComparator.PropertiesComparison) generatedClass.getDeclaredConstructor(PropertyGetter[].class)
+                    .newInstance((Object) getters.toArray(new PropertyGetter[0]));
+        } catch (final ReflectiveOperationException | LinkageError e) {
+            LOG.log(Level.FINE, e, () -> "Failed to generate comparison for " + type.getName());
+            return null;
+        }
+    }
+
+    private static boolean isAccessible(final Class<?> type) {
+        if (!Modifier.isPublic(type.getModifiers()) || !PropertyGetter.isVisible(type)) {
+            return false;
+        }
+        final Module module = ComparatorGenerator.class.getModule();
+        if (!type.getModule().isExported(type.getPackageName(), module)) {
+            return false;
+        }
+        module.addReads(type.getModule());
+        return true;
+    }
+
+    private static Class<?> defineClass(final byte[] classFile, final boolean hiddenClass)
+            throws IllegalAccessException, InvocationTargetException {
+        if (!hiddenClass) {
+            return LOOKUP.defineClass(classFile);
+        }
+        final MethodHandles.Lookup lookup = (MethodHandles.Lookup) DEFINE_HIDDEN_CLASS.invoke(LOOKUP, classFile,
+                false, NO_CLASS_OPTIONS);
+        return lookup.lookupClass();
+    }
+
+    private static String internalName(final Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    private static String descriptor(final Class<?> type) {
+        if (type.isArray()) {
+            return internalName(type);
+        }
+        if (!type.isPrimitive()) {
+            return "L" + internalName(type) + ";";
+        }
+        if (type == Integer.TYPE) {
+            return "I";
+        } else if (type == Long.TYPE) {
+            return "J";
+        } else if (type == Double.TYPE) {
+            return "D";
+        } else if (type == Float.TYPE) {
+            return "F";
+        } else if (type == Boolean.TYPE) {
+            return "Z";
+        } else if (type == Short.TYPE) {
+            return "S";
+        } else if (type == Byte.TYPE) {
+            return "B";
+        } else if (type == Character.TYPE) {
+            return "C";
+        }
+        return "V";
+    }
+
+    /**
+     * Writes a class implementing {@link TypeComparator.PropertiesComparison}
+     * with a constructor taking the getters as array. The getters are used for
+     * creating the exception when invoking a getter fails, see
+     * {@link PropertyGetter#accessFailed(Object, Throwable)}.
+     */
+    private static final class ClassFileWriter {
+        private final String className;
+        private final List<PropertyGetter> getters;
+        private final ConstantPool pool = new ConstantPool();
+
+        private ClassFileWriter(final String className, final List<PropertyGetter> getters) {
+            this.className = className;
+            this.getters = getters;
+        }
+
+        /**
+         * Write the class file.
+         *
+         * @return the class file or {@code null} if the comparison exceeds the
+         *         maximum size of a method
+         */
+        private byte[] write() {
+            final ByteVector constructor = writeConstructor();
+            final ByteVector matches = writeMatches();
+            if (matches == null) {
+                return null;
+            }
+            final int thisClass = pool.classRef(className);
+            final int superClass = pool.classRef(OBJECT);
+            final int comparisonInterface = pool.classRef(internalName(TypeComparator.PropertiesComparison.class));
+            final int fieldName = pool.utf8(GETTERS_FIELD);
+            final int fieldDescriptor = pool.utf8(GETTERS_DESCRIPTOR);
+            final ByteVector classFile = new ByteVector();
+            classFile.u4(0xCAFEBABE).u2(0).u2(CLASS_FILE_VERSION);
+            classFile.u2(pool.count()).append(pool.entries);
+            classFile.u2(ACC_FINAL | ACC_SUPER).u2(thisClass).u2(superClass);
+            classFile.u2(1).u2(comparisonInterface);
+            classFile.u2(1).u2(ACC_PRIVATE | ACC_FINAL).u2(fieldName).u2(fieldDescriptor).u2(0);
+            classFile.u2(2).append(constructor).append(matches);
+            classFile.u2(0);
+            return classFile.toByteArray();
+        }
+
+        private ByteVector writeConstructor() {
+            final ByteVector code = new ByteVector();
+            code.u1(ALOAD_0).u1(INVOKESPECIAL).u2(pool.methodRef(OBJECT, "<init>", "()V"));
+            code.u1(ALOAD_0).u1(ALOAD_1).u1(PUTFIELD).u2(gettersField());
+            code.u1(RETURN);
+            return method(ACC_PUBLIC, "<init>", "(" + GETTERS_DESCRIPTOR + ")V", 2, 2, code,
+                    Collections.emptyList());
+        }
+
+        /**
+         * Write the method comparing the properties. For each property both
+         * values are read, compared and the method returns {@code false} if
+         * they don't match. Exceptions thrown by a getter are passed to
+         * {@link PropertyGetter#accessFailed(Object, Throwable)} in a handler per
+         * getter invocation.
+         */
+        private ByteVector writeMatches() {
+            final ByteVector code = new ByteVector();
+            final List<GetterInvocation> invocations = new ArrayList<>();
+            final List<Integer> mismatchBranches = new ArrayList<>();
+            for (int i = 0; i < getters.size(); i++) {
+                final Method method = getters.get(i).getMethod();
+                invocations.add(invokeGetter(code, i, method, EXPECTED_LOCAL));
+                invocations.add(invokeGetter(code, i, method, ACTUAL_LOCAL));
+                mismatchBranches.add(compare(code, method.getReturnType()));
+            }
+            code.u1(ICONST_1).u1(IRETURN);
+            final int mismatch = code.length();
+            code.u1(ICONST_0).u1(IRETURN);
+            if (mismatch > MAX_BRANCH_OFFSET) {
+                return null;
+            }
+            for (final int branch : mismatchBranches) {
+                code.putU2(branch + 1, mismatch - branch);
+            }
+            for (final GetterInvocation invocation : invocations) {
+                invocation.handler = code.length();
+                code.u1(ASTORE).u1(EXCEPTION_LOCAL);
+                code.u1(ALOAD_0).u1(GETFIELD).u2(gettersField()).u1(SIPUSH).u2(invocation.getterIndex).u1(AALOAD);
+                code.u1(ALOAD).u1(invocation.objectLocal).u1(ALOAD).u1(EXCEPTION_LOCAL);
+                code.u1(INVOKEVIRTUAL).u2(pool.methodRef(internalName(PropertyGetter.class), "accessFailed",
+                        "(L" + OBJECT + ";Ljava/lang/Throwable;)Ljava/lang/IllegalStateException;"));
+                code.u1(ATHROW);
+            }
+            if (code.length() > MAX_CODE_LENGTH) {
+                return null;
+            }
+            return method(ACC_PUBLIC, "matches", MATCHES_DESCRIPTOR, 4, EXCEPTION_LOCAL + 1, code, invocations);
+        }
+
+        private GetterInvocation invokeGetter(final ByteVector code, final int getterIndex, final Method method,
+                final int objectLocal) {
+            final Class<?> declaringClass = method.getDeclaringClass();
+            final String owner = internalName(declaringClass);
+            final String descriptor = "()" + descriptor(method.getReturnType());
+            final int start = code.length();
+            code.u1(ALOAD).u1(objectLocal).u1(CHECKCAST).u2(pool.classRef(owner));
+            if (declaringClass.isInterface()) {
+                code.u1(INVOKEINTERFACE).u2(pool.interfaceMethodRef(owner, method.getName(), descriptor)).u1(1).u1(0);
+            } else {
+                code.u1(INVOKEVIRTUAL).u2(pool.methodRef(owner, method.getName(), descriptor));
+            }
+            final GetterInvocation invocation = new GetterInvocation(getterIndex, objectLocal, start, code.length());
+            convert(code, method.getReturnType());
+            return invocation;
+        }
+
+        /**
+         * Convert floating point values to their bits, so that they are compared
+         * like {@link Float#equals(Object)} and {@link Double#equals(Object)}.
+         */
+        private void convert(final ByteVector code, final Class<?> type) {
+            if (type == Float.TYPE) {
+                code.u1(INVOKESTATIC).u2(pool.methodRef("java/lang/Float", "floatToIntBits", "(F)I"));
+            } else if (type == Double.TYPE) {
+                code.u1(INVOKESTATIC).u2(pool.methodRef("java/lang/Double", "doubleToLongBits", "(D)J"));
+            }
+        }
+
+        /**
+         * Compare the two values on the stack.
+         *
+         * @return the position of the branch taken if the values don't match
+         */
+        private int compare(final ByteVector code, final Class<?> type) {
+            if (type == Long.TYPE || type == Double.TYPE) {
+                code.u1(LCMP);
+                return branch(code, IFNE);
+            }
+            if (type.isPrimitive()) {
+                return branch(code, IF_ICMPNE);
+            }
+            code.u1(ALOAD_3).u1(INVOKESTATIC)
+                    .u2(pool.methodRef(internalName(TypeComparator.class), "valuesMatch", MATCHES_DESCRIPTOR));
+            return branch(code, IFEQ);
+        }
+
+        private static int branch(final ByteVector code, final int opcode) {
+            final int position = code.length();
+            code.u1(opcode).u2(0);
+            return position;
+        }
+
+        private int gettersField() {
+            return pool.fieldRef(className, GETTERS_FIELD, GETTERS_DESCRIPTOR);
+        }
+
+        private ByteVector method(final int access, final String name, final String descriptor, final int maxStack,
+                final int maxLocals, final ByteVector code, final List<GetterInvocation> invocations) {
+            final ByteVector method = new ByteVector();
+            method.u2(access).u2(pool.utf8(name)).u2(pool.utf8(descriptor));
+            method.u2(1).u2(pool.utf8("Code")).u4(12 + code.length() + 8 * invocations.size());
+            method.u2(maxStack).u2(maxLocals).u4(code.length()).append(code);
+            method.u2(invocations.size());
+            for (final GetterInvocation invocation : invocations) {
+                method.u2(invocation.start).u2(invocation.end).u2(invocation.handler).u2(0);
+            }
+            method.u2(0);
+            return method;
+        }
+    }
+
+    /**
+     * The invocation of a getter at a range of the code and its exception
+     * handler.
+     */
+    private static final class GetterInvocation {
+        private final int getterIndex;
+        private final int objectLocal;
+        private final int start;
+        private final int end;
+        private int handler;
+
+        private GetterInvocation(final int getterIndex, final int objectLocal, final int start, final int end) {
+            this.getterIndex = getterIndex;
+            this.objectLocal = objectLocal;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * The constant pool of a class file. Equal constants are only added once.
+     */
+    private static final class ConstantPool {
+        private static final int UTF8 = 1;
+        private static final int CLASS = 7;
+        private static final int FIELD_REF = 9;
+        private static final int METHOD_REF = 10;
+        private static final int INTERFACE_METHOD_REF = 11;
+        private static final int NAME_AND_TYPE = 12;
+
+        private final ByteVector entries = new ByteVector();
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        private int count() {
+            return indexes.size() + 1;
+        }
+
+        private int utf8(final String value) {
+            final Integer index = indexes.get(UTF8 + ":" + value);
+            if (index != null) {
+                return index;
+            }
+            entries.u1(UTF8).utf8(value);
+            return register(UTF8 + ":" + value);
+        }
+
+        private int classRef(final String internalName) {
+            return reference(CLASS, internalName, utf8(internalName), -1);
+        }
+
+        private int methodRef(final String owner, final String name, final String descriptor) {
+            return memberRef(METHOD_REF, owner, name, descriptor);
+        }
+
+        private int interfaceMethodRef(final String owner, final String name, final String descriptor) {
+            return memberRef(INTERFACE_METHOD_REF, owner, name, descriptor);
+        }
+
+        private int fieldRef(final String owner, final String name, final String descriptor) {
+            return memberRef(FIELD_REF, owner, name, descriptor);
+        }
+
+        private int memberRef(final int tag, final String owner, final String name, final String descriptor) {
+            final int nameAndType = reference(NAME_AND_TYPE, name + ":" + descriptor, utf8(name), utf8(descriptor));
+            return reference(tag, owner + "." + name + ":" + descriptor, classRef(owner), nameAndType);
+        }
+
+        /**
+         * Add an entry referring to one or two other entries.
+         *
+         * @param secondIndex the second index or {@code -1} if the entry only
+         *                    refers to one other entry
+         */
+        private int reference(final int tag, final String value, final int firstIndex, final int secondIndex) {
+            final String key = tag + ":" + value;
+            final Integer index = indexes.get(key);
+            if (index != null) {
+                return index;
+            }
+            entries.u1(tag).u2(firstIndex);
+            if (secondIndex >= 0) {
+                entries.u2(secondIndex);
+            }
+            return register(key);
+        }
+
+        private int register(final String key) {
+            final int index = count();
+            indexes.put(key, index);
+            return index;
+        }
+    }
+
+    /**
+     * A growable array of bytes written in big-endian order.
+     */
+    private static final class ByteVector {
+        private byte[] data = new byte[256];
+        private int length = 0;
+
+        private int length() {
+            return length;
+        }
+
+        private ByteVector u1(final int value) {
+            if (length == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[length++] = (byte) value;
+            return this;
+        }
+
+        private ByteVector u2(final int value) {
+            return u1(value >>> 8).u1(value);
+        }
+
+        private ByteVector u4(final int value) {
+            return u2(value >>> 16).u2(value);
+        }
+
+        private void putU2(final int position, final int value) {
+            data[position] = (byte) (value >>> 8);
+            data[position + 1] = (byte) value;
+        }
+
+        private ByteVector append(final ByteVector other) {
+            for (int i = 0; i < other.length; i++) {
+                u1(other.data[i]);
+            }
+            return this;
+        }
+
+        /**
+         * Append the string in the modified UTF-8 encoding of class files,
+         * preceded by its length.
+         */
+        private ByteVector utf8(final String value) {
+            final ByteVector encoded = new ByteVector();
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c != 0 && c < 0x80) {
+                    encoded.u1(c);
+                } else if (c < 0x800) {
+                    encoded.u1(0xc0 | c >> 6).u1(0x80 | c & 0x3f);
+                } else {
+                    encoded.u1(0xe0 | c >> 12).u1(0x80 | c >> 6 & 0x3f).u1(0x80 | c & 0x3f);
+                }
+            }
+            return u2(encoded.length).append(encoded);
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(data, length);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.itsallcode.matcher.auto;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+/**
+ * A plan for comparing objects of a given type that is derived from the type
+ * alone. Use this to compare many pairs of expected and actual objects without
+ * creating a matcher for each expected object.
+ * <p>
+ * Objects are compared using comparators that are compiled once per class, see
+ * {@link AutoMatcher#compiledEqualTo(Object)}. The result is the same as the
+ * result of {@link AutoMatcher#equalTo(Object)}. A description of the mismatch
+ * is only created for objects that don't match, and only matchers for the
+ * mismatching properties are created for it.
+ * <p>
+ * A plan is immutable and can be used by multiple threads concurrently.
+ *
+ * @param <T> compared type
+ */
+public final class ComparisonPlan<T> {
+    private final Class<T> type;
+    private final TypeComparator<T> comparator;
+
+    private ComparisonPlan(final Class<T> type, final TypeComparator<T> comparator) {
+        this.type = type;
+        this.comparator = comparator;
+    }
+
+    static <T> ComparisonPlan<T> create(final Class<T> type) {
+        Objects.requireNonNull(type, "type");
+        final TypeComparator<T> comparator = MatchStrategy.of(type) == MatchStrategy.BEAN ? TypeComparator.of(type)
+                : null;
+        return new ComparisonPlan<>(type, comparator);
+    }
+
+    /**
+     * Get the type compared by this plan.
+     *
+     * @return compared type
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Check if the actual object matches the expected object.
+     *
+     * @param expected the expected object
+     * @param actual   the actual object
+     * @return {@code true} if the objects match
+     */
+    public boolean matches(final T expected, final T actual) {
+        if (isComparedByProperties(expected, actual)) {
+            return comparator.matches(expected, actual);
+        }
+        return TypeComparator.valuesMatch(expected, actual);
+    }
+
+    private boolean isComparedByProperties(final T expected, final T actual) {
+        return comparator != null && expected != null && actual != null && expected.getClass() == type;
+    }
+
+    /**
+     * Describe the differences between the expected and the actual object in the
+     * same format as the mismatch description of the matcher returned by
+     * {@link AutoMatcher#equalTo(Object)}.
+     *
+     * @param expected the expected object
+     * @param actual   the actual object
+     * @return the description of the differences or an empty {@link Optional}
+     *         if the objects match
+     */
+    public Optional<String> diff(final T expected, final T actual) {
+        if (isComparedByProperties(expected, actual)) {
+            final List<PropertyGetter> mismatchingProperties = comparator.getMismatchingProperties(expected, actual);
+            if (mismatchingProperties.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(describeMismatch(
+                    AutoConfigBuilder.createPropertiesMatcher(expected, mismatchingProperties), actual));
+        }
+        if (TypeComparator.valuesMatch(expected, actual)) {
+            return Optional.empty();
+        }
+        return Optional.of(describeMismatch(AutoMatcher.equalTo(expected), actual));
+    }
+
+    private static <T> String describeMismatch(final Matcher<T> matcher, final T actual) {
+        final StringDescription description = new StringDescription();
+        matcher.describeMismatch(actual, description);
+        return description.toString();
+    }
+
+    /**
+     * Create a Hamcrest matcher for the expected object that compares objects
+     * using this plan.
+     *
+     * @param expected the expected object
+     * @return a matcher that matches the expected object
+     */
+    public Matcher<T> matcher(final T expected) {
+        return new CompiledMatcher<>(expected, this);
+    }
+
+    @Override
+    public String toString() {
+        return "ComparisonPlan [type=" + type.getName() + "]";
+    }
+}
@@ -0,0 +1,69 @@
+package org.itsallcode.matcher.auto;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.itsallcode.matcher.Mismatch;
+import org.itsallcode.matcher.MismatchPath;
+import org.itsallcode.matcher.MismatchSink;
+import org.itsallcode.matcher.MismatchSource;
+
+/**
+ * A matcher that checks for a match using a {@link TypeComparator} or the
+ * {@link ComparisonPlan} it was created by and only creates the matcher
+ * returned by {@link AutoMatcher#equalTo(Object)} when a description is
+ * required.
+ *
+ * @param <T> type of the expected object
+ */
+class CompiledMatcher<T> extends BaseMatcher<T> implements MismatchSource {
+    private final T expected;
+    private final ComparisonPlan<T> plan;
+    private volatile Matcher<T> describingMatcher;
+
+    CompiledMatcher(final T expected) {
+        this(expected, null);
+    }
+
+    CompiledMatcher(final T expected, final ComparisonPlan<T> plan) {
+        this.expected = expected;
+        this.plan = plan;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked") // the type of the actual object is checked when reading its properties
+    public boolean matches(final Object actual) {
+        if (plan != null) {
+            return plan.matches(expected, (T) actual);
+        }
+        return TypeComparator.valuesMatch(expected, actual);
+    }
+
+    @Override
+    public void describeTo(final Description description) {
+        getDescribingMatcher().describeTo(description);
+    }
+
+    @Override
+    public void describeMismatch(final Object actual, final Description description) {
+        getDescribingMatcher().describeMismatch(actual, description);
+    }
+
+    @Override
+    public boolean collectMismatches(final Object actual, final MismatchPath path,
+            final MismatchSink collector) {
+        if (matches(actual)) {
+            return true;
+        }
+        return Mismatch.collect(path, getDescribingMatcher(), expected, actual, collector);
+    }
+
+    private Matcher<T> getDescribingMatcher() {
+        Matcher<T> matcher = this.describingMatcher;
+        if (matcher == null) {
+            matcher = AutoConfigBuilder.createEqualToMatcher(expected);
+            this.describingMatcher = matcher;
+        }
+        return matcher;
+    }
+}
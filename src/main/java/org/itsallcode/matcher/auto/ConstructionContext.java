@@ -0,0 +1,365 @@
+package org.itsallcode.matcher.auto;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import org.hamcrest.Matcher;
+
+/**
+ * Tracks the expected objects for which matchers were created while creating
+ * the matcher for an object graph.
+ * <p>
+ * The matcher for each expected model object is wrapped in a
+ * {@link ReferenceMatcher}. When an expected object is reached a second time,
+ * either via a cycle like a bidirectional association or because it is shared
+ * by multiple objects, a {@link ReferenceMatcher} to the first matcher is
+ * created instead of creating the matcher again.
+ * <p>
+ * Matchers for nested properties are created lazily. Use
+ * {@link #capture(String, Function)} to create them in the context of the
+ * graph they belong to.
+ * <p>
+ * The path of the current object is tracked per thread, so that the matchers
+ * of model objects in large collections can be created in parallel, see
+ * {@link #createMatchers(Object[], Function)}.
+ * <p>
+ * Matchers are created without locking the context, so that threads comparing
+ * the elements of a large collection in parallel can create the matchers of
+ * nested properties concurrently. Expected objects are registered atomically
+ * in a concurrent map. Each {@link Node} creates its matcher at most once
+ * while holding its own lock, so threads reaching a node whose matcher is
+ * still being created by another thread wait for that node only.
+ * <p>
+ * Matchers that are only used temporarily, e.g. for describing a single
+ * element of a large collection, are created in a detached context, see
+ * {@link #captureDetached(String, Function)}. It refers to the objects
+ * registered in the context of the graph, but registers new objects only in
+ * its own context, so they are released together with the created matcher.
+ */
+final class ConstructionContext {
+    private static final ThreadLocal<ConstructionContext> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<String> CURRENT_PATH = new ThreadLocal<>();
+    private static final String ROOT_PATH = "$";
+
+    private final ConcurrentMap<Identity, Node> nodes = new ConcurrentHashMap<>();
+    private final ConstructionContext parent;
+    private final Parallelism parallelism;
+
+    private ConstructionContext(final ConstructionContext parent, final Parallelism parallelism) {
+        this.parent = parent;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Create a matcher for the expected object using the given factory.
+     *
+     * @param <T>      type of the expected object
+     * @param expected the expected object
+     * @param factory  creates the matcher for the expected object
+     * @return the new matcher or a {@link ReferenceMatcher} if a matcher for the
+     *         expected object was already created
+     */
+    static <T> Matcher<T> createMatcher(final T expected, final Function<T, Matcher<T>> factory) {
+        return createMatcher(expected, factory, Parallelism.disabled());
+    }
+
+    /**
+     * Create a matcher for the expected object using the given factory. If this
+     * starts a new object graph, the matchers of the graph use the given
+     * settings for parallel comparison.
+     *
+     * @param <T>         type of the expected object
+     * @param expected    the expected object
+     * @param factory     creates the matcher for the expected object
+     * @param parallelism settings for parallel comparison
+     * @return the new matcher or a {@link ReferenceMatcher} if a matcher for the
+     *         expected object was already created
+     */
+    static <T> Matcher<T> createMatcher(final T expected, final Function<T, Matcher<T>> factory,
+            final Parallelism parallelism) {
+        final ConstructionContext current = CURRENT.get();
+        if (current != null) {
+            return current.createNodeMatcher(expected, factory);
+        }
+        final ConstructionContext context = new ConstructionContext(null, parallelism);
+        return context.run(ROOT_PATH, () -> context.createNodeMatcher(expected, factory));
+    }
+
+    /**
+     * Create the matchers for the expected elements of a collection using the
+     * given factory, appending the index of each element to the path.
+     * <p>
+     * If the number of elements reaches the construction threshold of the
+     * {@link Parallelism} of the current object graph, the matchers for model
+     * objects reached for the first time are created in parallel. All other
+     * matchers, including {@link ReferenceMatcher}s, are created in element
+     * order, so the result is the same as when creating them sequentially.
+     *
+     * @param <T>      type of the elements
+     * @param expected the expected elements
+     * @param factory  creates the matcher for an expected element
+     * @return the matchers in the same order as the elements
+     */
+    static <T> List<Matcher<? super T>> createMatchers(final T[] expected, final Function<T, Matcher<T>> factory) {
+        final ConstructionContext current = CURRENT.get();
+        if (current == null || !current.parallelism.isParallelConstruction(expected.length)) {
+            final List<Matcher<? super T>> matchers = new ArrayList<>(expected.length);
+            for (int i = 0; i < expected.length; i++) {
+                final T element = expected[i];
+                matchers.add(inPath("[" + i + "]", () -> createMatcher(element, factory)));
+            }
+            return matchers;
+        }
+        return current.run(CURRENT_PATH.get(), () -> current.createMatchersInParallel(expected, factory));
+    }
+
+    /**
+     * Get the settings for parallel comparison of the object graph whose
+     * matcher is currently created.
+     *
+     * @return the settings
+     */
+    static Parallelism getParallelism() {
+        final ConstructionContext current = CURRENT.get();
+        return current == null ? Parallelism.disabled() : current.parallelism;
+    }
+
+    /**
+     * Call the given supplier with the given segment appended to the path of the
+     * current object. The path is used for describing references.
+     *
+     * @param <R>      result type
+     * @param segment  path segment, e.g. {@code .name} or {@code [0]}
+     * @param supplier the supplier
+     * @return the result of the supplier
+     */
+    static <R> R inPath(final String segment, final Supplier<R> supplier) {
+        final ConstructionContext current = CURRENT.get();
+        if (current == null) {
+            return supplier.get();
+        }
+        return current.run(CURRENT_PATH.get() + segment, supplier);
+    }
+
+    /**
+     * Capture the current context for creating the matcher of a nested property
+     * later.
+     *
+     * @param <A>     type of the factory argument, e.g. the property value
+     * @param <R>     type of the created matcher
+     * @param segment path segment of the property, e.g. {@code .name}
+     * @param factory creates the matcher for the property value
+     * @return a factory that creates the matcher in the captured context
+     */
+    static <A, R> Function<A, R> capture(final String segment, final Function<A, R> factory) {
+        final ConstructionContext current = CURRENT.get();
+        if (current == null) {
+            return factory;
+        }
+        final String capturedPath = CURRENT_PATH.get() + segment;
+        return value -> current.run(capturedPath, () -> factory.apply(value));
+    }
+
+    /**
+     * Capture the current context for creating matchers that are only used
+     * temporarily. Each call of the returned factory creates the matcher in a
+     * new context detached from the captured one: objects registered in the
+     * captured context are referenced as usual, but objects reached for the
+     * first time are only registered in the new context. This way the created
+     * matcher is not kept by the object graph and is described the same way
+     * each time it is created.
+     *
+     * @param <A>     type of the factory argument, e.g. the index of an element
+     * @param <R>     type of the created matcher
+     * @param segment path segment of the created matchers
+     * @param factory creates the matcher
+     * @return a factory that creates the matcher in a detached context
+     */
+    static <A, R> Function<A, R> captureDetached(final String segment, final Function<A, R> factory) {
+        final ConstructionContext current = CURRENT.get();
+        if (current == null) {
+            return factory;
+        }
+        final String capturedPath = CURRENT_PATH.get() + segment;
+        return value -> new ConstructionContext(current, current.parallelism).run(capturedPath,
+                () -> factory.apply(value));
+    }
+
+    /**
+     * Capture the current context for counting the expected objects registered
+     * in it.
+     *
+     * @return supplier of the number of registered objects
+     */
+    static IntSupplier captureRegisteredObjectCount() {
+        final ConstructionContext current = CURRENT.get();
+        if (current == null) {
+            return () -> 0;
+        }
+        return current.nodes::size;
+    }
+
+    /**
+     * Call the supplier with this context and the given path as current context
+     * of this thread.
+     */
+    private <R> R run(final String newPath, final Supplier<R> supplier) {
+        final ConstructionContext previousContext = CURRENT.get();
+        final String previousPath = CURRENT_PATH.get();
+        CURRENT.set(this);
+        CURRENT_PATH.set(newPath);
+        try {
+            return supplier.get();
+        } finally {
+            if (previousContext == null) {
+                CURRENT.remove();
+                CURRENT_PATH.remove();
+            } else {
+                CURRENT.set(previousContext);
+                CURRENT_PATH.set(previousPath);
+            }
+        }
+    }
+
+    private <T> Matcher<T> createNodeMatcher(final T expected, final Function<T, Matcher<T>> factory) {
+        if (!isModel(expected)) {
+            return factory.apply(expected);
+        }
+        final Node node = new Node(CURRENT_PATH.get(), () -> factory.apply(expected));
+        final Node existingNode = register(new Identity(expected), node);
+        if (existingNode != null) {
+            existingNode.referenced = true;
+            return ReferenceMatcher.byPath(existingNode);
+        }
+        node.getMatcher();
+        return ReferenceMatcher.target(node);
+    }
+
+    /**
+     * Register the node of an expected object unless the object is already
+     * registered in this context or the context it is detached from.
+     *
+     * @return the already registered node or {@code null} if the given node
+     *         was registered
+     */
+    private Node register(final Identity identity, final Node node) {
+        for (ConstructionContext context = parent; context != null; context = context.parent) {
+            final Node existingNode = context.nodes.get(identity);
+            if (existingNode != null) {
+                return existingNode;
+            }
+        }
+        return nodes.putIfAbsent(identity, node);
+    }
+
+    private static boolean isModel(final Object expected) {
+        return expected != null && MatchStrategy.of(expected.getClass()) == MatchStrategy.BEAN;
+    }
+
+    /**
+     * Register the nodes for the elements in element order and create the
+     * matchers of the new nodes in parallel, so the paths of the nodes are the
+     * same as when creating them sequentially.
+     */
+    private <T> List<Matcher<? super T>> createMatchersInParallel(final T[] expected,
+            final Function<T, Matcher<T>> factory) {
+        final String basePath = CURRENT_PATH.get();
+        final List<Matcher<? super T>> matchers = new ArrayList<>(expected.length);
+        final Node[] newNodes = new Node[expected.length];
+        for (int i = 0; i < expected.length; i++) {
+            final T element = expected[i];
+            final String elementPath = basePath + "[" + i + "]";
+            final Node node = isModel(element)
+                    ? new Node(elementPath, () -> run(elementPath, () -> factory.apply(element)))
+                    : null;
+            if (node != null && register(new Identity(element), node) == null) {
+                newNodes[i] = node;
+                matchers.add(ReferenceMatcher.target(node));
+            } else {
+                matchers.add(run(elementPath, () -> createNodeMatcher(element, factory)));
+            }
+        }
+        ParallelComparison.forEach(parallelism, expected.length, index -> {
+            final Node node = newNodes[index];
+            if (node != null) {
+                node.getMatcher();
+            }
+        });
+        return matchers;
+    }
+
+    /**
+     * Key of an expected object in the {@link #nodes}, comparing the object by
+     * identity.
+     */
+    private static final class Identity {
+        private final Object object;
+
+        private Identity(final Object object) {
+            this.object = object;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(object);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Identity && ((Identity) other).object == object;
+        }
+    }
+
+    /**
+     * An expected object in the graph together with its path and its matcher.
+     * The matcher is created when it is used for the first time.
+     */
+    static final class Node {
+        private final String path;
+        private Supplier<Matcher<?>> matcherFactory;
+        private volatile Matcher<?> matcher;
+        private volatile boolean referenced = false;
+
+        private Node(final String path, final Supplier<Matcher<?>> matcherFactory) {
+            this.path = path;
+            this.matcherFactory = matcherFactory;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        boolean isRoot() {
+            return ROOT_PATH.equals(path);
+        }
+
+        boolean isReferenced() {
+            return referenced;
+        }
+
+        Matcher<?> getMatcher() {
+            final Matcher<?> result = this.matcher;
+            if (result != null) {
+                return result;
+            }
+            return createMatcher();
+        }
+
+        private synchronized Matcher<?> createMatcher() {
+            if (this.matcher == null) {
+                this.matcher = this.matcherFactory.get();
+                this.matcherFactory = null;
+            }
+            return this.matcher;
+        }
+
+        @Override
+        public String toString() {
+            return "Node [path=" + path + "]";
+        }
+    }
+}
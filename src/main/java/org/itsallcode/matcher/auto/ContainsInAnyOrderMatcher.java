@@ -0,0 +1,535 @@
+package org.itsallcode.matcher.auto;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.*;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+import org.itsallcode.matcher.Mismatch;
+import org.itsallcode.matcher.MismatchPath;
+import org.itsallcode.matcher.MismatchSink;
+import org.itsallcode.matcher.MismatchSource;
+
+/**
+ * Matches an iterable containing the expected elements in any order.
+ * <p>
+ * Unlike {@link org.hamcrest.Matchers#containsInAnyOrder(java.util.Collection)}
+ * this does not assign each actual element to the first matching expected
+ * element. Instead it finds a maximum matching between expected and actual
+ * elements using the Hopcroft-Karp algorithm in {@code O(E * sqrt(V))}. This
+ * way the iterable also matches when an expected element matches several
+ * actual elements, and a mismatch reports the smallest possible set of
+ * unmatched expected and actual elements. The mismatch description uses the
+ * same text as hamcrest if only expected or only actual elements are
+ * unmatched. If both are unmatched, hamcrest only reports the first unmatched
+ * actual element while this matcher describes all of them as
+ * {@code not matched: ...; no item matches: ...}.
+ * <p>
+ * Candidates are pruned using a structural hash, see {@link ElementHasher}:
+ * an actual element is only compared with the expected elements with the same
+ * hash and with expected elements whose hash could not be computed. Actual
+ * elements whose hash can't be computed are compared with all expected
+ * elements. Before computing the maximum matching, each actual element is
+ * assigned to the first matching expected element. The complete matching is
+ * only computed when this does not match all elements. Large collections are
+ * compared and the expected elements are hashed in parallel if enabled by the
+ * {@link Parallelism} of the object graph.
+ * <p>
+ * Structured mismatches report each unmatched expected element as
+ * {@link Mismatch.Kind#MISSING} with its index in the expected elements and
+ * each unmatched actual element as {@link Mismatch.Kind#UNEXPECTED} with its
+ * index in the actual iterable.
+ *
+ * @param <T> type of the elements
+ */
+final class ContainsInAnyOrderMatcher<T> extends TypeSafeDiagnosingMatcher<Iterable<? extends T>>
+        implements MismatchSource {
+    private static final int NONE = -1;
+    private static final int[] NO_INDEXES = new int[0];
+
+    private final List<Matcher<? super T>> matchers;
+    private final ElementHasher hasher;
+    private final Map<Integer, int[]> buckets;
+    private final int[] unhashableIndexes;
+    private final int[] allIndexes;
+    private final Parallelism parallelism;
+
+    private ContainsInAnyOrderMatcher(final List<Matcher<? super T>> matchers, final ElementHasher hasher,
+            final Map<Integer, int[]> buckets, final int[] unhashableIndexes) {
+        this.parallelism = ConstructionContext.getParallelism();
+        this.matchers = matchers;
+        this.hasher = hasher;
+        this.buckets = buckets;
+        this.unhashableIndexes = unhashableIndexes;
+        this.allIndexes = new int[matchers.size()];
+        Arrays.setAll(allIndexes, index -> index);
+    }
+
+    /**
+     * Create a new matcher for the expected elements.
+     *
+     * @param <T>      type of the elements
+     * @param expected expected elements used for computing the structural hash
+     * @param matchers matchers for the expected elements in the same order
+     * @return the new matcher
+     */
+    static <T> Matcher<Iterable<? extends T>> create(final Object[] expected,
+            final List<Matcher<? super T>> matchers) {
+        final Optional<ElementHasher> hasher = ElementHasher.forElements(expected);
+        if (hasher.isEmpty()) {
+            return create(matchers);
+        }
+        final OptionalInt[] hashes = hashAll(hasher.get(), expected);
+        final Map<Integer, List<Integer>> indexesByHash = new HashMap<>();
+        final List<Integer> unhashable = new ArrayList<>();
+        for (int i = 0; i < expected.length; i++) {
+            final OptionalInt hash = hashes[i];
+            if (hash.isPresent()) {
+                indexesByHash.computeIfAbsent(hash.getAsInt(), key -> new ArrayList<>()).add(i);
+            } else {
+                unhashable.add(i);
+            }
+        }
+        final Map<Integer, int[]> buckets = new HashMap<>();
+        indexesByHash.forEach((hash, indexes) -> buckets.put(hash, toArray(indexes)));
+        return new ContainsInAnyOrderMatcher<>(matchers, hasher.get(), buckets, toArray(unhashable));
+    }
+
+    /**
+     * Compute the hashes of the expected elements, in parallel if the number of
+     * elements reaches the construction threshold of the current object graph.
+     */
+    private static OptionalInt[] hashAll(final ElementHasher hasher, final Object[] expected) {
+        final OptionalInt[] hashes = new OptionalInt[expected.length];
+        final Parallelism parallelism = ConstructionContext.getParallelism();
+        if (parallelism.isParallelConstruction(expected.length)) {
+            ParallelComparison.forEach(parallelism, expected.length,
+                    index -> hashes[index] = hasher.hash(expected[index]));
+        } else {
+            Arrays.setAll(hashes, index -> hasher.hash(expected[index]));
+        }
+        return hashes;
+    }
+
+    /**
+     * Create a new matcher that compares each actual element with all expected
+     * elements.
+     *
+     * @param <T>      type of the elements
+     * @param matchers matchers for the expected elements
+     * @return the new matcher
+     */
+    static <T> Matcher<Iterable<? extends T>> create(final List<Matcher<? super T>> matchers) {
+        return new ContainsInAnyOrderMatcher<>(matchers, null, Collections.emptyMap(), NO_INDEXES);
+    }
+
+    private static int[] toArray(final List<Integer> indexes) {
+        return indexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Override
+    protected boolean matchesSafely(final Iterable<? extends T> actual, final Description mismatchDescription) {
+        final List<T> items = new ArrayList<>();
+        actual.forEach(items::add);
+        final boolean describing = !(mismatchDescription instanceof Description.NullDescription);
+        if (!describing && items.size() != matchers.size()) {
+            return false;
+        }
+        final Assignment assignment = assign(items);
+        if (assignment.isComplete()) {
+            return true;
+        }
+        describeUnmatched(items, assignment, mismatchDescription);
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean collectMismatches(final Object actual, final MismatchPath path,
+            final MismatchSink collector) {
+        if (!(actual instanceof Iterable)) {
+            collector.accept(Mismatch.different(path, this, actual));
+            return false;
+        }
+        final List<T> items = new ArrayList<>();
+        ((Iterable<? extends T>) actual).forEach(items::add);
+        collector.elementsCompared(path, Math.max(items.size(), matchers.size()));
+        final Assignment assignment = assign(items);
+        if (assignment.isComplete()) {
+            return true;
+        }
+        for (int expected = 0; expected < matchers.size(); expected++) {
+            if (assignment.actualOfExpected[expected] == NONE) {
+                collector.accept(Mismatch.missing(path.index(expected), matchers.get(expected)));
+            }
+        }
+        for (int item = 0; item < items.size(); item++) {
+            if (assignment.expectedOfActual[item] == NONE) {
+                collector.accept(Mismatch.unexpected(path.index(item), items.get(item)));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Assign as many actual elements as possible to matching expected elements.
+     */
+    private Assignment assign(final List<T> items) {
+        final Assignment assignment = new Assignment(items.size(), matchers.size());
+        if (parallelism.isParallelComparison(Math.min(items.size(), matchers.size()))) {
+            assignMaximumMatchingInParallel(items, assignment);
+        } else if (!assignFirstMatches(items, assignment)) {
+            assignMaximumMatching(items, assignment);
+        }
+        return assignment;
+    }
+
+    /**
+     * Assign each actual element to the first unassigned expected element
+     * matching it. This finds a complete matching with few comparisons for
+     * elements that match only one expected element.
+     *
+     * @return {@code true} if all elements are assigned
+     */
+    private boolean assignFirstMatches(final List<T> items, final Assignment assignment) {
+        for (int item = 0; item < items.size(); item++) {
+            final T element = items.get(item);
+            final int[] candidates = getCandidates(element);
+            if (!assignFirstMatch(item, element, candidates, assignment) && candidates != allIndexes) {
+                assignFirstMatch(item, element, unhashableIndexes, assignment);
+            }
+        }
+        return assignment.isComplete();
+    }
+
+    private boolean assignFirstMatch(final int item, final T element, final int[] candidates,
+            final Assignment assignment) {
+        for (final int expected : candidates) {
+            if (assignment.actualOfExpected[expected] == NONE && matchers.get(expected).matches(element)) {
+                assignment.assign(item, expected);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Complete the assignment by computing a maximum matching between actual and
+     * expected elements.
+     *
+     * @return {@code true} if all elements are assigned
+     */
+    private boolean assignMaximumMatching(final List<T> items, final Assignment assignment) {
+        final int[][] edges = new int[items.size()][];
+        for (int item = 0; item < items.size(); item++) {
+            edges[item] = findMatchingExpected(items.get(item));
+        }
+        new HopcroftKarp(edges, assignment).run();
+        return assignment.isComplete();
+    }
+
+    /**
+     * Compare the actual elements with their candidates in parallel, then
+     * assign the first matching candidates and complete the assignment by
+     * computing a maximum matching.
+     *
+     * @return {@code true} if all elements are assigned
+     */
+    private boolean assignMaximumMatchingInParallel(final List<T> items, final Assignment assignment) {
+        final int[][] edges = ParallelComparison.computeAll(parallelism, items.size(),
+                item -> findMatchingExpected(items.get(item)));
+        for (int item = 0; item < edges.length; item++) {
+            for (final int expected : edges[item]) {
+                if (assignment.actualOfExpected[expected] == NONE) {
+                    assignment.assign(item, expected);
+                    break;
+                }
+            }
+        }
+        new HopcroftKarp(edges, assignment).run();
+        return assignment.isComplete();
+    }
+
+    private int[] findMatchingExpected(final T element) {
+        final int[] candidates = getCandidates(element);
+        final int[] extraCandidates = candidates == allIndexes ? NO_INDEXES : unhashableIndexes;
+        final int[] matching = new int[candidates.length + extraCandidates.length];
+        int count = 0;
+        for (final int expected : candidates) {
+            if (matchers.get(expected).matches(element)) {
+                matching[count++] = expected;
+            }
+        }
+        for (final int expected : extraCandidates) {
+            if (matchers.get(expected).matches(element)) {
+                matching[count++] = expected;
+            }
+        }
+        return Arrays.copyOf(matching, count);
+    }
+
+    /**
+     * Get the expected elements that may match the given element, excluding
+     * {@link #unhashableIndexes}. Returns {@link #allIndexes} if all expected
+     * elements may match.
+     */
+    private int[] getCandidates(final T element) {
+        if (hasher == null) {
+            return allIndexes;
+        }
+        final OptionalInt hash = hasher.hash(element);
+        if (hash.isEmpty()) {
+            return allIndexes;
+        }
+        return buckets.getOrDefault(hash.getAsInt(), NO_INDEXES);
+    }
+
+    private void describeUnmatched(final List<T> items, final Assignment assignment,
+            final Description mismatchDescription) {
+        final List<T> unmatchedItems = new ArrayList<>();
+        for (int item = 0; item < items.size(); item++) {
+            if (assignment.expectedOfActual[item] == NONE) {
+                unmatchedItems.add(items.get(item));
+            }
+        }
+        final List<Matcher<? super T>> unmatchedMatchers = new ArrayList<>();
+        for (int expected = 0; expected < matchers.size(); expected++) {
+            if (assignment.actualOfExpected[expected] == NONE) {
+                unmatchedMatchers.add(matchers.get(expected));
+            }
+        }
+        if (unmatchedMatchers.isEmpty()) {
+            mismatchDescription.appendText("no match for: ").appendValueList("", ", ", "", unmatchedItems);
+        } else if (unmatchedItems.isEmpty()) {
+            mismatchDescription.appendText("no item matches: ").appendList("", ", ", "", unmatchedMatchers)
+                    .appendText(" in ").appendValueList("[", ", ", "]", items);
+        } else {
+            mismatchDescription.appendText("not matched: ").appendValueList("", ", ", "", unmatchedItems)
+                    .appendText("; no item matches: ").appendList("", ", ", "", unmatchedMatchers);
+        }
+    }
+
+    @Override
+    public void describeTo(final Description description) {
+        description.appendText("iterable with items ").appendList("[", ", ", "]", matchers)
+                .appendText(" in any order");
+    }
+
+    /**
+     * Assignment of actual elements to expected elements.
+     */
+    private static final class Assignment {
+        private final int[] expectedOfActual;
+        private final int[] actualOfExpected;
+        private int size;
+
+        private Assignment(final int actualCount, final int expectedCount) {
+            this.expectedOfActual = new int[actualCount];
+            this.actualOfExpected = new int[expectedCount];
+            Arrays.fill(expectedOfActual, NONE);
+            Arrays.fill(actualOfExpected, NONE);
+        }
+
+        private void assign(final int actual, final int expected) {
+            if (expectedOfActual[actual] == NONE) {
+                size++;
+            }
+            expectedOfActual[actual] = expected;
+            actualOfExpected[expected] = actual;
+        }
+
+        private boolean isComplete() {
+            return size == expectedOfActual.length && size == actualOfExpected.length;
+        }
+    }
+
+    /**
+     * Hopcroft-Karp algorithm extending an {@link Assignment} to a maximum
+     * matching. Each phase finds the shortest augmenting paths using a breadth
+     * first search and then augments along vertex disjoint paths using a depth
+     * first search. The depth first search is iterative, so long paths don't
+     * overflow the stack.
+     */
+    private static final class HopcroftKarp {
+        private static final int INFINITE = Integer.MAX_VALUE;
+
+        /** Matching expected elements for each actual element. */
+        private final int[][] edges;
+        private final Assignment assignment;
+        private final int[] distance;
+        private final int[] nextEdge;
+        private final int[] path;
+
+        private HopcroftKarp(final int[][] edges, final Assignment assignment) {
+            this.edges = edges;
+            this.assignment = assignment;
+            this.distance = new int[edges.length];
+            this.nextEdge = new int[edges.length];
+            this.path = new int[edges.length];
+        }
+
+        private void run() {
+            while (findShortestPaths()) {
+                Arrays.fill(nextEdge, 0);
+                for (int actual = 0; actual < edges.length; actual++) {
+                    if (assignment.expectedOfActual[actual] == NONE) {
+                        augment(actual);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Compute the distance of each actual element from an unassigned actual
+         * element along alternating paths.
+         *
+         * @return {@code true} if there is an augmenting path
+         */
+        private boolean findShortestPaths() {
+            final int[] queue = new int[edges.length];
+            int head = 0;
+            int tail = 0;
+            for (int actual = 0; actual < edges.length; actual++) {
+                if (assignment.expectedOfActual[actual] == NONE) {
+                    distance[actual] = 0;
+                    queue[tail++] = actual;
+                } else {
+                    distance[actual] = INFINITE;
+                }
+            }
+            boolean found = false;
+            while (head < tail) {
+                final int actual = queue[head++];
+                for (final int expected : edges[actual]) {
+                    final int next = assignment.actualOfExpected[expected];
+                    if (next == NONE) {
+                        found = true;
+                    } else if (distance[next] == INFINITE) {
+                        distance[next] = distance[actual] + 1;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Search an augmenting path starting at the given unassigned actual
+         * element and assign the elements along the path.
+         */
+        private void augment(final int start) {
+            int depth = 0;
+            path[0] = start;
+            while (depth >= 0) {
+                final int actual = path[depth];
+                if (nextEdge[actual] == edges[actual].length) {
+                    distance[actual] = INFINITE;
+                    depth--;
+                    if (depth >= 0) {
+                        nextEdge[path[depth]]++;
+                    }
+                    continue;
+                }
+                final int next = assignment.actualOfExpected[edges[actual][nextEdge[actual]]];
+                if (next == NONE) {
+                    for (int i = depth; i >= 0; i--) {
+                        assignment.assign(path[i], edges[path[i]][nextEdge[path[i]]]);
+                    }
+                    return;
+                }
+                if (distance[next] != INFINITE && distance[next] == distance[actual] + 1) {
+                    path[++depth] = next;
+                } else {
+                    nextEdge[actual]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes a structural hash of elements that is equal for all elements
+     * matched by the same {@link AutoMatcher#equalTo(Object)} matcher.
+     * <p>
+     * Simple types are compared with {@link Object#equals(Object)}, so their hash
+     * is their {@link Object#hashCode()}. The hash of a model object is computed
+     * from the values of its properties with simple type. This is only possible
+     * for objects of the same class as the expected elements, because the
+     * matcher reads the properties of the expected class. Elements of other
+     * classes and elements with a property that can't be read have no hash.
+     */
+    static final class ElementHasher {
+        private final Class<?> beanType;
+        private final List<PropertyGetter> getters;
+
+        private ElementHasher(final Class<?> beanType, final List<PropertyGetter> getters) {
+            this.beanType = beanType;
+            this.getters = getters;
+        }
+
+        /**
+         * Create a hasher for the given expected elements.
+         *
+         * @param elements expected elements
+         * @return the hasher or an empty {@link Optional} if the elements are not
+         *         all of simple type or all of the same model class
+         */
+        static Optional<ElementHasher> forElements(final Object[] elements) {
+            Class<?> beanType = null;
+            boolean simpleElements = false;
+            for (final Object element : elements) {
+                if (element == null) {
+                    continue;
+                }
+                final MatchStrategy strategy = MatchStrategy.of(element.getClass());
+                if (strategy == MatchStrategy.SIMPLE && beanType == null) {
+                    simpleElements = true;
+                } else if (strategy == MatchStrategy.BEAN && !simpleElements
+                        && (beanType == null || beanType == element.getClass())) {
+                    beanType = element.getClass();
+                } else {
+                    return Optional.empty();
+                }
+            }
+            if (beanType == null) {
+                return Optional.of(new ElementHasher(null, Collections.emptyList()));
+            }
+            final List<PropertyGetter> simpleGetters = AutoConfigBuilder.getGetters(beanType).stream() //
+                    .filter(getter -> AutoConfigBuilder.hasSimpleReturnType(getter.getMethod())) //
+                    .collect(toList());
+            if (simpleGetters.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(new ElementHasher(beanType, simpleGetters));
+        }
+
+        /**
+         * Compute the hash of the given element.
+         *
+         * @param element the element
+         * @return the hash or an empty {@link OptionalInt} if it can't be computed
+         */
+        OptionalInt hash(final Object element) {
+            if (element == null) {
+                return OptionalInt.of(0);
+            }
+            if (beanType == null) {
+                return MatchStrategy.isSimpleType(element.getClass()) ? OptionalInt.of(element.hashCode())
+                        : OptionalInt.empty();
+            }
+            if (element.getClass() != beanType) {
+                return OptionalInt.empty();
+            }
+            int hash = 1;
+            try {
+                for (final PropertyGetter getter : getters) {
+                    hash = 31 * hash + Objects.hashCode(getter.getValue(element));
+                }
+            } catch (final RuntimeException e) {
+                return OptionalInt.empty();
+            }
+            return OptionalInt.of(hash);
+        }
+    }
+}
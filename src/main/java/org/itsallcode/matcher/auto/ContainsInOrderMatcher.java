@@ -0,0 +1,488 @@
+package org.itsallcode.matcher.auto;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.itsallcode.matcher.*;
+
+/**
+ * Matches an iterable or an array containing the expected elements in the same
+ * order.
+ * <p>
+ * Expected and actual elements are compared in lockstep. Collections and
+ * arrays of different size are rejected before comparing any element.
+ * Elements of simple type are compared using {@link Object#equals(Object)}.
+ * Other elements are compared by the {@link TypeComparator} of their class, so
+ * matching does not create or keep any matchers for the elements. The
+ * matchers created by {@link AutoMatcher#equalTo(Object)} are only created
+ * temporarily for the elements that are described. They are not kept, so
+ * describing a large collection needs memory for a single element only. A
+ * mismatch reports up to {@value #MAX_REPORTED_MISMATCHES} differing
+ * elements. Large collections are compared in parallel if enabled by the
+ * {@link Parallelism} of the object graph.
+ * <p>
+ * Descriptions are the same as the ones of
+ * {@link org.hamcrest.Matchers#contains(java.util.List)} for iterables,
+ * {@link org.hamcrest.Matchers#arrayContaining(Object...)} for arrays of
+ * simple types and {@link org.hamcrest.collection.IsArray} for other arrays.
+ * The number of described elements is limited by the current
+ * {@link RenderingBudget}.
+ * <p>
+ * Structured mismatches report all differing elements by index. Elements
+ * missing at the end of a shorter actual collection are reported as
+ * {@link Mismatch.Kind#MISSING}, additional elements as
+ * {@link Mismatch.Kind#UNEXPECTED}.
+ *
+ * @param <T> type of the iterable or array
+ */
+final class ContainsInOrderMatcher<T> extends BaseMatcher<T> implements MismatchSource {
+    private static final int MAX_REPORTED_MISMATCHES = 10;
+
+    private final Object[] expected;
+    private final Style style;
+    private final boolean simpleElements;
+    private final Function<Integer, Matcher<Object>> matcherFactory;
+    private final IntSupplier registeredObjectCount;
+    private final Parallelism parallelism;
+    private final AtomicReference<DescribedElement> mismatchingElement = new AtomicReference<>();
+
+    private ContainsInOrderMatcher(final Object[] expected, final Style style) {
+        this.expected = expected;
+        this.style = style;
+        this.simpleElements = hasOnlySimpleElements(expected);
+        this.parallelism = ConstructionContext.getParallelism();
+        this.matcherFactory = ConstructionContext.captureDetached("", (final Integer index) -> ConstructionContext
+                .inPath("[" + index + "]", () -> AutoMatcher.equalTo(expected[index])));
+        this.registeredObjectCount = ConstructionContext.captureRegisteredObjectCount();
+    }
+
+    /**
+     * Create a new matcher for an iterable containing the expected elements.
+     *
+     * @param <T>      type of the elements
+     * @param expected expected elements
+     * @return the new matcher
+     */
+    static <T> Matcher<Iterable<? extends T>> forIterable(final Object[] expected) {
+        return new ContainsInOrderMatcher<>(expected, Style.ITERABLE);
+    }
+
+    /**
+     * Create a new matcher for an array containing the expected elements.
+     *
+     * @param expected expected elements
+     * @return the new matcher
+     */
+    static Matcher<Object[]> forArray(final Object[] expected) {
+        return new ContainsInOrderMatcher<>(expected,
+                hasOnlySimpleElements(expected) ? Style.SIMPLE_ARRAY : Style.ARRAY);
+    }
+
+    private static boolean hasOnlySimpleElements(final Object[] elements) {
+        for (final Object element : elements) {
+            if (!isSimple(element)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSimple(final Object element) {
+        return element == null || MatchStrategy.isSimpleType(element.getClass());
+    }
+
+    @Override
+    public boolean matches(final Object actual) {
+        if (!style.isSupported(actual)) {
+            return false;
+        }
+        final int size = getSize(actual);
+        if (size >= 0 && size != expected.length) {
+            return false;
+        }
+        if (!simpleElements && GraphScope.isDescribing()) {
+            return describedElementsMatch(actual);
+        }
+        if (size >= 0 && parallelism.isParallelComparison(size)) {
+            final Object[] actualElements = toArray(actual);
+            return ParallelComparison.allMatch(parallelism, size,
+                    index -> elementMatches(index, actualElements[index], null));
+        }
+        final TypeComparator.Comparison comparison = simpleElements ? null : new TypeComparator.Comparison();
+        final Iterator<?> actualIterator = iterator(actual);
+        for (int i = 0; i < expected.length; i++) {
+            if (!actualIterator.hasNext() || !elementMatches(i, actualIterator.next(), comparison)) {
+                return false;
+            }
+        }
+        return !actualIterator.hasNext();
+    }
+
+    /**
+     * Check if all elements match while a mismatch of the object graph is
+     * described, see {@link GraphScope#isDescribing()}. Unlike the
+     * {@link TypeComparator} the matchers of the elements treat objects of the
+     * graph whose mismatch is currently described as matching, and they record
+     * their mismatch. So each element is compared by a temporary matcher. Only
+     * the matcher of the first mismatching element is kept until the mismatch
+     * is described, so that its recorded mismatch is reused.
+     */
+    private boolean describedElementsMatch(final Object actual) {
+        mismatchingElement.set(null);
+        final Iterator<?> actualIterator = iterator(actual);
+        for (int i = 0; i < expected.length; i++) {
+            if (!actualIterator.hasNext()) {
+                return false;
+            }
+            final Object actualElement = actualIterator.next();
+            final Object expectedElement = expected[i];
+            if (isSimple(expectedElement)) {
+                if (!simpleElementMatches(expectedElement, actualElement)) {
+                    return false;
+                }
+            } else {
+                final Matcher<Object> matcher = createMatcher(i);
+                if (!matcher.matches(actualElement)) {
+                    mismatchingElement.set(new DescribedElement(i, actualElement, matcher));
+                    return false;
+                }
+            }
+        }
+        return !actualIterator.hasNext();
+    }
+
+    /**
+     * Get the size of the actual collection or array.
+     *
+     * @return the size or {@code -1} if it is unknown
+     */
+    private static int getSize(final Object actual) {
+        if (actual instanceof Object[]) {
+            return ((Object[]) actual).length;
+        }
+        if (actual instanceof Collection) {
+            return ((Collection<?>) actual).size();
+        }
+        return -1;
+    }
+
+    private static Object[] toArray(final Object actual) {
+        if (actual instanceof Object[]) {
+            return (Object[]) actual;
+        }
+        return ((Collection<?>) actual).toArray();
+    }
+
+    private static Iterator<?> iterator(final Object actual) {
+        if (actual instanceof Object[]) {
+            return Arrays.asList((Object[]) actual).iterator();
+        }
+        return ((Iterable<?>) actual).iterator();
+    }
+
+    /**
+     * Check if the actual element matches the expected element.
+     *
+     * @param comparison records the compared nested objects across elements or
+     *                   {@code null} for comparing the element on its own
+     */
+    private boolean elementMatches(final int index, final Object actual, final TypeComparator.Comparison comparison) {
+        final Object expectedElement = expected[index];
+        if (isSimple(expectedElement)) {
+            return simpleElementMatches(expectedElement, actual);
+        }
+        if (comparison != null) {
+            return comparison.valuesMatch(expectedElement, actual);
+        }
+        return TypeComparator.valuesMatch(expectedElement, actual);
+    }
+
+    private static boolean simpleElementMatches(final Object expectedElement, final Object actual) {
+        return actual == null ? expectedElement == null : actual.equals(expectedElement);
+    }
+
+    /**
+     * Create a matcher for describing the element at the given index. The
+     * matcher is created in a detached context and not kept, because matchers
+     * of model objects registered in the object graph are described by
+     * reference when they are created again.
+     */
+    private Matcher<Object> createMatcher(final int index) {
+        return matcherFactory.apply(index);
+    }
+
+    /**
+     * Get the matcher for describing the mismatch of the element at the given
+     * index. This is the matcher of the first mismatching element found by
+     * {@link #describedElementsMatch(Object)} if it was compared with the same
+     * actual element, so that its recorded mismatch is reused. The matcher is
+     * only used once and then released.
+     */
+    private Matcher<Object> getMismatchMatcher(final int index, final Object actual) {
+        final DescribedElement element = mismatchingElement.get();
+        if (element != null && element.index == index && element.actual == actual
+                && mismatchingElement.compareAndSet(element, null)) {
+            return element.matcher;
+        }
+        return createMatcher(index);
+    }
+
+    /**
+     * Get the number of expected objects registered in the object graph of
+     * this matcher. Elements are only described by temporary matchers, so
+     * describing them does not register the elements.
+     *
+     * @return the number of registered objects
+     */
+    int getRegisteredObjectCount() {
+        return registeredObjectCount.getAsInt();
+    }
+
+    @Override
+    public void describeTo(final Description description) {
+        final int describedLength = Math.min(expected.length, RenderingBudget.current().getMaxElements());
+        description.appendText(style.descriptionStart);
+        for (int i = 0; i < describedLength; i++) {
+            if (i > 0) {
+                description.appendText(", ");
+            }
+            describeElement(i, description);
+        }
+        if (describedLength < expected.length) {
+            description.appendText(", " + RenderingBudget.describeElided(expected.length - describedLength));
+        }
+        description.appendText(style.descriptionEnd);
+    }
+
+    private void describeElement(final int index, final Description description) {
+        final Object expectedElement = expected[index];
+        if (expectedElement == null) {
+            description.appendText("null");
+        } else if (isSimple(expectedElement)) {
+            description.appendValue(expectedElement);
+        } else {
+            description.appendDescriptionOf(createMatcher(index));
+        }
+    }
+
+    @Override
+    public void describeMismatch(final Object actual, final Description description) {
+        if (!style.isSupported(actual)) {
+            style.describeUnsupported(actual, description);
+            return;
+        }
+        final int size = getSize(actual);
+        final MismatchList mismatches = new MismatchList(description);
+        if (size == expected.length && parallelism.isParallelComparison(size) && !GraphScope.isDescribing()) {
+            describeMismatchesInParallel(toArray(actual), mismatches);
+            return;
+        }
+        if (style == Style.ARRAY && size != expected.length) {
+            mismatches.next().appendText("array length was ").appendValue(size);
+        }
+        final Iterator<?> actualIterator = iterator(actual);
+        int index = 0;
+        while (index < expected.length && actualIterator.hasNext() && !mismatches.isFull()) {
+            describeElementMismatch(index, actualIterator.next(), mismatches);
+            index++;
+        }
+        if (mismatches.isFull()) {
+            if (index < expected.length || actualIterator.hasNext()) {
+                description.appendText(", ...");
+            }
+            return;
+        }
+        if (style == Style.ARRAY) {
+            return;
+        }
+        if (index < expected.length) {
+            mismatches.next().appendText("no item was ");
+            describeElement(index, description);
+        } else if (actualIterator.hasNext()) {
+            mismatches.next().appendText("not matched: ").appendValue(actualIterator.next());
+        }
+    }
+
+    /**
+     * Describe the first mismatching elements of an actual collection of the
+     * expected size. The result is the same as when comparing sequentially.
+     * This is only used while no mismatch of the object graph is described,
+     * because other threads do not know the objects that count as matching.
+     */
+    private void describeMismatchesInParallel(final Object[] actualElements, final MismatchList mismatches) {
+        final int[] mismatchIndexes = ParallelComparison.findMismatches(parallelism, actualElements.length,
+                index -> elementMatches(index, actualElements[index], null), MAX_REPORTED_MISMATCHES);
+        for (final int index : mismatchIndexes) {
+            describeElementMismatch(index, actualElements[index], mismatches);
+        }
+        if (mismatches.isFull() && mismatchIndexes[mismatchIndexes.length - 1] < actualElements.length - 1) {
+            mismatches.next().appendText("...");
+        }
+    }
+
+    /**
+     * Describe the mismatch of the element at the given index if it does not
+     * match. Unless a mismatch of the object graph is already described, a
+     * matcher is only created for an element that differs according to the
+     * {@link TypeComparator}. The matcher is used both for checking and for
+     * describing the mismatch, so that its recorded mismatch is reused.
+     */
+    private void describeElementMismatch(final int index, final Object actual, final MismatchList mismatches) {
+        final Object expectedElement = expected[index];
+        if (isSimple(expectedElement)) {
+            if (!simpleElementMatches(expectedElement, actual)) {
+                appendElementPrefix(index, mismatches.next()).appendText("was ").appendValue(actual);
+            }
+            return;
+        }
+        if (!GraphScope.isDescribing() && TypeComparator.valuesMatch(expectedElement, actual)) {
+            return;
+        }
+        final Matcher<Object> matcher = getMismatchMatcher(index, actual);
+        if (!matcher.matches(actual)) {
+            matcher.describeMismatch(actual, appendElementPrefix(index, mismatches.next()));
+        }
+    }
+
+    private Description appendElementPrefix(final int index, final Description description) {
+        if (style == Style.ARRAY) {
+            return description.appendText("element ").appendValue(index).appendText(" ");
+        }
+        return description.appendText("item " + index + ": ");
+    }
+
+    @Override
+    public boolean collectMismatches(final Object actual, final MismatchPath path,
+            final MismatchSink collector) {
+        if (!style.isSupported(actual)) {
+            collector.accept(Mismatch.different(path, this, actual));
+            return false;
+        }
+        final Iterator<?> actualIterator = iterator(actual);
+        boolean matches = true;
+        int index = 0;
+        while (index < expected.length && actualIterator.hasNext()) {
+            if (!collectElementMismatches(index, actualIterator.next(), path, collector)) {
+                matches = false;
+            }
+            index++;
+        }
+        for (int missing = index; missing < expected.length; missing++) {
+            collector.accept(isSimple(expected[missing]) ? Mismatch.missingValue(path.index(missing), expected[missing])
+                    : Mismatch.missing(path.index(missing), createMatcher(missing), expected[missing]));
+            matches = false;
+        }
+        while (actualIterator.hasNext()) {
+            collector.accept(Mismatch.unexpected(path.index(index++), actualIterator.next()));
+            matches = false;
+        }
+        collector.elementsCompared(path, Math.max(index, expected.length));
+        return matches;
+    }
+
+    /**
+     * Collect the mismatches of the element at the given index. The matcher of
+     * an element that is not simple is created for this element only, so that
+     * streaming the mismatches of a large collection does not keep a matcher
+     * per element.
+     */
+    private boolean collectElementMismatches(final int index, final Object actual, final MismatchPath path,
+            final MismatchSink collector) {
+        final Object expectedElement = expected[index];
+        if (!isSimple(expectedElement)) {
+            return Mismatch.collect(path.index(index), createMatcher(index), expectedElement, actual, collector);
+        }
+        if (simpleElementMatches(expectedElement, actual)) {
+            return true;
+        }
+        collector.accept(Mismatch.differentValue(path.index(index), expectedElement, actual));
+        return false;
+    }
+
+    private enum Style {
+        /** Like {@link org.hamcrest.Matchers#contains(java.util.List)} */
+        ITERABLE("iterable containing [", "]") {
+            @Override
+            boolean isSupported(final Object actual) {
+                return actual instanceof Iterable;
+            }
+
+            @Override
+            void describeUnsupported(final Object actual, final Description description) {
+                if (actual == null) {
+                    description.appendText("was null");
+                } else {
+                    description.appendText("was " + actual.getClass().getSimpleName() + " ").appendValue(actual);
+                }
+            }
+        },
+        /**
+         * Like {@link org.hamcrest.Matchers#arrayContaining(Object...)}, including
+         * the trailing space of its description
+         */
+        SIMPLE_ARRAY("[", "] "),
+        /** Like {@link org.hamcrest.collection.IsArray} */
+        ARRAY("[", "]");
+
+        private final String descriptionStart;
+        private final String descriptionEnd;
+
+        Style(final String descriptionStart, final String descriptionEnd) {
+            this.descriptionStart = descriptionStart;
+            this.descriptionEnd = descriptionEnd;
+        }
+
+        boolean isSupported(final Object actual) {
+            return actual instanceof Object[];
+        }
+
+        void describeUnsupported(final Object actual, final Description description) {
+            description.appendText("was ").appendValue(actual);
+        }
+    }
+
+    /**
+     * The matcher of an element that did not match the given actual element.
+     */
+    private static final class DescribedElement {
+        private final int index;
+        private final Object actual;
+        private final Matcher<Object> matcher;
+
+        private DescribedElement(final int index, final Object actual, final Matcher<Object> matcher) {
+            this.index = index;
+            this.actual = actual;
+            this.matcher = matcher;
+        }
+    }
+
+    /**
+     * Appends up to {@value ContainsInOrderMatcher#MAX_REPORTED_MISMATCHES}
+     * mismatches separated by comma.
+     */
+    private static final class MismatchList {
+        private final Description description;
+        private int count = 0;
+
+        private MismatchList(final Description description) {
+            this.description = description;
+        }
+
+        private Description next() {
+            if (count > 0) {
+                description.appendText(", ");
+            }
+            count++;
+            return description;
+        }
+
+        private boolean isFull() {
+            return count >= MAX_REPORTED_MISMATCHES;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.itsallcode.matcher.auto;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.hamcrest.Description;
+import org.itsallcode.matcher.BaseTypeSafeDiagnosingMatcher;
+import org.itsallcode.matcher.Mismatch;
+import org.itsallcode.matcher.MismatchPath;
+import org.itsallcode.matcher.MismatchSink;
+
+/**
+ * Records which actual objects were compared with which referenced expected
+ * object on the current thread while comparing an object graph:
+ * <ul>
+ * <li>A pair that is compared again while its comparison is still in progress
+ * is part of a cycle and treated as matching, so that comparing cyclic graphs
+ * terminates.</li>
+ * <li>A pair that was already compared is not compared again, so that shared
+ * objects are compared only once.</li>
+ * <li>The structured mismatches of a pair are only collected at the first
+ * path where the pair is reached.</li>
+ * </ul>
+ * Matchers comparing elements without nested matchers check
+ * {@link #isDescribing()} to decide if they must compare using their nested
+ * matchers, because objects of the graph whose mismatch is currently
+ * described count as matching and because the mismatches recorded by the
+ * nested matchers are reused when they are described.
+ * <p>
+ * The scope starts with the outermost {@link ReferenceMatcher} and ends when it
+ * returns. The recorded pairs are only allocated when a referenced object is
+ * compared.
+ */
+final class GraphScope {
+    private static final ThreadLocal<GraphScope> CURRENT = ThreadLocal.withInitial(GraphScope::new);
+
+    private int depth = 0;
+    private int describing = 0;
+    private Map<ConstructionContext.Node, Map<Object, State>> states;
+
+    private GraphScope() {
+        // use enter()
+    }
+
+    static GraphScope enter() {
+        final GraphScope scope = CURRENT.get();
+        scope.depth++;
+        return scope;
+    }
+
+    /**
+     * Check if the mismatch of an object of the graph is currently described or
+     * collected on this thread.
+     *
+     * @return {@code true} if a mismatch is described
+     */
+    static boolean isDescribing() {
+        return CURRENT.get().describing > 0;
+    }
+
+    void exit() {
+        depth--;
+        if (depth == 0) {
+            states = null;
+        }
+    }
+
+    boolean matches(final ConstructionContext.Node node, final Object actual) {
+        final Map<Object, State> nodeStates = getStates(node);
+        final State state = nodeStates.get(actual);
+        if (state != null) {
+            return state != State.MISMATCH && state != State.COLLECTED;
+        }
+        nodeStates.put(actual, State.IN_PROGRESS);
+        final boolean matches = BaseTypeSafeDiagnosingMatcher.matchesWithoutDescription(node.getMatcher(), actual);
+        nodeStates.put(actual, matches ? State.MATCH : State.MISMATCH);
+        return matches;
+    }
+
+    void describeMismatch(final ConstructionContext.Node node, final Object actual, final Description description) {
+        describing++;
+        try {
+            if (node.isReferenced()) {
+                describeReferencedMismatch(node, actual, description);
+            } else {
+                node.getMatcher().describeMismatch(actual, description);
+            }
+        } finally {
+            describing--;
+        }
+    }
+
+    private void describeReferencedMismatch(final ConstructionContext.Node node, final Object actual,
+            final Description description) {
+        final Map<Object, State> nodeStates = getStates(node);
+        final State state = nodeStates.get(actual);
+        if (state == State.IN_PROGRESS || state == State.DESCRIBING) {
+            return;
+        }
+        nodeStates.put(actual, State.DESCRIBING);
+        try {
+            node.getMatcher().describeMismatch(actual, description);
+        } finally {
+            nodeStates.put(actual, State.MISMATCH);
+        }
+    }
+
+    boolean collectMismatches(final ConstructionContext.Node node, final Object actual, final MismatchPath path,
+            final MismatchSink collector) {
+        final Map<Object, State> nodeStates = getStates(node);
+        final State state = nodeStates.get(actual);
+        if (state == State.IN_PROGRESS || state == State.DESCRIBING || state == State.MATCH) {
+            return true;
+        }
+        if (state == State.COLLECTED) {
+            return false;
+        }
+        nodeStates.put(actual, State.DESCRIBING);
+        describing++;
+        boolean matches = false;
+        try {
+            matches = Mismatch.collect(path, node.getMatcher(), actual, collector);
+        } finally {
+            describing--;
+            nodeStates.put(actual, matches ? State.MATCH : State.COLLECTED);
+        }
+        return matches;
+    }
+
+    private Map<Object, State> getStates(final ConstructionContext.Node node) {
+        if (states == null) {
+            states = new IdentityHashMap<>();
+        }
+        return states.computeIfAbsent(node, key -> new IdentityHashMap<>());
+    }
+
+    private enum State {
+        IN_PROGRESS, DESCRIBING, MATCH, MISMATCH, COLLECTED
+    }
+}
@@ -0,0 +1,383 @@
+package org.itsallcode.matcher.auto;
+
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.itsallcode.matcher.*;
+
+/**
+ * Matches a map containing exactly the expected entries.
+ * <p>
+ * Keys of simple type are compared with {@link Object#equals(Object)} by
+ * {@link AutoMatcher#equalTo(Object)}, so they are looked up directly in the
+ * actual map and only the values are compared. This requires the actual map
+ * to compare keys with {@link Object#equals(Object)} as well, e.g. a
+ * {@link HashMap}. In a {@link NavigableMap} like a {@link TreeMap} the key
+ * found by the comparator of the map must also be equal to the expected key.
+ * Other keys and keys of other maps, e.g. an {@link IdentityHashMap}, are
+ * compared by scanning all entries of the actual map. A mismatch reports all missing,
+ * unexpected and differing entries up to the maximum number of elements of
+ * the current {@link RenderingBudget}. Structured mismatches report all of
+ * them by key without limit.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+final class MapContainsMatcher<K, V> extends BaseMatcher<Map<K, V>> implements MismatchSource {
+    private static final Set<Class<?>> EQUALS_BASED_MAPS = new HashSet<>(Arrays.asList(HashMap.class,
+            LinkedHashMap.class, Hashtable.class, ConcurrentHashMap.class, Map.of().getClass(),
+            Map.of(1, 1).getClass(), Collections.emptyMap().getClass(), Collections.singletonMap(1, 1).getClass()));
+
+    /** Result of {@link #lookUp(Map, Object)} for a missing key. */
+    static final Object MISSING = new Object();
+    /** Result of {@link #lookUp(Map, Object)} for an unsupported map. */
+    static final Object UNSUPPORTED = new Object();
+
+    private final ExpectedEntry[] entries;
+    private final Map<Object, ExpectedEntry> entriesByKey;
+    private final List<ExpectedEntry> unhashableEntries;
+
+    private MapContainsMatcher(final ExpectedEntry[] entries) {
+        this.entries = entries;
+        this.entriesByKey = new HashMap<>();
+        this.unhashableEntries = new ArrayList<>();
+        for (final ExpectedEntry entry : entries) {
+            if (entry.hashable) {
+                entriesByKey.put(entry.key, entry);
+            } else {
+                unhashableEntries.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Create a new matcher for the expected map.
+     *
+     * @param <K>      type of the keys
+     * @param <V>      type of the values
+     * @param expected the expected map
+     * @return the new matcher
+     */
+    static <K, V> MapContainsMatcher<K, V> create(final Map<K, V> expected) {
+        final Function<Supplier<Matcher<Object>>, Matcher<Object>> context = ConstructionContext.capture("",
+                Supplier::get);
+        final ExpectedEntry[] entries = new ExpectedEntry[expected.size()];
+        int index = 0;
+        for (final Entry<K, V> entry : expected.entrySet()) {
+            entries[index++] = new ExpectedEntry(entry.getKey(), entry.getValue(), context);
+        }
+        return new MapContainsMatcher<>(entries);
+    }
+
+    /**
+     * Check if the given expected key can be looked up in the actual map, see
+     * {@link #lookUp(Map, Object)}.
+     *
+     * @param key the expected key
+     * @return {@code true} if the key is {@code null} or of simple type
+     */
+    static boolean isHashable(final Object key) {
+        return key == null || MatchStrategy.isSimpleType(key.getClass());
+    }
+
+    /**
+     * Look up the value of the given key in the actual map.
+     *
+     * @param actualMap the actual map
+     * @param key       the expected key, see {@link #isHashable(Object)}
+     * @return the value, {@link #MISSING} if the map does not contain the key or
+     *         {@link #UNSUPPORTED} if the map does not support looking up the key
+     *         with {@link Object#equals(Object)} semantics, e.g. an
+     *         {@link IdentityHashMap} or a {@link TreeMap} and a {@code null} key
+     */
+    @SuppressWarnings("java:S1696") // Map.get() may throw NullPointerException for null keys
+    static Object lookUp(final Map<?, ?> actualMap, final Object key) {
+        try {
+            if (EQUALS_BASED_MAPS.contains(actualMap.getClass())) {
+                final Object actualValue = actualMap.get(key);
+                if (actualValue != null || actualMap.containsKey(key)) {
+                    return actualValue;
+                }
+                return MISSING;
+            }
+            if (actualMap instanceof NavigableMap) {
+                return lookUp((NavigableMap<?, ?>) actualMap, key);
+            }
+            return UNSUPPORTED;
+        } catch (final ClassCastException | NullPointerException e) {
+            return UNSUPPORTED;
+        }
+    }
+
+    /**
+     * Look up the entry whose key the comparator of the map considers equal and
+     * check that the key is also equal to the expected key.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object lookUp(final NavigableMap<?, ?> actualMap, final Object key) {
+        final Entry<?, ?> entry = ((NavigableMap<Object, ?>) actualMap).ceilingEntry(key);
+        if (entry != null && Objects.equals(entry.getKey(), key)) {
+            return entry.getValue();
+        }
+        return MISSING;
+    }
+
+    @Override
+    public boolean matches(final Object actual) {
+        if (actual == null) {
+            return false;
+        }
+        final Map<?, ?> actualMap = (Map<?, ?>) actual;
+        if (actualMap.size() != entries.length) {
+            return false;
+        }
+        for (final ExpectedEntry entry : entries) {
+            if (!entry.matches(actualMap)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void describeTo(final Description description) {
+        final int describedEntries = Math.min(entries.length, RenderingBudget.current().getMaxElements());
+        description.appendText("{");
+        for (int i = 0; i < describedEntries; i++) {
+            if (i > 0) {
+                description.appendText(", ");
+            }
+            entries[i].describeKey(description);
+            description.appendText("=").appendDescriptionOf(entries[i].getValueMatcher());
+        }
+        if (describedEntries < entries.length) {
+            description.appendText(", " + RenderingBudget.describeElided(entries.length - describedEntries));
+        }
+        description.appendText("}");
+    }
+
+    @Override
+    public void describeMismatch(final Object actual, final Description mismatchDescription) {
+        if (actual == null) {
+            mismatchDescription.appendText("was null");
+            return;
+        }
+        final Map<?, ?> actualMap = (Map<?, ?>) actual;
+        final MismatchList mismatches = new MismatchList(mismatchDescription);
+        for (final ExpectedEntry entry : entries) {
+            final Optional<Entry<?, ?>> actualEntry = entry.findActualEntry(actualMap);
+            if (actualEntry.isEmpty()) {
+                if (mismatches.add()) {
+                    entry.describeKey(mismatchDescription);
+                    mismatchDescription.appendText(" missing");
+                }
+            } else if (!entry.valueMatches(actualEntry.get()) && mismatches.add()) {
+                entry.describeKey(mismatchDescription);
+                mismatchDescription.appendText(" ");
+                entry.getValueMatcher().describeMismatch(actualEntry.get().getValue(), mismatchDescription);
+            }
+        }
+        for (final Entry<?, ?> actualEntry : actualMap.entrySet()) {
+            if (!isExpectedKey(actualEntry.getKey()) && mismatches.add()) {
+                mismatchDescription.appendValue(actualEntry.getKey()).appendText(" unexpected with value ")
+                        .appendValue(actualEntry.getValue());
+            }
+        }
+        if (mismatches.isEmpty() && mismatches.add()) {
+            mismatchDescription.appendText("size was ").appendValue(actualMap.size());
+        }
+        mismatches.finish();
+    }
+
+    @Override
+    public boolean collectMismatches(final Object actual, final MismatchPath path,
+            final MismatchSink collector) {
+        if (!(actual instanceof Map)) {
+            collector.accept(Mismatch.different(path, this, actual));
+            return false;
+        }
+        final Map<?, ?> actualMap = (Map<?, ?>) actual;
+        collector.elementsCompared(path, Math.max(actualMap.size(), entries.length));
+        boolean matches = true;
+        for (final ExpectedEntry entry : entries) {
+            final Optional<Entry<?, ?>> actualEntry = entry.findActualEntry(actualMap);
+            if (actualEntry.isEmpty()) {
+                collector.accept(Mismatch.missing(path.key(entry.key), entry.getValueMatcher(), entry.value));
+                matches = false;
+            } else if (!Mismatch.collect(path.key(entry.key), entry.getValueMatcher(), entry.value,
+                    actualEntry.get().getValue(), collector)) {
+                matches = false;
+            }
+        }
+        for (final Entry<?, ?> actualEntry : actualMap.entrySet()) {
+            if (!isExpectedKey(actualEntry.getKey())) {
+                collector.accept(Mismatch.unexpected(path.key(actualEntry.getKey()), actualEntry.getValue()));
+                matches = false;
+            }
+        }
+        if (matches && actualMap.size() != entries.length) {
+            collector.accept(Mismatch.different(path, this, actual));
+            matches = false;
+        }
+        return matches;
+    }
+
+    private boolean isExpectedKey(final Object actualKey) {
+        if (isHashable(actualKey) && entriesByKey.containsKey(actualKey)) {
+            return true;
+        }
+        for (final ExpectedEntry entry : unhashableEntries) {
+            if (entry.getKeyMatcher().matches(actualKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends mismatches separated by comma. Mismatches exceeding the maximum
+     * number of elements of the current {@link RenderingBudget} are only
+     * counted.
+     */
+    private static final class MismatchList {
+        private final Description description;
+        private final int maxReported;
+        private int count = 0;
+
+        private MismatchList(final Description description) {
+            this.description = description;
+            this.maxReported = RenderingBudget.current().getMaxElements();
+            description.appendText("{");
+        }
+
+        /**
+         * Add a mismatch.
+         *
+         * @return {@code true} if the mismatch must be described
+         */
+        private boolean add() {
+            count++;
+            if (count > maxReported) {
+                return false;
+            }
+            if (count > 1) {
+                description.appendText(", ");
+            }
+            return true;
+        }
+
+        private boolean isEmpty() {
+            return count == 0;
+        }
+
+        private void finish() {
+            if (count > maxReported) {
+                description.appendText(", " + RenderingBudget.describeElided(count - maxReported));
+            }
+            description.appendText("}");
+        }
+    }
+
+    /**
+     * An entry of the expected map. The matchers for key and value are created
+     * when they are used for the first time in the captured context of the
+     * expected map. The path of the value is only built at that time.
+     */
+    private static final class ExpectedEntry {
+        private final Object key;
+        private final Object value;
+        private final boolean hashable;
+        private final Function<Supplier<Matcher<Object>>, Matcher<Object>> context;
+        private volatile Matcher<Object> keyMatcher;
+        private volatile Matcher<Object> valueMatcher;
+
+        private ExpectedEntry(final Object key, final Object value,
+                final Function<Supplier<Matcher<Object>>, Matcher<Object>> context) {
+            this.key = key;
+            this.value = value;
+            this.hashable = isHashable(key);
+            this.context = context;
+        }
+
+        private boolean matches(final Map<?, ?> actualMap) {
+            final Object actualValue = hashable ? lookUp(actualMap, key) : UNSUPPORTED;
+            if (actualValue != UNSUPPORTED) {
+                return actualValue != MISSING && getValueMatcher().matches(actualValue);
+            }
+            for (final Entry<?, ?> entry : actualMap.entrySet()) {
+                if (getKeyMatcher().matches(entry.getKey()) && getValueMatcher().matches(entry.getValue())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Find the entry of the actual map with the expected key.
+         */
+        private Optional<Entry<?, ?>> findActualEntry(final Map<?, ?> actualMap) {
+            final Object actualValue = hashable ? lookUp(actualMap, key) : UNSUPPORTED;
+            if (actualValue == MISSING) {
+                return Optional.empty();
+            }
+            if (actualValue != UNSUPPORTED) {
+                return Optional.of(new AbstractMap.SimpleImmutableEntry<>(key, actualValue));
+            }
+            for (final Entry<?, ?> entry : actualMap.entrySet()) {
+                if (getKeyMatcher().matches(entry.getKey())) {
+                    return Optional.of(entry);
+                }
+            }
+            return Optional.empty();
+        }
+
+        private boolean valueMatches(final Entry<?, ?> actualEntry) {
+            return getValueMatcher().matches(actualEntry.getValue());
+        }
+
+        private void describeKey(final Description description) {
+            if (hashable) {
+                description.appendValue(key);
+            } else {
+                description.appendDescriptionOf(getKeyMatcher());
+            }
+        }
+
+        private Matcher<Object> getKeyMatcher() {
+            final Matcher<Object> result = this.keyMatcher;
+            if (result != null) {
+                return result;
+            }
+            return createKeyMatcher();
+        }
+
+        private synchronized Matcher<Object> createKeyMatcher() {
+            if (this.keyMatcher == null) {
+                this.keyMatcher = context.apply(() -> AutoMatcher.equalTo(key));
+            }
+            return this.keyMatcher;
+        }
+
+        private Matcher<Object> getValueMatcher() {
+            final Matcher<Object> result = this.valueMatcher;
+            if (result != null) {
+                return result;
+            }
+            return createValueMatcher();
+        }
+
+        private synchronized Matcher<Object> createValueMatcher() {
+            if (this.valueMatcher == null) {
+                this.valueMatcher = context
+                        .apply(() -> ConstructionContext.inPath("[" + key + "]", () -> AutoMatcher.equalTo(value)));
+            }
+            return this.valueMatcher;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.itsallcode.matcher.auto;
+
+import static java.util.Arrays.asList;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.Temporal;
+import java.util.*;
+import java.util.stream.BaseStream;
+
+/**
+ * The strategy used for matching values of a class. The strategy is resolved
+ * once per class, so dispatching a value only requires a single lookup.
+ */
+enum MatchStrategy {
+    /** Arrays of primitive or object types. */
+    ARRAY,
+    /**
+     * Types compared with {@link Object#equals(Object)}, e.g. {@link String} or
+     * enums.
+     */
+    SIMPLE,
+    /** Implementations of {@link Map}. */
+    MAP,
+    /** Implementations of {@link Set}, compared ignoring the order. */
+    SET,
+    /** Implementations of {@link Iterable} except {@link Set}. */
+    ITERABLE,
+    /**
+     * Sequences that can only be traversed once: {@link BaseStream},
+     * {@link Iterator} and {@link DirectoryStream}.
+     */
+    STREAM,
+    /** {@link Optional} */
+    OPTIONAL,
+    /** Model classes compared property by property. */
+    BEAN;
+
+    private static final List<Class<?>> SIMPLE_TYPES = asList(String.class, Long.class, Integer.class, Byte.class,
+            Boolean.class, Float.class, Double.class, Character.class, Short.class, BigInteger.class,
+            BigDecimal.class, Calendar.class, Date.class, java.sql.Date.class, java.sql.Timestamp.class,
+            Instant.class, LocalDate.class, Temporal.class, Currency.class, File.class, Path.class, UUID.class,
+            Class.class, Package.class, Enum.class, URL.class, URI.class);
+
+    private static final ClassValue<MatchStrategy> STRATEGIES = new ClassValue<>() {
+        @Override
+        protected MatchStrategy computeValue(final Class<?> type) {
+            return resolve(type);
+        }
+    };
+
+    /**
+     * Get the strategy for values of the given class.
+     *
+     * @param type the class of the value
+     * @return the strategy
+     */
+    static MatchStrategy of(final Class<?> type) {
+        return STRATEGIES.get(type);
+    }
+
+    /**
+     * Check if values of the given class are compared using
+     * {@link Object#equals(Object)}.
+     *
+     * @param type the class to check
+     * @return {@code true} if the class is a simple type
+     */
+    static boolean isSimpleType(final Class<?> type) {
+        return of(type) == SIMPLE;
+    }
+
+    private static MatchStrategy resolve(final Class<?> type) {
+        if (type.isArray()) {
+            return ARRAY;
+        }
+        for (final Class<?> simpleType : SIMPLE_TYPES) {
+            if (simpleType.isAssignableFrom(type)) {
+                return SIMPLE;
+            }
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return MAP;
+        }
+        if (Set.class.isAssignableFrom(type)) {
+            return SET;
+        }
+        if (BaseStream.class.isAssignableFrom(type) || Iterator.class.isAssignableFrom(type)
+                || DirectoryStream.class.isAssignableFrom(type)) {
+            return STREAM;
+        }
+        if (Iterable.class.isAssignableFrom(type)) {
+            return ITERABLE;
+        }
+        if (Optional.class.isAssignableFrom(type)) {
+            return OPTIONAL;
+        }
+        return BEAN;
+    }
+}
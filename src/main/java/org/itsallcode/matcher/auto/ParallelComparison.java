@@ -0,0 +1,169 @@
+package org.itsallcode.matcher.auto;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Compares elements of large collections and creates their matchers in
+ * parallel using the {@link ForkJoinPool} of a {@link Parallelism}.
+ * <p>
+ * The elements are split into chunks of consecutive indexes. The chunk
+ * boundaries only depend on the number of elements and the parallelism of the
+ * pool, and results of the chunks are merged in index order. This way results
+ * don't depend on the order in which the chunks are processed.
+ */
+final class ParallelComparison {
+    private static final int MIN_CHUNK_SIZE = 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelComparison() {
+        // not instantiable
+    }
+
+    /**
+     * Check if all elements match. Stops comparing at the first mismatch.
+     *
+     * @param parallelism settings
+     * @param size        number of elements
+     * @param matches     checks if the element at the given index matches
+     * @return {@code true} if all elements match
+     */
+    static boolean allMatch(final Parallelism parallelism, final int size, final IntPredicate matches) {
+        final AtomicBoolean mismatch = new AtomicBoolean(false);
+        run(parallelism, size, (chunk, from, to) -> {
+            for (int i = from; i < to && !mismatch.get(); i++) {
+                if (!matches.test(i)) {
+                    mismatch.set(true);
+                }
+            }
+        });
+        return !mismatch.get();
+    }
+
+    /**
+     * Find the indexes of the first mismatching elements.
+     *
+     * @param parallelism settings
+     * @param size        number of elements
+     * @param matches     checks if the element at the given index matches
+     * @param limit       maximum number of returned indexes
+     * @return indexes of up to {@code limit} mismatching elements in ascending
+     *         order
+     */
+    static int[] findMismatches(final Parallelism parallelism, final int size, final IntPredicate matches,
+            final int limit) {
+        final int[][] chunkMismatches = new int[chunkCount(parallelism, size)][];
+        run(parallelism, size, (chunk, from, to) -> {
+            final int[] mismatches = new int[limit];
+            int count = 0;
+            for (int i = from; i < to && count < limit; i++) {
+                if (!matches.test(i)) {
+                    mismatches[count++] = i;
+                }
+            }
+            chunkMismatches[chunk] = Arrays.copyOf(mismatches, count);
+        });
+        final int[] result = new int[limit];
+        int count = 0;
+        for (int chunk = 0; chunk < chunkMismatches.length && count < limit; chunk++) {
+            for (int i = 0; i < chunkMismatches[chunk].length && count < limit; i++) {
+                result[count++] = chunkMismatches[chunk][i];
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Compute a value for each element.
+     *
+     * @param parallelism settings
+     * @param size        number of elements
+     * @param function    computes the value for the element at the given index
+     * @return the values in index order
+     */
+    static int[][] computeAll(final Parallelism parallelism, final int size, final IntFunction<int[]> function) {
+        final int[][] result = new int[size][];
+        run(parallelism, size, (chunk, from, to) -> {
+            for (int i = from; i < to; i++) {
+                result[i] = function.apply(i);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Process each element.
+     *
+     * @param parallelism settings
+     * @param size        number of elements
+     * @param action      processes the element at the given index
+     */
+    static void forEach(final Parallelism parallelism, final int size, final IntConsumer action) {
+        run(parallelism, size, (chunk, from, to) -> {
+            for (int i = from; i < to; i++) {
+                action.accept(i);
+            }
+        });
+    }
+
+    private static int chunkSize(final Parallelism parallelism, final int size) {
+        final int chunks = parallelism.getPool().getParallelism() * CHUNKS_PER_THREAD;
+        return Math.max(MIN_CHUNK_SIZE, (size + chunks - 1) / chunks);
+    }
+
+    private static int chunkCount(final Parallelism parallelism, final int size) {
+        final int chunkSize = chunkSize(parallelism, size);
+        return (size + chunkSize - 1) / chunkSize;
+    }
+
+    private static void run(final Parallelism parallelism, final int size, final ChunkAction action) {
+        final int chunkSize = chunkSize(parallelism, size);
+        parallelism.getPool().invoke(new ChunkTask(action, size, chunkSize, 0, chunkCount(parallelism, size)));
+    }
+
+    @FunctionalInterface
+    private interface ChunkAction {
+        void run(int chunk, int from, int to);
+    }
+
+    /**
+     * Processes a range of chunks by splitting it until a single chunk remains.
+     */
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ChunkAction action;
+        private final int size;
+        private final int chunkSize;
+        private final int fromChunk;
+        private final int toChunk;
+
+        private ChunkTask(final ChunkAction action, final int size, final int chunkSize, final int fromChunk,
+                final int toChunk) {
+            this.action = action;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk <= 1) {
+                if (fromChunk < toChunk) {
+                    final int from = fromChunk * chunkSize;
+                    action.run(fromChunk, from, Math.min(size, from + chunkSize));
+                }
+                return;
+            }
+            final int middle = (fromChunk + toChunk) >>> 1;
+            invokeAll(new ChunkTask(action, size, chunkSize, fromChunk, middle),
+                    new ChunkTask(action, size, chunkSize, middle, toChunk));
+        }
+    }
+}
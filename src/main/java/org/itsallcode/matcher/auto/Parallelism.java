@@ -0,0 +1,140 @@
+package org.itsallcode.matcher.auto;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Settings for comparing large collections in parallel, see
+ * {@link AutoMatcher#equalTo(Object, Parallelism)}.
+ * <p>
+ * When both the expected and the actual List, array or Set contain at least
+ * {@link Builder#comparisonThreshold(int) comparisonThreshold} elements, the
+ * elements are compared in chunks using a {@link ForkJoinPool}. Results are
+ * merged in index order, so the result and the mismatch description are the
+ * same as when comparing sequentially.
+ * <p>
+ * When an expected Set contains at least
+ * {@link Builder#constructionThreshold(int) constructionThreshold} elements,
+ * the matchers for its elements are created in parallel. References between
+ * expected objects are still resolved in element order, so descriptions are
+ * the same as when creating the matchers sequentially.
+ * <p>
+ * Parallel comparison is disabled by default. Settings are immutable and can be
+ * shared between matchers.
+ */
+public final class Parallelism {
+    private static final int DEFAULT_THRESHOLD = 10_000;
+    private static final Parallelism DISABLED = new Parallelism(Integer.MAX_VALUE, Integer.MAX_VALUE, null);
+
+    private final int comparisonThreshold;
+    private final int constructionThreshold;
+    private final ForkJoinPool pool;
+
+    private Parallelism(final int comparisonThreshold, final int constructionThreshold, final ForkJoinPool pool) {
+        this.comparisonThreshold = comparisonThreshold;
+        this.constructionThreshold = constructionThreshold;
+        this.pool = pool;
+    }
+
+    /**
+     * Get settings that compare all elements sequentially. This is the default.
+     *
+     * @return settings with parallel comparison disabled
+     */
+    public static Parallelism disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Create a new {@link Builder} for enabling parallel comparison.
+     *
+     * @return new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    boolean isParallelComparison(final int size) {
+        return size >= comparisonThreshold;
+    }
+
+    boolean isParallelConstruction(final int size) {
+        return size >= constructionThreshold;
+    }
+
+    ForkJoinPool getPool() {
+        return pool != null ? pool : ForkJoinPool.commonPool();
+    }
+
+    @Override
+    public String toString() {
+        return "Parallelism [comparisonThreshold=" + comparisonThreshold + ", constructionThreshold="
+                + constructionThreshold + ", pool=" + pool + "]";
+    }
+
+    /**
+     * Builder for {@link Parallelism}.
+     */
+    public static final class Builder {
+        private int comparisonThreshold = DEFAULT_THRESHOLD;
+        private int constructionThreshold = DEFAULT_THRESHOLD;
+        private ForkJoinPool pool;
+
+        private Builder() {
+            // use Parallelism.builder()
+        }
+
+        /**
+         * Set the minimum number of elements for comparing a collection in
+         * parallel. The default is {@value Parallelism#DEFAULT_THRESHOLD}.
+         *
+         * @param threshold minimum number of elements
+         * @return {@code this} for method chaining
+         */
+        public Builder comparisonThreshold(final int threshold) {
+            this.comparisonThreshold = validateThreshold(threshold);
+            return this;
+        }
+
+        /**
+         * Set the minimum number of elements of an expected Set for creating
+         * the matchers of its elements in parallel. The default is
+         * {@value Parallelism#DEFAULT_THRESHOLD}.
+         *
+         * @param threshold minimum number of elements
+         * @return {@code this} for method chaining
+         */
+        public Builder constructionThreshold(final int threshold) {
+            this.constructionThreshold = validateThreshold(threshold);
+            return this;
+        }
+
+        private static int validateThreshold(final int threshold) {
+            if (threshold < 1) {
+                throw new IllegalArgumentException("Threshold must be positive but was " + threshold);
+            }
+            return threshold;
+        }
+
+        /**
+         * Set the pool used for comparing in parallel. The default is
+         * {@link ForkJoinPool#commonPool()}.
+         *
+         * @param pool the pool
+         * @return {@code this} for method chaining
+         */
+        public Builder pool(final ForkJoinPool pool) {
+            this.pool = Objects.requireNonNull(pool, "pool");
+            return this;
+        }
+
+        /**
+         * Build the settings.
+         *
+         * @return new settings
+         */
+        public Parallelism build() {
+            return new Parallelism(comparisonThreshold, constructionThreshold, pool);
+        }
+    }
+}
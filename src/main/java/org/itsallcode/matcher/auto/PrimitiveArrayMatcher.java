@@ -0,0 +1,256 @@
+package org.itsallcode.matcher.auto;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matchers;
+import org.itsallcode.matcher.RenderingBudget;
+
+/**
+ * Matches arrays of primitive types like {@code int[]} and nested arrays of
+ * primitive types like {@code int[][]}.
+ * <p>
+ * Arrays are compared using {@link Arrays#mismatch(int[], int[])} and its
+ * overloads without boxing the elements. Nested arrays are compared row by row
+ * without creating a matcher for each row. A mismatch reports the length and
+ * the first differing index with a few elements around it instead of the
+ * complete arrays.
+ */
+final class PrimitiveArrayMatcher extends BaseMatcher<Object> {
+    /** Number of elements shown before and after the first differing element. */
+    private static final int CONTEXT_ELEMENTS = 3;
+    /** Maximum number of elements shown when describing the expected array. */
+    private static final int MAX_DESCRIBED_ELEMENTS = 32;
+
+    private final Object expected;
+
+    private PrimitiveArrayMatcher(final Object expected) {
+        this.expected = expected;
+    }
+
+    /**
+     * Create a new matcher for the expected array.
+     *
+     * @param expected the expected array
+     * @return the new matcher
+     */
+    static PrimitiveArrayMatcher create(final Object expected) {
+        return new PrimitiveArrayMatcher(expected);
+    }
+
+    /**
+     * Check if the given type is an array of a primitive type or a nested array
+     * of a primitive type.
+     *
+     * @param type the type to check
+     * @return {@code true} if the type is a (nested) primitive array
+     */
+    static boolean isPrimitiveArray(final Class<?> type) {
+        if (!type.isArray()) {
+            return false;
+        }
+        Class<?> componentType = type.getComponentType();
+        while (componentType.isArray()) {
+            componentType = componentType.getComponentType();
+        }
+        return componentType.isPrimitive();
+    }
+
+    /**
+     * Check if the actual array is equal to the expected (nested) primitive
+     * array.
+     *
+     * @param expected the expected array
+     * @param actual   the actual value
+     * @return {@code true} if the arrays are equal
+     */
+    static boolean arraysEqual(final Object expected, final Object actual) {
+        if (expected == null || actual == null) {
+            return expected == actual;
+        }
+        if (expected.getClass() != actual.getClass()) {
+            return Matchers.equalTo(expected).matches(actual);
+        }
+        if (expected.getClass().getComponentType().isPrimitive()) {
+            return mismatch(expected, actual) < 0;
+        }
+        final Object[] expectedRows = (Object[]) expected;
+        final Object[] actualRows = (Object[]) actual;
+        if (expectedRows.length != actualRows.length) {
+            return false;
+        }
+        for (int i = 0; i < expectedRows.length; i++) {
+            if (!arraysEqual(expectedRows[i], actualRows[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the index of the first mismatch between two primitive arrays of the
+     * same type.
+     *
+     * @return the index of the first mismatch or {@code -1} if the arrays are
+     *         equal
+     */
+    private static int mismatch(final Object expected, final Object actual) {
+        final Class<?> type = expected.getClass();
+        if (type == int[].class) {
+            return Arrays.mismatch((int[]) expected, (int[]) actual);
+        } else if (type == long[].class) {
+            return Arrays.mismatch((long[]) expected, (long[]) actual);
+        } else if (type == double[].class) {
+            return Arrays.mismatch((double[]) expected, (double[]) actual);
+        } else if (type == byte[].class) {
+            return Arrays.mismatch((byte[]) expected, (byte[]) actual);
+        } else if (type == float[].class) {
+            return Arrays.mismatch((float[]) expected, (float[]) actual);
+        } else if (type == short[].class) {
+            return Arrays.mismatch((short[]) expected, (short[]) actual);
+        } else if (type == char[].class) {
+            return Arrays.mismatch((char[]) expected, (char[]) actual);
+        } else if (type == boolean[].class) {
+            return Arrays.mismatch((boolean[]) expected, (boolean[]) actual);
+        }
+        throw new IllegalArgumentException("Unsupported array type " + type.getName());
+    }
+
+    @Override
+    public boolean matches(final Object actual) {
+        return actual != null && arraysEqual(expected, actual);
+    }
+
+    @Override
+    public void describeTo(final Description description) {
+        appendArray(description, expected);
+    }
+
+    private static void appendArray(final Description description, final Object array) {
+        final int length = Array.getLength(array);
+        final int maxElements = Math.min(MAX_DESCRIBED_ELEMENTS, RenderingBudget.current().getMaxElements());
+        if (array.getClass().getComponentType().isPrimitive() && length <= maxElements) {
+            description.appendValue(array);
+            return;
+        }
+        description.appendText("[");
+        final int describedLength = Math.min(length, maxElements);
+        for (int i = 0; i < describedLength; i++) {
+            if (i > 0) {
+                description.appendText(", ");
+            }
+            final Object element = Array.get(array, i);
+            if (element != null && element.getClass().isArray()) {
+                appendArray(description, element);
+            } else {
+                description.appendValue(element);
+            }
+        }
+        if (length > describedLength) {
+            description.appendText(", ...");
+        }
+        description.appendText("]");
+        if (length > describedLength) {
+            description.appendText(" (" + length + " elements)");
+        }
+    }
+
+    @Override
+    public void describeMismatch(final Object actual, final Description description) {
+        if (actual == null || actual.getClass() != expected.getClass()) {
+            super.describeMismatch(actual, description);
+            return;
+        }
+        describeDifference(description, "", expected, actual);
+    }
+
+    /**
+     * Describe the length difference and the first differing element of the
+     * arrays. For nested arrays only the first differing row is described.
+     */
+    private static void describeDifference(final Description description, final String path,
+            final Object expected, final Object actual) {
+        final String prefix = path.isEmpty() ? "" : path + " ";
+        final int expectedLength = Array.getLength(expected);
+        final int actualLength = Array.getLength(actual);
+        boolean first = true;
+        if (expectedLength != actualLength) {
+            description.appendText(prefix + "length was ").appendValue(actualLength).appendText(" instead of ")
+                    .appendValue(expectedLength);
+            first = false;
+        }
+        final int index = findFirstDifference(expected, actual);
+        if (index < 0) {
+            return;
+        }
+        if (!first) {
+            description.appendText(", ");
+        }
+        final String elementPath = path + "[" + index + "]";
+        final Object expectedElement = Array.get(expected, index);
+        final Object actualElement = Array.get(actual, index);
+        if (expectedElement != null && actualElement != null && expectedElement.getClass().isArray()
+                && expectedElement.getClass() == actualElement.getClass()) {
+            describeDifference(description, elementPath, expectedElement, actualElement);
+            return;
+        }
+        description.appendText(elementPath + " was ");
+        appendElement(description, actualElement);
+        description.appendText(" instead of ");
+        appendElement(description, expectedElement);
+        if (!actual.getClass().getComponentType().isArray()) {
+            description.appendText(" in ");
+            appendContext(description, actual, index);
+        }
+    }
+
+    /**
+     * Find the first index within the common length where the arrays differ.
+     *
+     * @return the index or {@code -1} if the common prefix is equal
+     */
+    private static int findFirstDifference(final Object expected, final Object actual) {
+        final int commonLength = Math.min(Array.getLength(expected), Array.getLength(actual));
+        if (expected.getClass().getComponentType().isPrimitive()) {
+            final int index = mismatch(expected, actual);
+            return index < commonLength ? index : -1;
+        }
+        final Object[] expectedRows = (Object[]) expected;
+        final Object[] actualRows = (Object[]) actual;
+        for (int i = 0; i < commonLength; i++) {
+            if (!arraysEqual(expectedRows[i], actualRows[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void appendElement(final Description description, final Object element) {
+        if (element != null && element.getClass().isArray()) {
+            appendArray(description, element);
+        } else {
+            description.appendValue(element);
+        }
+    }
+
+    private static void appendContext(final Description description, final Object array, final int index) {
+        final int from = Math.max(0, index - CONTEXT_ELEMENTS);
+        final int to = Math.min(Array.getLength(array), index + CONTEXT_ELEMENTS + 1);
+        description.appendText("[");
+        if (from > 0) {
+            description.appendText("..., ");
+        }
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                description.appendText(", ");
+            }
+            description.appendValue(Array.get(array, i));
+        }
+        if (to < Array.getLength(array)) {
+            description.appendText(", ...");
+        }
+        description.appendText("]");
+    }
+}
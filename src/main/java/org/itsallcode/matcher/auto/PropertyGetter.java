@@ -0,0 +1,193 @@
+package org.itsallcode.matcher.auto;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A getter method of a model class together with the name of the property it
+ * returns. Instances are created once per class by {@link AutoConfigBuilder}
+ * and shared by all matchers for this class.
+ * <p>
+ * The getter is invoked via an accessor generated with
+ * {@link LambdaMetafactory}, so that reading a property costs about the same as
+ * a direct method call. If the declaring class is not accessible, the accessor
+ * falls back to a {@link MethodHandle} created after making the method
+ * accessible.
+ */
+final class PropertyGetter {
+    private static final Logger LOG = Logger.getLogger(PropertyGetter.class.getName());
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final String propertyName;
+    private final Method method;
+    private final Accessor accessor;
+
+    private PropertyGetter(final String propertyName, final Method method, final Accessor accessor) {
+        this.propertyName = propertyName;
+        this.method = method;
+        this.accessor = accessor;
+    }
+
+    static PropertyGetter create(final String propertyName, final Method method) {
+        return new PropertyGetter(propertyName, method, createAccessor(method));
+    }
+
+    String getPropertyName() {
+        return propertyName;
+    }
+
+    Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Invoke the getter on the given object.
+     *
+     * @param <T>    type of the object
+     * @param <P>    type of the property
+     * @param object the object
+     * @return the property value
+     * @throws AssertionError        if the object is not an instance of the class
+     *                               declaring the getter
+     * @throws IllegalStateException if the getter throws an exception
+     * @throws Error                 if the getter throws an {@link Error}
+     */
+    @SuppressWarnings({ "unchecked", "java:S1181" }) // Getter may throw any exception
+    <T, P> P getValue(final T object) {
+        try {
+            return (P) accessor.get(object);
+        } catch (final Throwable e) {
+            throw accessFailed(object, e);
+        }
+    }
+
+    /**
+     * Create the exception for a failed access to the property of the given
+     * object. {@link Error}s like {@link OutOfMemoryError} are not wrapped but
+     * rethrown.
+     *
+     * @param object the object
+     * @param cause  the exception thrown by the accessor
+     * @return an {@link IllegalStateException} wrapping the cause
+     * @throws AssertionError if the object is not an instance of the class
+     *                        declaring the getter
+     * @throws Error          if the cause is an {@link Error}
+     */
+    IllegalStateException accessFailed(final Object object, final Throwable cause) {
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        final Class<?> declaringClass = method.getDeclaringClass();
+        if (cause instanceof ClassCastException && !declaringClass.isInstance(object)) {
+            throw new AssertionError("Expected object of type " + declaringClass.getName() + " but got "
+                    + object.getClass().getName() + ": " + object.toString(), cause);
+        }
+        return new IllegalStateException("Error invoking method " + method + " on object " + object + " of type "
+                + object.getClass().getName(), cause);
+    }
+
+    private static Accessor createAccessor(final Method method) {
+        return createAccessor(method, Accessor.class, Object.class, getter -> object -> getter.invokeExact(object));
+    }
+
+    /**
+     * Create an accessor for the given getter implementing a functional
+     * interface with a single method that takes the object as argument.
+     *
+     * @param <A>             type of the accessor
+     * @param method          the getter
+     * @param accessorType    the functional interface implemented by the
+     *                        accessor
+     * @param returnType      the return type of the interface method
+     * @param fallbackFactory creates the accessor from a {@link MethodHandle} of
+     *                        type {@code (Object)returnType} in case generating a
+     *                        lambda is not possible
+     * @return the new accessor
+     */
+    static <A> A createAccessor(final Method method, final Class<A> accessorType, final Class<?> returnType,
+            final Function<MethodHandle, A> fallbackFactory) {
+        final MethodType accessorMethodType = MethodType.methodType(returnType, Object.class);
+        if (isVisible(method.getDeclaringClass())) {
+            LOOKUP.lookupClass().getModule().addReads(method.getDeclaringClass().getModule());
+            try {
+                return createLambdaAccessor(LOOKUP.unreflect(method), accessorType, accessorMethodType);
+            } catch (final IllegalAccessException | LambdaConversionException e) {
+                LOG.log(Level.FINEST, e, () -> "Method " + method + " is not accessible, using method handle");
+            }
+        }
+        try {
+            return fallbackFactory.apply(createMethodHandle(method).asType(accessorMethodType));
+        } catch (final IllegalAccessException | RuntimeException e) {
+            LOG.log(Level.FINE, e, () -> "Failed to create accessor for method " + method);
+            return fallbackFactory.apply(MethodHandles.dropArguments(
+                    MethodHandles.throwException(returnType, e.getClass()).bindTo(e), 0, Object.class));
+        }
+    }
+
+    /**
+     * Generated lambda classes resolve the declaring class via the class loader
+     * of this library, so they can only be used if the class is visible there.
+     *
+     * @param type the class
+     * @return {@code true} if the class is visible from the class loader of this
+     *         library
+     */
+    static boolean isVisible(final Class<?> type) {
+        try {
+            return Class.forName(type.getName(), false, LOOKUP.lookupClass().getClassLoader()) == type;
+        } catch (final ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("java:S1181") // Factory may throw any exception
+    private static <A> A createLambdaAccessor(final MethodHandle getter, final Class<A> accessorType,
+            final MethodType accessorMethodType) throws LambdaConversionException {
+        final Method accessorMethod = getSingleAbstractMethod(accessorType);
+        final MethodType instantiatedMethodType = accessorMethodType.returnType().isPrimitive()
+                ? getter.type().changeReturnType(accessorMethodType.returnType())
+                : getter.type().wrap();
+        final CallSite callSite = LambdaMetafactory.metafactory(LOOKUP, accessorMethod.getName(),
+                MethodType.methodType(accessorType), accessorMethodType, getter, instantiatedMethodType);
+        try {
+            return accessorType.cast(callSite.getTarget().invoke());
+        } catch (final Error e) {
+            throw e;
+        } catch (final Throwable e) {
+            throw new IllegalStateException("Failed to create accessor for " + getter, e);
+        }
+    }
+
+    private static Method getSingleAbstractMethod(final Class<?> functionalInterface) {
+        for (final Method method : functionalInterface.getMethods()) {
+            if (Modifier.isAbstract(method.getModifiers())) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("No abstract method found in " + functionalInterface.getName());
+    }
+
+    @SuppressWarnings("java:S3011") // Need to use reflection and setAccessible()
+    private static MethodHandle createMethodHandle(final Method method) throws IllegalAccessException {
+        method.setAccessible(true);
+        return LOOKUP.unreflect(method);
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyGetter [propertyName=" + propertyName + ", method=" + method + "]";
+    }
+
+    /**
+     * Reads the property value from an object.
+     */
+    @FunctionalInterface
+    interface Accessor {
+        @SuppressWarnings("java:S112") // Getter may throw any exception
+        Object get(Object object) throws Throwable;
+    }
+}
@@ -0,0 +1,72 @@
+package org.itsallcode.matcher.auto;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Detects records and their component accessors on Java versions before 16
+ * using reflection. The multi-release JAR contains a variant of this class for
+ * Java 16 and later that uses the record API directly.
+ */
+final class RecordSupport {
+    private static final Logger LOG = Logger.getLogger(RecordSupport.class.getName());
+    private static final Method IS_RECORD = findClassMethod("isRecord");
+    private static final Method GET_RECORD_COMPONENTS = findClassMethod("getRecordComponents");
+
+    private RecordSupport() {
+        // not instantiable
+    }
+
+    private static Method findClassMethod(final String name) {
+        try {
+            return Class.class.getMethod(name);
+        } catch (NoSuchMethodException | SecurityException e) {
+            LOG.log(Level.FINEST, e, () -> "Method Class." + name + "() does not exist, records are not supported");
+            return null;
+        }
+    }
+
+    /**
+     * Check if the given type is a record.
+     *
+     * @param type the type to check
+     * @return {@code true} if the type is a record
+     */
+    static boolean isRecord(final Class<?> type) {
+        if (IS_RECORD == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_RECORD.invoke(type);
+        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+            LOG.log(Level.WARNING, e, () -> "Invocation of " + IS_RECORD + " failed for " + type);
+            return false;
+        }
+    }
+
+    /**
+     * Get the accessor methods of the components of the given record in
+     * declaration order. {@link AutoConfigBuilder} sorts them like the getters
+     * of other classes.
+     *
+     * @param recordType the record type
+     * @return accessor methods
+     */
+    static List<Method> getAccessors(final Class<?> recordType) {
+        try {
+            final Object[] components = (Object[]) GET_RECORD_COMPONENTS.invoke(recordType);
+            final List<Method> accessors = new ArrayList<>(components.length);
+            for (final Object component : components) {
+                accessors.add((Method) component.getClass().getMethod("getAccessor").invoke(component));
+            }
+            return accessors;
+        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException
+                | NoSuchMethodException e) {
+            throw new IllegalStateException("Failed to get components of record " + recordType.getName(), e);
+        }
+    }
+}
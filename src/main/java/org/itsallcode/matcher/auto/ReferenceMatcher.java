@@ -0,0 +1,99 @@
+package org.itsallcode.matcher.auto;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.itsallcode.matcher.BaseTypeSafeDiagnosingMatcher;
+import org.itsallcode.matcher.Mismatch;
+import org.itsallcode.matcher.MismatchPath;
+import org.itsallcode.matcher.MismatchSink;
+import org.itsallcode.matcher.MismatchSource;
+
+/**
+ * A matcher for an expected object of an object graph that delegates to the
+ * matcher created for the object.
+ * <p>
+ * When the object is reached at more than one path in the graph, the
+ * comparison is recorded in the {@link GraphScope}, so that cycles terminate
+ * and shared objects are compared only once. The matcher at the first path is
+ * described like the matcher created for the object, the matchers at other
+ * paths are described by the first path.
+ *
+ * @param <T> type of the expected object
+ */
+final class ReferenceMatcher<T> extends BaseMatcher<T> implements MismatchSource {
+    private final ConstructionContext.Node node;
+    private final boolean describeByPath;
+
+    private ReferenceMatcher(final ConstructionContext.Node node, final boolean describeByPath) {
+        this.node = node;
+        this.describeByPath = describeByPath;
+    }
+
+    /**
+     * Create a matcher for a reference that is described by the path of the
+     * referenced object.
+     */
+    static <T> ReferenceMatcher<T> byPath(final ConstructionContext.Node node) {
+        return new ReferenceMatcher<>(node, true);
+    }
+
+    /**
+     * Create a matcher for the first path of an object that is described like
+     * the matcher created for the object.
+     */
+    static <T> ReferenceMatcher<T> target(final ConstructionContext.Node node) {
+        return new ReferenceMatcher<>(node, false);
+    }
+
+    @Override
+    public boolean matches(final Object actual) {
+        if (!node.isRoot() && !node.isReferenced()) {
+            return BaseTypeSafeDiagnosingMatcher.matchesWithoutDescription(node.getMatcher(), actual);
+        }
+        final GraphScope scope = GraphScope.enter();
+        try {
+            if (!node.isReferenced()) {
+                return BaseTypeSafeDiagnosingMatcher.matchesWithoutDescription(node.getMatcher(), actual);
+            }
+            return scope.matches(node, actual);
+        } finally {
+            scope.exit();
+        }
+    }
+
+    @Override
+    public void describeTo(final Description description) {
+        if (describeByPath) {
+            description.appendText("<reference to " + node.getPath() + ">");
+        } else {
+            node.getMatcher().describeTo(description);
+        }
+    }
+
+    @Override
+    public void describeMismatch(final Object actual, final Description description) {
+        final GraphScope scope = GraphScope.enter();
+        try {
+            scope.describeMismatch(node, actual, description);
+        } finally {
+            scope.exit();
+        }
+    }
+
+    /**
+     * Collect the mismatches of each compared pair only once. Unlike
+     * {@link #matches(Object)} this records all pairs in the
+     * {@link GraphScope}, because a node may be referenced by matchers that are
+     * created lazily while collecting.
+     */
+    @Override
+    public boolean collectMismatches(final Object actual, final MismatchPath path,
+            final MismatchSink collector) {
+        final GraphScope scope = GraphScope.enter();
+        try {
+            return scope.collectMismatches(node, actual, path, collector);
+        } finally {
+            scope.exit();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package org.itsallcode.matcher.auto;
+
+import java.lang.ref.WeakReference;
+import java.nio.file.DirectoryStream;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.stream.BaseStream;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.itsallcode.matcher.RenderingBudget;
+
+/**
+ * Matches a sequence that can only be traversed once, i.e. a {@link BaseStream}
+ * like {@link java.util.stream.Stream}, an {@link Iterator} or a single-use
+ * {@link Iterable} like {@link DirectoryStream}.
+ * <p>
+ * The actual sequence is consumed exactly once and compared element by element
+ * with the expected sequence without storing the actual elements. Comparison
+ * stops at the first difference. The result of the last compared sequence is
+ * recorded, so that describing the mismatch of the same sequence does not
+ * traverse it again. Matching the same {@link BaseStream}, {@link Iterator} or
+ * {@link DirectoryStream} again reuses the recorded result, too, e.g. when a
+ * getter returns a stored stream and is called again while describing the
+ * mismatch of the object containing it. The result only keeps a weak reference
+ * to the actual sequence and the elements at the first difference. The
+ * mismatch is described from these elements when it is reported, so
+ * {@link #matches(Object)} does not create any description. The actual
+ * sequence is not closed.
+ * <p>
+ * Expected sequences that can only be traversed once are copied when creating
+ * the matcher. Expected {@link Iterable}s passed to
+ * {@link AutoMatcher#containsSequence(Iterable)} are traversed for each
+ * comparison instead, so that the heap stays bounded even for very long
+ * sequences.
+ */
+final class StreamMatcher extends BaseMatcher<Object> {
+    /** Maximum number of elements shown when describing the expected sequence. */
+    private static final int MAX_DESCRIBED_ELEMENTS = 32;
+
+    private final Iterable<?> expected;
+    private final ElementMatchers elementMatchers;
+    private volatile Result lastResult;
+
+    private StreamMatcher(final Iterable<?> expected, final ElementMatchers elementMatchers) {
+        this.expected = expected;
+        this.elementMatchers = elementMatchers;
+    }
+
+    /**
+     * Create a new matcher for an expected sequence that can only be traversed
+     * once. The expected elements are copied.
+     *
+     * @param expected the expected {@link BaseStream}, {@link Iterator} or
+     *                 {@link Iterable}
+     * @return the new matcher
+     */
+    static StreamMatcher forSingleUse(final Object expected) {
+        final List<Object> elements = new ArrayList<>();
+        iterator(expected).forEachRemaining(elements::add);
+        return new StreamMatcher(elements, new CachedElementMatchers(elements));
+    }
+
+    /**
+     * Create a new matcher for an expected sequence that can be traversed
+     * repeatedly. The expected elements are not copied and matchers for the
+     * elements are created for each comparison.
+     *
+     * @param expected the expected sequence
+     * @return the new matcher
+     */
+    static StreamMatcher forIterable(final Iterable<?> expected) {
+        return new StreamMatcher(expected, (index, element) -> AutoMatcher.equalTo(element));
+    }
+
+    /**
+     * Check if the given value is a sequence supported as actual value.
+     *
+     * @param actual the actual value
+     * @return {@code true} if the value is supported
+     */
+    static boolean isSupported(final Object actual) {
+        return actual instanceof BaseStream || actual instanceof Iterator || actual instanceof Iterable;
+    }
+
+    /**
+     * Get an iterator over the given sequence.
+     *
+     * @param sequence a {@link BaseStream}, {@link Iterator} or {@link Iterable}
+     * @return the iterator
+     */
+    static Iterator<?> iterator(final Object sequence) {
+        if (sequence instanceof BaseStream) {
+            return ((BaseStream<?, ?>) sequence).iterator();
+        }
+        if (sequence instanceof Iterator) {
+            return (Iterator<?>) sequence;
+        }
+        return ((Iterable<?>) sequence).iterator();
+    }
+
+    @Override
+    public boolean matches(final Object actual) {
+        final Result result = isSingleUse(actual) ? recordedResult(actual) : null;
+        return (result != null ? result : compare(actual)).kind == Kind.MATCH;
+    }
+
+    private static boolean isSingleUse(final Object actual) {
+        return actual instanceof BaseStream || actual instanceof Iterator || actual instanceof DirectoryStream;
+    }
+
+    @Override
+    public void describeTo(final Description description) {
+        description.appendText("sequence containing [");
+        final int maxElements = Math.min(MAX_DESCRIBED_ELEMENTS, RenderingBudget.current().getMaxElements());
+        final Iterator<?> expectedIterator = expected.iterator();
+        int index = 0;
+        while (expectedIterator.hasNext() && index < maxElements) {
+            if (index > 0) {
+                description.appendText(", ");
+            }
+            describeElement(index, expectedIterator.next(), description);
+            index++;
+        }
+        if (expectedIterator.hasNext()) {
+            description.appendText(", ...");
+        }
+        description.appendText("]");
+    }
+
+    private void describeElement(final int index, final Object expectedElement, final Description description) {
+        if (expectedElement == null) {
+            description.appendText("null");
+        } else if (isSimple(expectedElement)) {
+            description.appendValue(expectedElement);
+        } else {
+            description.appendDescriptionOf(elementMatchers.get(index, expectedElement));
+        }
+    }
+
+    @Override
+    public void describeMismatch(final Object actual, final Description description) {
+        final Result recordedResult = recordedResult(actual);
+        final Result result = recordedResult != null ? recordedResult : compare(actual);
+        switch (result.kind) {
+        case UNSUPPORTED:
+            description.appendText("was ").appendValue(actual);
+            break;
+        case MISSING:
+            description.appendText("no item was ");
+            describeElement(result.index, result.expectedElement, description);
+            break;
+        case UNEXPECTED:
+            description.appendText("not matched: ").appendValue(result.actualElement);
+            break;
+        case DIFFERENT:
+            describeElementMismatch(result, description);
+            break;
+        case MATCH:
+        default:
+            break;
+        }
+    }
+
+    private void describeElementMismatch(final Result result, final Description description) {
+        description.appendText("item " + result.index + ": ");
+        if (isSimple(result.expectedElement)) {
+            description.appendText("was ").appendValue(result.actualElement);
+        } else {
+            elementMatchers.get(result.index, result.expectedElement).describeMismatch(result.actualElement,
+                    description);
+        }
+    }
+
+    /**
+     * Get the recorded result if the last compared sequence is the given one.
+     */
+    private Result recordedResult(final Object actual) {
+        final Result result = this.lastResult;
+        return actual != null && result != null && result.actual.get() == actual ? result : null;
+    }
+
+    /**
+     * Consume the actual sequence and record the result.
+     */
+    private Result compare(final Object actual) {
+        final Result result = findMismatch(actual);
+        this.lastResult = result;
+        return result;
+    }
+
+    /**
+     * Compare the actual sequence element by element with the expected
+     * sequence. The mismatch is only described when it is reported.
+     *
+     * @return the first difference
+     */
+    private Result findMismatch(final Object actual) {
+        if (!isSupported(actual)) {
+            return new Result(actual, Kind.UNSUPPORTED, -1, null, null);
+        }
+        final Iterator<?> expectedIterator = expected.iterator();
+        final Iterator<?> actualIterator = iterator(actual);
+        int index = 0;
+        while (expectedIterator.hasNext()) {
+            final Object expectedElement = expectedIterator.next();
+            if (!actualIterator.hasNext()) {
+                return new Result(actual, Kind.MISSING, index, expectedElement, null);
+            }
+            final Object actualElement = actualIterator.next();
+            if (!elementMatches(index, expectedElement, actualElement)) {
+                return new Result(actual, Kind.DIFFERENT, index, expectedElement, actualElement);
+            }
+            index++;
+        }
+        if (actualIterator.hasNext()) {
+            return new Result(actual, Kind.UNEXPECTED, index, null, actualIterator.next());
+        }
+        return new Result(actual, Kind.MATCH, index, null, null);
+    }
+
+    private boolean elementMatches(final int index, final Object expectedElement, final Object actualElement) {
+        if (isSimple(expectedElement)) {
+            return actualElement == null ? expectedElement == null : actualElement.equals(expectedElement);
+        }
+        return elementMatchers.get(index, expectedElement).matches(actualElement);
+    }
+
+    private static boolean isSimple(final Object element) {
+        return element == null || MatchStrategy.isSimpleType(element.getClass());
+    }
+
+    /**
+     * Provides the matcher for an expected element.
+     */
+    @FunctionalInterface
+    private interface ElementMatchers {
+        Matcher<Object> get(int index, Object expectedElement);
+    }
+
+    /**
+     * Creates the matchers for copied expected elements when they are used for
+     * the first time in the context of the object graph.
+     */
+    private static final class CachedElementMatchers implements ElementMatchers {
+        private final AtomicReferenceArray<Matcher<Object>> matchers;
+        private final Function<Map.Entry<Integer, Object>, Matcher<Object>> matcherFactory;
+
+        private CachedElementMatchers(final List<Object> elements) {
+            this.matchers = new AtomicReferenceArray<>(elements.size());
+            this.matcherFactory = ConstructionContext.capture("",
+                    (final Map.Entry<Integer, Object> element) -> ConstructionContext
+                            .inPath("[" + element.getKey() + "]", () -> AutoMatcher.equalTo(element.getValue())));
+        }
+
+        @Override
+        public Matcher<Object> get(final int index, final Object expectedElement) {
+            final Matcher<Object> matcher = matchers.get(index);
+            if (matcher != null) {
+                return matcher;
+            }
+            return create(index, expectedElement);
+        }
+
+        private synchronized Matcher<Object> create(final int index, final Object expectedElement) {
+            Matcher<Object> matcher = matchers.get(index);
+            if (matcher == null) {
+                matcher = matcherFactory.apply(new AbstractMap.SimpleImmutableEntry<>(index, expectedElement));
+                matchers.set(index, matcher);
+            }
+            return matcher;
+        }
+    }
+
+    private enum Kind {
+        MATCH, UNSUPPORTED, MISSING, UNEXPECTED, DIFFERENT
+    }
+
+    /**
+     * The result of comparing an actual sequence. Only the elements needed for
+     * describing the first difference are kept.
+     */
+    private static final class Result {
+        private final WeakReference<Object> actual;
+        private final Kind kind;
+        private final int index;
+        private final Object expectedElement;
+        private final Object actualElement;
+
+        private Result(final Object actual, final Kind kind, final int index, final Object expectedElement,
+                final Object actualElement) {
+            this.actual = new WeakReference<>(actual);
+            this.kind = kind;
+            this.index = index;
+            this.expectedElement = expectedElement;
+            this.actualElement = actualElement;
+        }
+    }
+}
@@ -0,0 +1,651 @@
+package org.itsallcode.matcher.auto;
+
+import java.lang.invoke.MethodHandle;
+import java.util.*;
+
+/**
+ * Compares two objects property by property using the getters detected by
+ * {@link AutoConfigBuilder} without creating any matchers.
+ * <p>
+ * A comparator is created once per class. For public classes the comparison
+ * of all properties is generated as a class by {@link ComparatorGenerator},
+ * which invokes the getters directly and compares primitive values without
+ * boxing. For other classes each property is compared by a specialized
+ * {@link PropertyComparator} in a loop: properties of primitive type are read
+ * via generated accessors returning the primitive value and compared without
+ * boxing. Property values of model types are compared recursively using the
+ * comparator of their class. Arrays, iterables and streams are compared
+ * element by element, maps by looking up the expected keys, sets by assigning
+ * each actual element to a matching expected element and optionals by
+ * comparing their values.
+ * <p>
+ * The comparison result is the same as the result of the matcher created by
+ * {@link AutoMatcher#equalTo(Object)}. For types with nested objects the
+ * compared pairs of objects are tracked by identity, so that comparing cyclic
+ * graphs terminates and objects shared in the graph are compared only once.
+ *
+ * @param <T> the compared type
+ */
+final class TypeComparator<T> {
+    private static final ClassValue<TypeComparator<?>> COMPARATORS = new ClassValue<>() {
+        @Override
+        protected TypeComparator<?> computeValue(final Class<?> type) {
+            return create(type);
+        }
+    };
+
+    private final PropertyComparator[] properties;
+    private final PropertiesComparison generatedComparison;
+    private final boolean hasNestedObjects;
+
+    private TypeComparator(final PropertyComparator[] properties, final PropertiesComparison generatedComparison,
+            final boolean hasNestedObjects) {
+        this.properties = properties;
+        this.generatedComparison = generatedComparison;
+        this.hasNestedObjects = hasNestedObjects;
+    }
+
+    private static TypeComparator<?> create(final Class<?> type) {
+        final List<PropertyGetter> getters = AutoConfigBuilder.getGetters(type);
+        if (getters.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Failed to build MatcherConfig: Class " + type.getName() + " has no properties.");
+        }
+        final PropertyComparator[] properties = new PropertyComparator[getters.size()];
+        boolean hasNestedObjects = false;
+        for (int i = 0; i < properties.length; i++) {
+            properties[i] = createPropertyComparator(getters.get(i));
+            hasNestedObjects |= !isSimpleType(getters.get(i).getMethod().getReturnType());
+        }
+        return new TypeComparator<>(properties, ComparatorGenerator.generate(type, getters), hasNestedObjects);
+    }
+
+    private static boolean isSimpleType(final Class<?> type) {
+        return type.isPrimitive() || type.isEnum() || MatchStrategy.isSimpleType(type);
+    }
+
+    private static PropertyComparator createPropertyComparator(final PropertyGetter getter) {
+        final Class<?> type = getter.getMethod().getReturnType();
+        if (type == Integer.TYPE || type == Short.TYPE || type == Byte.TYPE || type == Character.TYPE) {
+            return new IntPropertyComparator(getter);
+        }
+        if (type == Long.TYPE) {
+            return new LongPropertyComparator(getter);
+        }
+        if (type == Double.TYPE || type == Float.TYPE) {
+            return new DoublePropertyComparator(getter);
+        }
+        if (type == Boolean.TYPE) {
+            return new BooleanPropertyComparator(getter);
+        }
+        return new ObjectPropertyComparator(getter);
+    }
+
+    /**
+     * Get the comparator for the given type.
+     *
+     * @param <T>  compared type
+     * @param type compared type
+     * @return the comparator
+     */
+    @SuppressWarnings("unchecked")
+    static <T> TypeComparator<T> of(final Class<T> type) {
+        return (TypeComparator<T>) COMPARATORS.get(type);
+    }
+
+    /**
+     * Check if all properties of the actual object match the properties of the
+     * expected object.
+     *
+     * @param expected the expected object
+     * @param actual   the actual object
+     * @return {@code true} if all properties match
+     */
+    boolean matches(final T expected, final T actual) {
+        if (!hasNestedObjects) {
+            return matches(expected, actual, null);
+        }
+        final VisitedPairs visited = new VisitedPairs();
+        visited.add(expected, actual);
+        return matches(expected, actual, visited);
+    }
+
+    private boolean matches(final T expected, final T actual, final VisitedPairs visited) {
+        if (generatedComparison != null) {
+            return generatedComparison.matches(expected, actual, visited);
+        }
+        for (final PropertyComparator property : properties) {
+            if (!property.matches(expected, actual, visited)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the getters of the properties whose values don't match. Each property
+     * is compared on its own, so all properties are compared even if one of
+     * them does not match.
+     *
+     * @param expected the expected object
+     * @param actual   the actual object
+     * @return the getters of the mismatching properties in the order in which
+     *         they are compared
+     */
+    List<PropertyGetter> getMismatchingProperties(final T expected, final T actual) {
+        final List<PropertyGetter> mismatchingProperties = new ArrayList<>();
+        for (final PropertyComparator property : properties) {
+            final VisitedPairs visited = hasNestedObjects ? new VisitedPairs() : null;
+            if (visited != null) {
+                visited.add(expected, actual);
+            }
+            if (!property.matches(expected, actual, visited)) {
+                mismatchingProperties.add(property.getter);
+            }
+        }
+        return mismatchingProperties;
+    }
+
+    /**
+     * Check if the actual value matches the expected value.
+     *
+     * @param expected the expected value
+     * @param actual   the actual value
+     * @return {@code true} if the values match
+     */
+    static boolean valuesMatch(final Object expected, final Object actual) {
+        return valuesMatch(expected, actual, null);
+    }
+
+    /**
+     * Check if the actual value matches the expected value. This is invoked by
+     * the classes generated by {@link ComparatorGenerator} for properties that
+     * are not of primitive type.
+     *
+     * @param expected the expected value
+     * @param actual   the actual value
+     * @param visited  the compared pairs of nested objects or {@code null} if
+     *                 they are not recorded
+     * @return {@code true} if the values match
+     */
+    static boolean valuesMatch(final Object expected, final Object actual, final VisitedPairs visited) {
+        if (expected == null || actual == null) {
+            return expected == actual;
+        }
+        switch (MatchStrategy.of(expected.getClass())) {
+        case SIMPLE:
+            return actual.equals(expected);
+        case ARRAY:
+            return arraysMatch(expected, actual, visited);
+        case MAP:
+            return mapsMatch((Map<?, ?>) expected, actual, visited);
+        case SET:
+            return setsMatch((Set<?>) expected, actual, visited);
+        case ITERABLE:
+            return iterablesMatch((Iterable<?>) expected, actual, visited);
+        case STREAM:
+            return streamsMatch(expected, actual, visited);
+        case OPTIONAL:
+            return optionalsMatch((Optional<?>) expected, actual, visited);
+        case BEAN:
+        default:
+            return beansMatch(expected, actual, visited);
+        }
+    }
+
+    /**
+     * Compare two beans. A pair that was already compared or is being compared
+     * is treated as matching when it is reached again. This is correct because
+     * any mismatch stops the whole comparison, except for mismatching
+     * candidates of a set element or map entry, whose pairs are removed again,
+     * see {@link #candidateMatches(Object, Object, Object, Object, VisitedPairs)}.
+     * Beans without nested objects can't be part of a cycle, so they are not
+     * recorded.
+     */
+    private static boolean beansMatch(final Object expected, final Object actual, final VisitedPairs visited) {
+        @SuppressWarnings("unchecked")
+        final TypeComparator<Object> comparator = (TypeComparator<Object>) of(expected.getClass());
+        if (visited == null || !comparator.hasNestedObjects) {
+            return comparator.matches(expected, actual);
+        }
+        if (!visited.add(expected, actual)) {
+            return true;
+        }
+        return comparator.matches(expected, actual, visited);
+    }
+
+    /**
+     * Compare two arrays like {@link PrimitiveArrayMatcher} for primitive arrays
+     * and like {@link ContainsInOrderMatcher#forArray(Object[])} for object
+     * arrays.
+     */
+    private static boolean arraysMatch(final Object expected, final Object actual, final VisitedPairs visited) {
+        if (PrimitiveArrayMatcher.isPrimitiveArray(expected.getClass())) {
+            return PrimitiveArrayMatcher.arraysEqual(expected, actual);
+        }
+        if (!(actual instanceof Object[])) {
+            return false;
+        }
+        final Object[] expectedElements = (Object[]) expected;
+        final Object[] actualElements = (Object[]) actual;
+        if (expectedElements.length != actualElements.length) {
+            return false;
+        }
+        for (int i = 0; i < expectedElements.length; i++) {
+            if (!valuesMatch(expectedElements[i], actualElements[i], visited)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean iterablesMatch(final Iterable<?> expected, final Object actual,
+            final VisitedPairs visited) {
+        if (!(actual instanceof Iterable)) {
+            return false;
+        }
+        return sequencesMatch(expected.iterator(), ((Iterable<?>) actual).iterator(), visited);
+    }
+
+    /**
+     * Compare two sequences that can only be traversed once like
+     * {@link StreamMatcher}. Both sequences are consumed.
+     */
+    private static boolean streamsMatch(final Object expected, final Object actual, final VisitedPairs visited) {
+        if (!StreamMatcher.isSupported(actual)) {
+            return false;
+        }
+        return sequencesMatch(StreamMatcher.iterator(expected), StreamMatcher.iterator(actual), visited);
+    }
+
+    private static boolean sequencesMatch(final Iterator<?> expectedIterator, final Iterator<?> actualIterator,
+            final VisitedPairs visited) {
+        while (expectedIterator.hasNext()) {
+            if (!actualIterator.hasNext()
+                    || !valuesMatch(expectedIterator.next(), actualIterator.next(), visited)) {
+                return false;
+            }
+        }
+        return !actualIterator.hasNext();
+    }
+
+    private static boolean optionalsMatch(final Optional<?> expected, final Object actual,
+            final VisitedPairs visited) {
+        if (!(actual instanceof Optional)) {
+            return false;
+        }
+        final Optional<?> actualOptional = (Optional<?>) actual;
+        if (expected.isEmpty()) {
+            return actualOptional.isEmpty();
+        }
+        return actualOptional.isPresent() && valuesMatch(expected.get(), actualOptional.get(), visited);
+    }
+
+    /**
+     * Compare two maps like {@link MapContainsMatcher}: keys of simple type are
+     * looked up in the actual map, other keys are searched in all entries.
+     */
+    private static boolean mapsMatch(final Map<?, ?> expected, final Object actual, final VisitedPairs visited) {
+        if (!(actual instanceof Map)) {
+            return false;
+        }
+        final Map<?, ?> actualMap = (Map<?, ?>) actual;
+        if (actualMap.size() != expected.size()) {
+            return false;
+        }
+        for (final Map.Entry<?, ?> entry : expected.entrySet()) {
+            if (!entryMatches(entry.getKey(), entry.getValue(), actualMap, visited)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean entryMatches(final Object key, final Object value, final Map<?, ?> actualMap,
+            final VisitedPairs visited) {
+        final Object actualValue = MapContainsMatcher.isHashable(key) ? MapContainsMatcher.lookUp(actualMap, key)
+                : MapContainsMatcher.UNSUPPORTED;
+        if (actualValue != MapContainsMatcher.UNSUPPORTED) {
+            return actualValue != MapContainsMatcher.MISSING && valuesMatch(value, actualValue, visited);
+        }
+        for (final Map.Entry<?, ?> actualEntry : actualMap.entrySet()) {
+            if (candidateMatches(key, actualEntry.getKey(), value, actualEntry.getValue(), visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compare two sets like {@link ContainsInAnyOrderMatcher}: the actual
+     * iterable matches if each of its elements can be assigned to a different
+     * matching expected element.
+     */
+    private static boolean setsMatch(final Set<?> expected, final Object actual, final VisitedPairs visited) {
+        if (!(actual instanceof Iterable)) {
+            return false;
+        }
+        final Object[] expectedElements = expected.toArray();
+        final List<Object> actualElements = new ArrayList<>(expectedElements.length);
+        for (final Object element : (Iterable<?>) actual) {
+            if (actualElements.size() == expectedElements.length) {
+                return false;
+            }
+            actualElements.add(element);
+        }
+        return actualElements.size() == expectedElements.length
+                && new ElementAssignment(expectedElements, actualElements.toArray(), visited).assignAll();
+    }
+
+    /**
+     * Compare a candidate for an expected set element or map entry, optionally
+     * consisting of a key and a value. Unlike other mismatches a mismatching
+     * candidate does not stop the comparison, so the pairs recorded while
+     * comparing it are removed again.
+     */
+    private static boolean candidateMatches(final Object expectedKey, final Object actualKey,
+            final Object expectedValue, final Object actualValue, final VisitedPairs visited) {
+        final int mark = visited == null ? 0 : visited.size();
+        if (valuesMatch(expectedKey, actualKey, visited) && valuesMatch(expectedValue, actualValue, visited)) {
+            return true;
+        }
+        if (visited != null) {
+            visited.truncate(mark);
+        }
+        return false;
+    }
+
+    /**
+     * Compares all properties of two objects of the same class. Implemented by
+     * the classes generated by {@link ComparatorGenerator}.
+     */
+    interface PropertiesComparison {
+        /**
+         * Check if all properties of the actual object match the properties of
+         * the expected object.
+         *
+         * @param expected the expected object
+         * @param actual   the actual object
+         * @param visited  the compared pairs of nested objects or {@code null}
+         *                 if they are not recorded
+         * @return {@code true} if all properties match
+         */
+        boolean matches(Object expected, Object actual, VisitedPairs visited);
+    }
+
+    /**
+     * Compares the values of a single property.
+     */
+    private abstract static class PropertyComparator {
+        protected final PropertyGetter getter;
+
+        PropertyComparator(final PropertyGetter getter) {
+            this.getter = getter;
+        }
+
+        abstract boolean matches(Object expected, Object actual, VisitedPairs visited);
+    }
+
+    /**
+     * Compares multiple pairs of values, e.g. the elements of two collections,
+     * like {@link TypeComparator#valuesMatch(Object, Object)}. The compared
+     * pairs of nested objects are recorded across all calls, so objects shared
+     * by the values are compared only once. Stop comparing at the first
+     * mismatch and don't share instances between threads.
+     */
+    static final class Comparison {
+        private final VisitedPairs visited = new VisitedPairs();
+
+        /**
+         * Check if the actual value matches the expected value.
+         *
+         * @param expected the expected value
+         * @param actual   the actual value
+         * @return {@code true} if the values match
+         */
+        boolean valuesMatch(final Object expected, final Object actual) {
+            return TypeComparator.valuesMatch(expected, actual, visited);
+        }
+    }
+
+    /**
+     * Assigns each actual element of a set to a different matching expected
+     * element by searching augmenting paths. Each actual element is first
+     * compared with the expected element at the same position, so sets
+     * iterating their elements in the same order are compared in linear time.
+     */
+    private static final class ElementAssignment {
+        private static final int NONE = -1;
+
+        private final Object[] expected;
+        private final Object[] actual;
+        private final VisitedPairs visited;
+        private final int[] actualOfExpected;
+        private final int[] searchOfExpected;
+        private int search = 0;
+
+        private ElementAssignment(final Object[] expected, final Object[] actual, final VisitedPairs visited) {
+            this.expected = expected;
+            this.actual = actual;
+            this.visited = visited;
+            this.actualOfExpected = new int[expected.length];
+            this.searchOfExpected = new int[expected.length];
+            Arrays.fill(actualOfExpected, NONE);
+        }
+
+        /**
+         * Assign all actual elements. An actual element that can't be assigned
+         * now can't be assigned after assigning further elements either, so
+         * this stops at the first one.
+         *
+         * @return {@code true} if all actual elements are assigned
+         */
+        private boolean assignAll() {
+            for (int item = 0; item < actual.length; item++) {
+                search++;
+                if (!assign(item)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean assign(final int item) {
+            for (int offset = 0; offset < expected.length; offset++) {
+                final int candidate = (item + offset) % expected.length;
+                if (searchOfExpected[candidate] != search) {
+                    searchOfExpected[candidate] = search;
+                    if (candidateMatches(expected[candidate], actual[item], null, null, visited)
+                            && (actualOfExpected[candidate] == NONE || assign(actualOfExpected[candidate]))) {
+                        actualOfExpected[candidate] = item;
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Pairs of expected and actual objects compared by identity. The pairs are
+     * only allocated when the first pair is added. The order in which they are
+     * added is recorded, so that the pairs added after a given point can be
+     * removed.
+     */
+    static final class VisitedPairs {
+        private Map<Object, Map<Object, Boolean>> pairs;
+        private List<Object> addedObjects;
+
+        /**
+         * Add the given pair.
+         *
+         * @return {@code false} if the pair was already added
+         */
+        boolean add(final Object expected, final Object actual) {
+            if (pairs == null) {
+                pairs = new IdentityHashMap<>();
+                addedObjects = new ArrayList<>();
+            }
+            if (pairs.computeIfAbsent(expected, key -> new IdentityHashMap<>()).put(actual, Boolean.TRUE) != null) {
+                return false;
+            }
+            addedObjects.add(expected);
+            addedObjects.add(actual);
+            return true;
+        }
+
+        /**
+         * Get the number of added pairs.
+         */
+        int size() {
+            return addedObjects == null ? 0 : addedObjects.size() / 2;
+        }
+
+        /**
+         * Remove the pairs added after the given number of pairs.
+         */
+        void truncate(final int size) {
+            while (size() > size) {
+                final Object actual = addedObjects.remove(addedObjects.size() - 1);
+                final Object expected = addedObjects.remove(addedObjects.size() - 1);
+                pairs.get(expected).remove(actual);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface IntAccessor {
+        @SuppressWarnings("java:S112") // Getter may throw any exception
+        int get(Object object) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface LongAccessor {
+        @SuppressWarnings("java:S112") // Getter may throw any exception
+        long get(Object object) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface DoubleAccessor {
+        @SuppressWarnings("java:S112") // Getter may throw any exception
+        double get(Object object) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface BooleanAccessor {
+        @SuppressWarnings("java:S112") // Getter may throw any exception
+        boolean get(Object object) throws Throwable;
+    }
+
+    @SuppressWarnings("java:S1181") // Getter may throw any exception
+    private static final class IntPropertyComparator extends PropertyComparator {
+        private final IntAccessor accessor;
+
+        IntPropertyComparator(final PropertyGetter getter) {
+            super(getter);
+            this.accessor = PropertyGetter.createAccessor(getter.getMethod(), IntAccessor.class, Integer.TYPE,
+                    (final MethodHandle handle) -> object -> (int) handle.invokeExact(object));
+        }
+
+        @Override
+        boolean matches(final Object expected, final Object actual, final VisitedPairs visited) {
+            return get(expected) == get(actual);
+        }
+
+        private int get(final Object object) {
+            try {
+                return accessor.get(object);
+            } catch (final Throwable e) {
+                throw getter.accessFailed(object, e);
+            }
+        }
+    }
+
+    @SuppressWarnings("java:S1181") // Getter may throw any exception
+    private static final class LongPropertyComparator extends PropertyComparator {
+        private final LongAccessor accessor;
+
+        LongPropertyComparator(final PropertyGetter getter) {
+            super(getter);
+            this.accessor = PropertyGetter.createAccessor(getter.getMethod(), LongAccessor.class, Long.TYPE,
+                    (final MethodHandle handle) -> object -> (long) handle.invokeExact(object));
+        }
+
+        @Override
+        boolean matches(final Object expected, final Object actual, final VisitedPairs visited) {
+            return get(expected) == get(actual);
+        }
+
+        private long get(final Object object) {
+            try {
+                return accessor.get(object);
+            } catch (final Throwable e) {
+                throw getter.accessFailed(object, e);
+            }
+        }
+    }
+
+    /**
+     * Compares {@code float} and {@code double} properties with the same
+     * semantics as {@link Double#equals(Object)}, i.e. {@code NaN} is equal to
+     * itself and {@code 0.0} is not equal to {@code -0.0}.
+     */
+    @SuppressWarnings("java:S1181") // Getter may throw any exception
+    private static final class DoublePropertyComparator extends PropertyComparator {
+        private final DoubleAccessor accessor;
+
+        DoublePropertyComparator(final PropertyGetter getter) {
+            super(getter);
+            this.accessor = PropertyGetter.createAccessor(getter.getMethod(), DoubleAccessor.class, Double.TYPE,
+                    (final MethodHandle handle) -> object -> (double) handle.invokeExact(object));
+        }
+
+        @Override
+        boolean matches(final Object expected, final Object actual, final VisitedPairs visited) {
+            return Double.doubleToLongBits(get(expected)) == Double.doubleToLongBits(get(actual));
+        }
+
+        private double get(final Object object) {
+            try {
+                return accessor.get(object);
+            } catch (final Throwable e) {
+                throw getter.accessFailed(object, e);
+            }
+        }
+    }
+
+    @SuppressWarnings("java:S1181") // Getter may throw any exception
+    private static final class BooleanPropertyComparator extends PropertyComparator {
+        private final BooleanAccessor accessor;
+
+        BooleanPropertyComparator(final PropertyGetter getter) {
+            super(getter);
+            this.accessor = PropertyGetter.createAccessor(getter.getMethod(), BooleanAccessor.class, Boolean.TYPE,
+                    (final MethodHandle handle) -> object -> (boolean) handle.invokeExact(object));
+        }
+
+        @Override
+        boolean matches(final Object expected, final Object actual, final VisitedPairs visited) {
+            return get(expected) == get(actual);
+        }
+
+        private boolean get(final Object object) {
+            try {
+                return accessor.get(object);
+            } catch (final Throwable e) {
+                throw getter.accessFailed(object, e);
+            }
+        }
+    }
+
+    private static final class ObjectPropertyComparator extends PropertyComparator {
+        ObjectPropertyComparator(final PropertyGetter getter) {
+            super(getter);
+        }
+
+        @Override
+        boolean matches(final Object expected, final Object actual, final VisitedPairs visited) {
+            return valuesMatch(getter.getValue(expected), getter.getValue(actual), visited);
+        }
+    }
+}
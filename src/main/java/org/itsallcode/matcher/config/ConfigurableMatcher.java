@@ -9,7 +9,7 @@ import org.itsallcode.matcher.*;
  * @param <T> the type supported by the matcher
  */
 public class ConfigurableMatcher<T> extends BaseTypeSafeDiagnosingMatcher<T> {
-    private final MatcherConfig<T> config;
+    private final PropertyConfig<T, Object>[] properties;
 
     /**
      * Create a new {@link ConfigurableMatcher} with the given configuration.
@@ -18,26 +18,38 @@ public class ConfigurableMatcher<T> extends BaseTypeSafeDiagnosingMatcher<T> {
      */
     public ConfigurableMatcher(final MatcherConfig<T> config) {
         super(config.getExpected());
-        this.config = config;
+        this.properties = config.getPropertyConfigArray();
     }
 
     @Override
     protected final void describeTo(final DescriptionBuilder description) {
-        for (final PropertyConfig<T, ?> property : this.config.getPropertyConfigs()) {
+        for (int i = 0; i < this.properties.length; i++) {
+            final PropertyConfig<T, Object> property = this.properties[i];
             description.append(property.getPropertyName(), property.getMatcher());
         }
     }
 
+    /**
+     * Compare the properties one after another and stop at the first mismatch.
+     * This does not allocate any objects when all properties match.
+     */
     @Override
-    protected final void reportMismatches(final T actual, final MismatchReporter mismatchReporter) {
-        for (final PropertyConfig<T, ?> property : this.config.getPropertyConfigs()) {
-            reportMismatch(actual, mismatchReporter, property);
+    protected final boolean isMatching(final T actual) {
+        for (int i = 0; i < this.properties.length; i++) {
+            final PropertyConfig<T, Object> property = this.properties[i];
+            if (!matchesWithoutDescription(property.getMatcher(), property.getPropertyValue(actual))) {
+                return false;
+            }
         }
+        return true;
     }
 
-    private <P> void reportMismatch(final T actual, final MismatchReporter mismatchReporter,
-            final PropertyConfig<T, P> property) {
-        mismatchReporter.checkMismatch(property.getPropertyName(), property.getMatcher(),
-                property.getPropertyValue(actual));
+    @Override
+    protected final void reportMismatches(final T actual, final MismatchReporter mismatchReporter) {
+        for (int i = 0; i < this.properties.length; i++) {
+            final PropertyConfig<T, Object> property = this.properties[i];
+            mismatchReporter.checkMismatch(property.getPropertyName(), property.getMatcher(),
+                    property.getExpectedValue(), property.getPropertyValue(actual));
+        }
     }
 }
@@ -4,6 +4,7 @@ import static java.util.stream.Collectors.toList;
 
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.StreamSupport;
 
 import org.hamcrest.*;
@@ -15,11 +16,14 @@ import org.hamcrest.*;
  */
 public final class MatcherConfig<T> {
     private final T expected;
-    private final List<PropertyConfig<T, ?>> propertyConfigs;
+    private final PropertyConfig<T, Object>[] propertyConfigs;
+    private final List<PropertyConfig<T, Object>> propertyConfigList;
 
+    @SuppressWarnings({ "unchecked", "rawtypes" })
     private MatcherConfig(final T expected, final List<PropertyConfig<T, ?>> propertyConfigs) {
         this.expected = expected;
-        this.propertyConfigs = Collections.unmodifiableList(propertyConfigs);
+        this.propertyConfigs = propertyConfigs.toArray(new PropertyConfig[0]);
+        this.propertyConfigList = Collections.unmodifiableList(Arrays.asList(this.propertyConfigs));
     }
 
     T getExpected() {
@@ -31,11 +35,16 @@ public final class MatcherConfig<T> {
      * 
      * @return property configurations
      */
-    @SuppressWarnings("unchecked")
     public List<PropertyConfig<T, Object>> getPropertyConfigs() {
-        return this.propertyConfigs.stream() //
-                .map(c -> (PropertyConfig<T, Object>) c) //
-                .collect(toList());
+        return this.propertyConfigList;
+    }
+
+    /**
+     * Get the property configurations as an array that is created only once.
+     * Callers must not modify the array.
+     */
+    PropertyConfig<T, Object>[] getPropertyConfigArray() {
+        return this.propertyConfigs;
     }
 
     /**
@@ -81,20 +90,22 @@ public final class MatcherConfig<T> {
          * @param propertyName     name of the property.
          * @param propertyAccessor the accessor function for retrieving the property
          *                         value.
-         * @param matcherBuilder   a function for creating the matcher.
+         * @param matcherBuilder   a function for creating the matcher. It is
+         *                         called when the matcher is used for the first
+         *                         time.
          * @param <P>              the type of the property.
          * @return the builder itself for fluent programming style.
          */
         public <P> Builder<B> addProperty(final String propertyName, final Function<B, P> propertyAccessor,
                 final Function<P, Matcher<P>> matcherBuilder) {
-            final Matcher<P> matcher = createMatcher(propertyAccessor, matcherBuilder);
-            return addPropertyInternal(propertyName, matcher, propertyAccessor);
+            final P expectedValue = propertyAccessor.apply(this.expected);
+            return addPropertyInternal(propertyName, expectedValue,
+                    () -> createMatcher(expectedValue, matcherBuilder), propertyAccessor);
         }
 
         @SuppressWarnings("unchecked")
-        private <P> Matcher<P> createMatcher(final Function<B, P> propertyAccessor,
+        private static <P> Matcher<P> createMatcher(final P expectedValue,
                 final Function<P, Matcher<P>> matcherBuilder) {
-            final P expectedValue = propertyAccessor.apply(this.expected);
             if (expectedValue == null) {
                 return (Matcher<P>) Matchers.nullValue();
             }
@@ -108,7 +119,8 @@ public final class MatcherConfig<T> {
          * @param propertyAccessor the accessor function for retrieving the property
          *                         value.
          * @param matcherBuilder   a function for creating the matcher for the iterable
-         *                         elements.
+         *                         elements. It is called when the matcher is used
+         *                         for the first time.
          * @param <P>              the type of the property.
          * @return the builder itself for fluent programming style.
          */
@@ -116,8 +128,8 @@ public final class MatcherConfig<T> {
                 final Function<B, Iterable<? extends P>> propertyAccessor,
                 final Function<P, Matcher<P>> matcherBuilder) {
             final Iterable<? extends P> expectedPropertyValue = propertyAccessor.apply(this.expected);
-            final Matcher<Iterable<? extends P>> listMatcher = createListMatcher(matcherBuilder, expectedPropertyValue);
-            return addPropertyInternal(propertyName, listMatcher, propertyAccessor);
+            return addPropertyInternal(propertyName, expectedPropertyValue,
+                    () -> createListMatcher(matcherBuilder, expectedPropertyValue), propertyAccessor);
         }
 
         private static <P> Matcher<Iterable<? extends P>> createListMatcher(
@@ -140,9 +152,9 @@ public final class MatcherConfig<T> {
             return new NullIterableMatcher();
         }
 
-        private <P> Builder<B> addPropertyInternal(final String propertyName, final Matcher<P> matcher,
-                final Function<B, P> propertyAccessor) {
-            this.properties.add(new PropertyConfig<>(propertyName, matcher, propertyAccessor));
+        private <P> Builder<B> addPropertyInternal(final String propertyName, final P expectedValue,
+                final Supplier<Matcher<P>> matcherFactory, final Function<B, P> propertyAccessor) {
+            this.properties.add(new PropertyConfig<>(propertyName, expectedValue, matcherFactory, propertyAccessor));
             return this;
         }
 
@@ -1,24 +1,35 @@
 package org.itsallcode.matcher.config;
 
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.hamcrest.Matcher;
 
 /**
  * This is used by {@link MatcherConfig} to store configuration for a single
  * property.
+ * <p>
+ * The matcher for the property is created when it is used for the first time,
+ * so that matchers for nested objects are only created for the part of the
+ * object graph that is actually compared. Only this property is locked while
+ * creating its matcher, so the matchers of different properties can be created
+ * concurrently when comparing elements in parallel.
  * 
  * @param <T> type of the object that is handled by the matcher
  * @param <P> type of the object's property
  */
 public class PropertyConfig<T, P> {
     private final String propertyName;
-    private final Matcher<P> matcher;
+    private final P expectedValue;
     private final Function<T, P> propertyAccessor;
+    private Supplier<Matcher<P>> matcherFactory;
+    private volatile Matcher<P> matcher;
 
-    PropertyConfig(final String propertyName, final Matcher<P> matcher, final Function<T, P> propertyAccessor) {
+    PropertyConfig(final String propertyName, final P expectedValue, final Supplier<Matcher<P>> matcherFactory,
+            final Function<T, P> propertyAccessor) {
         this.propertyName = propertyName;
-        this.matcher = matcher;
+        this.expectedValue = expectedValue;
+        this.matcherFactory = matcherFactory;
         this.propertyAccessor = propertyAccessor;
     }
 
@@ -31,12 +42,33 @@ public class PropertyConfig<T, P> {
         return this.propertyName;
     }
 
+    /**
+     * Get the property value of the expected object.
+     * 
+     * @return expected property value
+     */
+    public P getExpectedValue() {
+        return this.expectedValue;
+    }
+
     /**
      * Get the matcher that is used to compare the property value.
      * 
      * @return matcher
      */
     public Matcher<P> getMatcher() {
+        final Matcher<P> result = this.matcher;
+        if (result != null) {
+            return result;
+        }
+        return createMatcher();
+    }
+
+    private synchronized Matcher<P> createMatcher() {
+        if (this.matcher == null) {
+            this.matcher = this.matcherFactory.get();
+            this.matcherFactory = null;
+        }
         return this.matcher;
     }
 
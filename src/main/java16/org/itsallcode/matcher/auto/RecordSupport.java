@@ -0,0 +1,44 @@
+package org.itsallcode.matcher.auto;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detects records and their component accessors using the record API of Java
+ * 16 and later.
+ */
+final class RecordSupport {
+
+    private RecordSupport() {
+        // not instantiable
+    }
+
+    /**
+     * Check if the given type is a record.
+     *
+     * @param type the type to check
+     * @return {@code true} if the type is a record
+     */
+    static boolean isRecord(final Class<?> type) {
+        return type.isRecord();
+    }
+
+    /**
+     * Get the accessor methods of the components of the given record in
+     * declaration order. {@link AutoConfigBuilder} sorts them like the getters
+     * of other classes.
+     *
+     * @param recordType the record type
+     * @return accessor methods
+     */
+    static List<Method> getAccessors(final Class<?> recordType) {
+        final RecordComponent[] components = recordType.getRecordComponents();
+        final List<Method> accessors = new ArrayList<>(components.length);
+        for (final RecordComponent component : components) {
+            accessors.add(component.getAccessor());
+        }
+        return accessors;
+    }
+}
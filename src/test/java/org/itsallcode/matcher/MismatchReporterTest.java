@@ -0,0 +1,42 @@
+package org.itsallcode.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.itsallcode.matcher.auto.AutoMatcher;
+import org.junit.jupiter.api.Test;
+
+class MismatchReporterTest {
+
+    @Test
+    void levelIsLeftWhenGetterThrowsWhileDescribingMismatch() {
+        final Matcher<Model> matcher = AutoMatcher.equalTo(new Model(false));
+        final StringDescription description = new StringDescription();
+        final Model actual = new Model(true);
+
+        final int depth = RenderingScope.run(RenderingBudget.unlimited(), () -> {
+            assertThrows(IllegalStateException.class, () -> matcher.describeMismatch(actual, description));
+            return RenderingScope.currentDepth();
+        });
+
+        assertThat(depth, equalTo(0));
+    }
+
+    public static class Model {
+        private final boolean failing;
+
+        Model(final boolean failing) {
+            this.failing = failing;
+        }
+
+        public String getValue() {
+            if (failing) {
+                throw new UnsupportedOperationException("expected");
+            }
+            return "value";
+        }
+    }
+}
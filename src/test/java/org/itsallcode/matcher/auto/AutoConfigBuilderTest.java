@@ -2,9 +2,13 @@ package org.itsallcode.matcher.auto;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.List;
+
 import org.hamcrest.Matchers;
+import org.itsallcode.matcher.model.DemoModel;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
@@ -26,6 +30,18 @@ class AutoConfigBuilderTest {
                 "Failed to build MatcherConfig: Class org.itsallcode.matcher.auto.AutoConfigBuilderTest$ClassWithNoProperties has no properties."));
     }
 
+    @Test
+    void gettersAreSortedByType() {
+        final List<PropertyGetter> getters = AutoConfigBuilder.getGetters(DemoModel.class);
+        assertThat(getters.stream().map(PropertyGetter::getPropertyName).toArray(),
+                Matchers.arrayContaining("id", "longVal", "name", "attr", "children", "stringArray"));
+    }
+
+    @Test
+    void gettersAreCachedPerClass() {
+        assertSame(AutoConfigBuilder.getGetters(DemoModel.class), AutoConfigBuilder.getGetters(DemoModel.class));
+    }
+
     static class ClassWithNoProperties {
         // Empty by intention
     }
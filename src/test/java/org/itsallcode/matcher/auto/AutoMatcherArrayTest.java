@@ -1,8 +1,16 @@
 package org.itsallcode.matcher.auto;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
 import static org.itsallcode.matcher.auto.TestUtil.assertValuesDoNotMatch;
 import static org.itsallcode.matcher.auto.TestUtil.assertValuesMatch;
 
+import java.util.Arrays;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.Matchers;
+import org.hamcrest.StringDescription;
+import org.hamcrest.collection.IsArray;
 import org.junit.jupiter.api.Test;
 
 class AutoMatcherArrayTest {
@@ -87,6 +95,104 @@ class AutoMatcherArrayTest {
         assertValuesDoNotMatch(new double[] { 1.1 }, new double[] { 2.2 });
     }
 
+    @Test
+    void testPrimitiveDoubleArrayNaN() {
+        assertValuesMatch(new double[] { Double.NaN }, new double[] { Double.NaN });
+        assertValuesDoNotMatch(new double[] { 0.0 }, new double[] { -0.0 });
+    }
+
+    @Test
+    void testNestedPrimitiveArrays() {
+        assertValuesMatch(new int[][] { { 1, 2 }, { 3 } }, new int[][] { { 1, 2 }, { 3 } });
+        assertValuesDoNotMatch(new int[][] { { 1, 2 }, { 3 } }, new int[][] { { 1, 2 }, { 4 } });
+        assertValuesDoNotMatch(new int[][] { { 1, 2 }, null }, new int[][] { { 1, 2 }, { 3 } });
+    }
+
+    @Test
+    void testPrimitiveArrayDescription() {
+        assertThat(StringDescription.toString(AutoMatcher.equalTo(new int[] { 1, 2 })), equalTo("[<1>, <2>]"));
+    }
+
+    @Test
+    void testLargePrimitiveArrayDescription() {
+        assertThat(StringDescription.toString(AutoMatcher.equalTo(range(0, 100))), equalTo(
+                "[<0>, <1>, <2>, <3>, <4>, <5>, <6>, <7>, <8>, <9>, <10>, <11>, <12>, <13>, <14>, <15>, <16>, "
+                        + "<17>, <18>, <19>, <20>, <21>, <22>, <23>, <24>, <25>, <26>, <27>, <28>, <29>, <30>, "
+                        + "<31>, ...] (100 elements)"));
+    }
+
+    @Test
+    void testPrimitiveArrayMismatchReportsFirstDifference() {
+        final int[] actual = range(0, 1_000_000);
+        actual[500_000] = -1;
+        assertThat(describeMismatch(range(0, 1_000_000), actual),
+                equalTo("[500000] was <-1> instead of <500000> in [..., <499997>, <499998>, <499999>, <-1>, "
+                        + "<500001>, <500002>, <500003>, ...]"));
+    }
+
+    @Test
+    void testPrimitiveArrayMismatchReportsLength() {
+        assertThat(describeMismatch(new long[] { 1, 2, 3 }, new long[] { 1, 2 }),
+                equalTo("length was <2> instead of <3>"));
+        assertThat(describeMismatch(new long[] { 1, 2, 3 }, new long[] { 1, 5 }),
+                equalTo("length was <2> instead of <3>, [1] was <5L> instead of <2L> in [<1L>, <5L>]"));
+    }
+
+    @Test
+    void testNestedPrimitiveArrayMismatch() {
+        assertThat(describeMismatch(new byte[][] { { 1 }, { 2, 3 } }, new byte[][] { { 1 }, { 2, 4 } }),
+                equalTo("[1][1] was <4b> instead of <3b> in [<2b>, <4b>]"));
+        assertThat(describeMismatch(new byte[][] { { 1 }, { 2, 3 } }, new byte[][] { { 1 }, null }),
+                equalTo("[1] was null instead of [<2b>, <3b>]"));
+    }
+
+    @Test
+    void testPrimitiveArrayMismatchForOtherType() {
+        assertThat(describeMismatch(new int[] { 1 }, new long[] { 1 }), equalTo("was [<1L>]"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testObjectArrayDescriptionSameAsHamcrest() {
+        final ArrayElement[] expected = { new ArrayElement(1, "a"), new ArrayElement(2, "b") };
+        final ArrayElement[] actual = { new ArrayElement(1, "a"), new ArrayElement(3, "b") };
+        final Matcher<ArrayElement[]> hamcrestMatcher = IsArray
+                .array(Arrays.stream(expected).map(AutoMatcher::equalTo).toArray(Matcher[]::new));
+        final Matcher<ArrayElement[]> matcher = AutoMatcher.equalTo(expected);
+        assertThat(describeMismatch(expected, actual), equalTo(describeMismatch(hamcrestMatcher, actual)));
+        assertThat(describeMismatch(expected, new ArrayElement[0]),
+                equalTo(describeMismatch(hamcrestMatcher, new ArrayElement[0])));
+        assertThat(StringDescription.toString(matcher), equalTo(StringDescription.toString(hamcrestMatcher)));
+    }
+
+    @Test
+    void testStringArrayDescriptionSameAsHamcrest() {
+        final String[] expected = { "a", "b" };
+        final Matcher<String[]> hamcrestMatcher = Matchers.arrayContaining(expected);
+        final Matcher<String[]> matcher = AutoMatcher.equalTo(expected);
+        assertThat(describeMismatch(expected, new String[] { "a", "c" }),
+                equalTo(describeMismatch(hamcrestMatcher, new String[] { "a", "c" })));
+        assertThat(StringDescription.toString(matcher), equalTo(StringDescription.toString(hamcrestMatcher)));
+    }
+
+    private static int[] range(final int from, final int to) {
+        final int[] values = new int[to - from];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = from + i;
+        }
+        return values;
+    }
+
+    private static String describeMismatch(final Object expected, final Object actual) {
+        return describeMismatch(AutoMatcher.equalTo(expected), actual);
+    }
+
+    private static String describeMismatch(final Matcher<?> matcher, final Object actual) {
+        final StringDescription description = new StringDescription();
+        matcher.describeMismatch(actual, description);
+        return description.toString();
+    }
+
     @Test
     void testStringArray() {
         assertValuesDoNotMatch(new String[] { "a" }, new String[] { "b" });
@@ -0,0 +1,237 @@
+package org.itsallcode.matcher.auto;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.itsallcode.matcher.model.DemoAttribute;
+import org.itsallcode.matcher.model.DemoModel;
+import org.junit.jupiter.api.Test;
+
+class AutoMatcherCompiledTest {
+
+    @Test
+    void primitivesMatch() {
+        assertSameResult(primitives(1, 2L, 3.0, 4.0F, true, 'a'), primitives(1, 2L, 3.0, 4.0F, true, 'a'));
+    }
+
+    @Test
+    void primitivesDiffer() {
+        final PrimitiveModel expected = primitives(1, 2L, 3.0, 4.0F, true, 'a');
+        assertSameResult(expected, primitives(2, 2L, 3.0, 4.0F, true, 'a'));
+        assertSameResult(expected, primitives(1, 3L, 3.0, 4.0F, true, 'a'));
+        assertSameResult(expected, primitives(1, 2L, 3.1, 4.0F, true, 'a'));
+        assertSameResult(expected, primitives(1, 2L, 3.0, 4.1F, true, 'a'));
+        assertSameResult(expected, primitives(1, 2L, 3.0, 4.0F, false, 'a'));
+        assertSameResult(expected, primitives(1, 2L, 3.0, 4.0F, true, 'b'));
+    }
+
+    @Test
+    void floatingPointSpecialValues() {
+        assertSameResult(primitives(1, 2L, Double.NaN, Float.NaN, true, 'a'),
+                primitives(1, 2L, Double.NaN, Float.NaN, true, 'a'));
+        assertSameResult(primitives(1, 2L, 0.0, 0.0F, true, 'a'), primitives(1, 2L, -0.0, 0.0F, true, 'a'));
+        assertSameResult(primitives(1, 2L, 0.0, 0.0F, true, 'a'), primitives(1, 2L, 0.0, -0.0F, true, 'a'));
+    }
+
+    @Test
+    void nestedModels() {
+        final DemoModel expected = model(1, asList(model(2, emptyList()), model(3, emptyList())));
+        assertSameResult(expected, model(1, asList(model(2, emptyList()), model(3, emptyList()))));
+        assertSameResult(expected, model(1, asList(model(2, emptyList()), model(4, emptyList()))));
+        assertSameResult(expected, model(1, asList(model(2, emptyList()))));
+        assertSameResult(expected, model(1, asList(model(2, emptyList()), model(3, emptyList()),
+                model(4, emptyList()))));
+        assertSameResult(expected, model(1, null));
+    }
+
+    @Test
+    void nullValues() {
+        assertSameResult(null, null);
+        assertSameResult(null, "value");
+        assertSameResult("value", null);
+        assertSameResult(new DemoModel(1, null, null, null, null, null),
+                new DemoModel(1, "name", null, null, null, null));
+    }
+
+    @Test
+    void otherTypes() {
+        assertSameResult(Set.of("a", "b"), Set.of("b", "a"));
+        assertSameResult(Set.of("a", "b"), Set.of("b", "c"));
+        assertSameResult(Map.of("a", 1), Map.of("a", 1));
+        assertSameResult(Map.of("a", 1), Map.of("a", 2));
+        assertSameResult(Optional.of("a"), Optional.of("a"));
+        assertSameResult(Optional.of("a"), Optional.empty());
+        assertSameResult(new int[] { 1, 2 }, new int[] { 1, 2 });
+        assertSameResult(new int[] { 1, 2 }, new int[] { 1, 3 });
+    }
+
+    @Test
+    void collectionProperties() {
+        final CollectionModel expected = collections("a", "b", "c");
+        assertSameResult(expected, collections("a", "b", "c"));
+        assertSameResult(expected, collections("a", "b", "x"));
+        assertSameResult(expected, collections("x", "b", "c"));
+        assertSameResult(expected, collections("a", "b"));
+        assertSameResult(expected, collections("a", "b", "c", "d"));
+        assertSameResult(collections(), collections());
+        assertSameResult(collections(), collections("a"));
+    }
+
+    @Test
+    void setsWithEqualElements() {
+        final Set<DemoAttribute> expected = attributes("a", "a", "b");
+        assertSameResult(expected, attributes("b", "a", "a"));
+        assertSameResult(expected, attributes("a", "b", "b"));
+    }
+
+    @Test
+    void incompatibleTypes() {
+        final Matcher<Object> matcher = AutoMatcher.compiledEqualTo(model(1, null));
+        final AssertionError error = assertThrows(AssertionError.class, () -> matcher.matches("wrong"));
+        assertEquals("Expected object of type " + DemoModel.class.getName() + " but got java.lang.String: wrong",
+                error.getMessage());
+    }
+
+    private static <T> void assertSameResult(final T expected, final T actual) {
+        final Matcher<T> autoMatcher = AutoMatcher.equalTo(expected);
+        final Matcher<T> compiledMatcher = AutoMatcher.compiledEqualTo(expected);
+        assertEquals(autoMatcher.matches(actual), compiledMatcher.matches(actual));
+        assertEquals(StringDescription.toString(autoMatcher), StringDescription.toString(compiledMatcher));
+        assertEquals(describeMismatch(autoMatcher, actual), describeMismatch(compiledMatcher, actual));
+        if (autoMatcher.matches(actual)) {
+            assertThat(actual, compiledMatcher);
+        }
+    }
+
+    private static String describeMismatch(final Matcher<?> matcher, final Object actual) {
+        final StringDescription description = new StringDescription();
+        matcher.describeMismatch(actual, description);
+        return description.toString();
+    }
+
+    private static DemoModel model(final int id, final List<DemoModel> children) {
+        return new DemoModel(id, "name" + id, (long) id, new DemoAttribute("attr" + id),
+                new String[] { "item" + id }, children);
+    }
+
+    static CollectionModel collections(final String... values) {
+        final Map<String, DemoAttribute> attributesByName = new HashMap<>();
+        final Map<DemoAttribute, Integer> indexesByAttribute = new HashMap<>();
+        final DemoAttribute[] attributeArray = new DemoAttribute[values.length];
+        for (int i = 0; i < values.length; i++) {
+            attributesByName.put(values[i], new DemoAttribute(values[i]));
+            indexesByAttribute.put(new DemoAttribute(values[i]), i);
+            attributeArray[i] = new DemoAttribute(values[i]);
+        }
+        final Optional<DemoAttribute> firstAttribute = values.length == 0 ? Optional.empty()
+                : Optional.of(new DemoAttribute(values[0]));
+        return new CollectionModel(attributes(values), attributesByName, indexesByAttribute, firstAttribute,
+                attributeArray);
+    }
+
+    private static Set<DemoAttribute> attributes(final String... values) {
+        final Set<DemoAttribute> attributes = new HashSet<>();
+        for (final String value : values) {
+            attributes.add(new DemoAttribute(value));
+        }
+        return attributes;
+    }
+
+    private static PrimitiveModel primitives(final int intValue, final long longValue, final double doubleValue,
+            final float floatValue, final boolean booleanValue, final char charValue) {
+        return new PrimitiveModel(intValue, longValue, doubleValue, floatValue, booleanValue, charValue);
+    }
+
+    public static class PrimitiveModel {
+        private final int intValue;
+        private final long longValue;
+        private final double doubleValue;
+        private final float floatValue;
+        private final boolean booleanValue;
+        private final char charValue;
+
+        PrimitiveModel(final int intValue, final long longValue, final double doubleValue, final float floatValue,
+                final boolean booleanValue, final char charValue) {
+            this.intValue = intValue;
+            this.longValue = longValue;
+            this.doubleValue = doubleValue;
+            this.floatValue = floatValue;
+            this.booleanValue = booleanValue;
+            this.charValue = charValue;
+        }
+
+        public int getIntValue() {
+            return intValue;
+        }
+
+        public long getLongValue() {
+            return longValue;
+        }
+
+        public double getDoubleValue() {
+            return doubleValue;
+        }
+
+        public float getFloatValue() {
+            return floatValue;
+        }
+
+        public boolean isBooleanValue() {
+            return booleanValue;
+        }
+
+        public char getCharValue() {
+            return charValue;
+        }
+    }
+
+    public static class CollectionModel {
+        private final Set<DemoAttribute> attributes;
+        private final Map<String, DemoAttribute> attributesByName;
+        private final Map<DemoAttribute, Integer> indexesByAttribute;
+        private final Optional<DemoAttribute> firstAttribute;
+        private final DemoAttribute[] attributeArray;
+
+        CollectionModel(final Set<DemoAttribute> attributes, final Map<String, DemoAttribute> attributesByName,
+                final Map<DemoAttribute, Integer> indexesByAttribute, final Optional<DemoAttribute> firstAttribute,
+                final DemoAttribute[] attributeArray) {
+            this.attributes = attributes;
+            this.attributesByName = attributesByName;
+            this.indexesByAttribute = indexesByAttribute;
+            this.firstAttribute = firstAttribute;
+            this.attributeArray = attributeArray;
+        }
+
+        public Set<DemoAttribute> getAttributes() {
+            return attributes;
+        }
+
+        public Map<String, DemoAttribute> getAttributesByName() {
+            return attributesByName;
+        }
+
+        public Map<DemoAttribute, Integer> getIndexesByAttribute() {
+            return indexesByAttribute;
+        }
+
+        public Optional<DemoAttribute> getFirstAttribute() {
+            return firstAttribute;
+        }
+
+        public DemoAttribute[] getAttributeArray() {
+            return attributeArray;
+        }
+
+        public Stream<DemoAttribute> getAttributeStream() {
+            return Arrays.stream(attributeArray);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.itsallcode.matcher.auto;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+
+class AutoMatcherEvaluationTest {
+
+    private static final int DEPTH = 8;
+
+    @Test
+    void nestedModelsAreEvaluatedOncePerAssertion() {
+        final List<CountingNode> actualNodes = new ArrayList<>();
+        final CountingNode expected = createGraph(DEPTH, "expected", new ArrayList<>());
+        final CountingNode actual = createGraph(DEPTH, "actual", actualNodes);
+        final Matcher<CountingNode> matcher = AutoMatcher.equalTo(expected);
+
+        assertThat(matcher.matches(actual), equalTo(false));
+        actualNodes.forEach(CountingNode::resetEvaluations);
+        final StringDescription description = new StringDescription();
+        matcher.describeMismatch(actual, description);
+
+        assertThat(description.toString(), startsWith("{child {child {"));
+        for (final CountingNode node : actualNodes) {
+            assertThat("evaluations of node at depth " + node.depth, node.evaluations, equalTo(1));
+        }
+    }
+
+    @Test
+    void matchingStopsAtFirstMismatch() {
+        final List<CountingNode> actualNodes = new ArrayList<>();
+        final CountingNode expected = createGraph(DEPTH, "expected", new ArrayList<>());
+        final CountingNode actual = createGraph(DEPTH, "actual", actualNodes);
+
+        assertThat(AutoMatcher.equalTo(expected).matches(actual), equalTo(false));
+
+        final int evaluatedNodes = (int) actualNodes.stream().filter(node -> node.evaluations > 0).count();
+        final int evaluations = actualNodes.stream().mapToInt(node -> node.evaluations).sum();
+        assertAll(() -> assertThat("evaluated nodes", evaluatedNodes, equalTo(DEPTH + 1)),
+                () -> assertThat("evaluations", evaluations, equalTo(DEPTH + 1)));
+    }
+
+    @Test
+    void failingAssertionDescribesMismatch() {
+        final CountingNode expected = createGraph(2, "expected", new ArrayList<>());
+        final CountingNode actual = createGraph(2, "actual", new ArrayList<>());
+
+        final AssertionError error = assertThrows(AssertionError.class,
+                () -> assertThat(actual, AutoMatcher.equalTo(expected)));
+
+        assertThat(error.getMessage(), equalTo("\nExpected: "
+                + StringDescription.toString(AutoMatcher.equalTo(expected))
+                + "\n     but: {child {child {value was \"actual\"}, children item 0: {value was \"actual\"}}, "
+                + "children item 0: {child {value was \"actual\"}, children item 0: {value was \"actual\"}}}"));
+    }
+
+    @Test
+    void nestedMatchersAreCreatedLazily() {
+        final List<CountingNode> expectedChildren = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            expectedChildren.add(new CountingNode(0, "child", null, emptyList()));
+        }
+        final CountingNode expected = new CountingNode(1, "expected", null, expectedChildren);
+        final Matcher<CountingNode> matcher = AutoMatcher.equalTo(expected);
+
+        assertThat(matcher.matches(new CountingNode(1, "actual", null, emptyList())), equalTo(false));
+        assertThat(expectedChildren.stream().mapToInt(node -> node.evaluations).sum(), equalTo(0));
+    }
+
+    @Test
+    void mutatedObjectIsEvaluatedAgain() {
+        final CountingNode expected = new CountingNode(0, "expected", null, emptyList());
+        final CountingNode actual = new CountingNode(0, "actual", null, emptyList());
+        final Matcher<CountingNode> matcher = AutoMatcher.equalTo(expected);
+
+        assertThat(matcher.matches(actual), equalTo(false));
+        actual.value = "expected";
+        assertThat(matcher.matches(actual), equalTo(true));
+    }
+
+    /**
+     * Create a graph where each node has one child and a list with another
+     * child. Only the leaf values differ between expected and actual graph.
+     */
+    private static CountingNode createGraph(final int depth, final String leafValue,
+            final List<CountingNode> nodes) {
+        final CountingNode node;
+        if (depth == 0) {
+            node = new CountingNode(depth, leafValue, null, emptyList());
+        } else {
+            node = new CountingNode(depth, "node", createGraph(depth - 1, leafValue, nodes),
+                    singletonList(createGraph(depth - 1, leafValue, nodes)));
+        }
+        nodes.add(node);
+        return node;
+    }
+
+    public static class CountingNode {
+        private final int depth;
+        private final CountingNode child;
+        private final List<CountingNode> children;
+        private String value;
+        private int evaluations = 0;
+
+        CountingNode(final int depth, final String value, final CountingNode child,
+                final List<CountingNode> children) {
+            this.depth = depth;
+            this.value = value;
+            this.child = child;
+            this.children = children;
+        }
+
+        void resetEvaluations() {
+            evaluations = 0;
+        }
+
+        public String getValue() {
+            evaluations++;
+            return value;
+        }
+
+        public CountingNode getChild() {
+            return child;
+        }
+
+        public List<CountingNode> getChildren() {
+            return children;
+        }
+
+        @Override
+        public String toString() {
+            return "Node" + depth;
+        }
+    }
+}
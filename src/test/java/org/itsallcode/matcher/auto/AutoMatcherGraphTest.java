@@ -0,0 +1,179 @@
+package org.itsallcode.matcher.auto;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+
+class AutoMatcherGraphTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Test
+    void cyclicGraphMatches() {
+        assertThat(parent("p", "c1", "c2"), AutoMatcher.equalTo(parent("p", "c1", "c2")));
+    }
+
+    @Test
+    void cyclicGraphDescribesBackReferenceAsPath() {
+        assertThat(StringDescription.toString(AutoMatcher.equalTo(parent("p", "c1"))),
+                equalTo("{name=\"p\", children=iterable containing [{name=\"c1\", parent=<reference to $>}]}"));
+    }
+
+    @Test
+    void cyclicGraphMismatch() {
+        final Parent expected = parent("p", "c1", "c2");
+        final Parent actual = parent("p", "c1", "other");
+        final AssertionError error = assertThrows(AssertionError.class,
+                () -> assertThat(actual, AutoMatcher.equalTo(expected)));
+        assertThat(error.getMessage(), equalTo("\nExpected: {name=\"p\", children=iterable containing "
+                + "[{name=\"c1\", parent=<reference to $>}, {name=\"c2\", parent=<reference to $>}]}\n"
+                + "     but: {children item 1: {name was \"other\"}}"));
+    }
+
+    @Test
+    void cyclicGraphMismatchInBackReference() {
+        final Parent expected = parent("p", "c1");
+        final Parent actual = parent("p", "c1");
+        actual.children.get(0).parent = parent("other", "c1");
+        assertThat(AutoMatcher.equalTo(expected).matches(actual), equalTo(false));
+    }
+
+    @Test
+    void compiledMatcherWithCyclicGraph() {
+        final Matcher<Parent> matcher = AutoMatcher.compiledEqualTo(parent("p", "c1", "c2"));
+        assertAll(() -> assertThat(parent("p", "c1", "c2"), matcher),
+                () -> assertThat(matcher.matches(parent("p", "c1", "other")), equalTo(false)));
+    }
+
+    @Test
+    void sharedNodesAreComparedOnce() {
+        final int depth = 40;
+        assertTimeoutPreemptively(TIMEOUT,
+                () -> assertThat(diamondChain(depth, "leaf"), AutoMatcher.equalTo(diamondChain(depth, "leaf"))));
+    }
+
+    @Test
+    void sharedNodesMismatch() {
+        final int depth = 40;
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            final Matcher<Diamond> matcher = AutoMatcher.equalTo(diamondChain(depth, "leaf"));
+            assertThat(matcher.matches(diamondChain(depth, "other")), equalTo(false));
+        });
+    }
+
+    @Test
+    void sharedNodesDescribedAsPath() {
+        assertThat(StringDescription.toString(AutoMatcher.equalTo(diamondChain(1, "leaf"))),
+                equalTo("{name=\"node\", left={name=\"leaf\", left=null, right=null}, right=<reference to $.left>}"));
+    }
+
+    @Test
+    void compiledMatcherWithSharedNodes() {
+        final int depth = 40;
+        assertTimeoutPreemptively(TIMEOUT, () -> assertThat(diamondChain(depth, "leaf"),
+                AutoMatcher.compiledEqualTo(diamondChain(depth, "leaf"))));
+    }
+
+    private static Parent parent(final String name, final String... childNames) {
+        final Parent parent = new Parent(name);
+        for (final String childName : childNames) {
+            parent.children.add(new Child(childName, parent));
+        }
+        return parent;
+    }
+
+    /**
+     * Create a chain where each node references the next node twice. Without
+     * sharing, the number of compared nodes would be 2^depth.
+     */
+    private static Diamond diamondChain(final int depth, final String leafName) {
+        Diamond node = new Diamond(leafName, null);
+        for (int i = 0; i < depth; i++) {
+            node = new Diamond("node", node);
+        }
+        return node;
+    }
+
+    public static class Parent {
+        private final String name;
+        private final List<Child> children = new ArrayList<>();
+
+        Parent(final String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Child> getChildren() {
+            return children;
+        }
+
+        @Override
+        public String toString() {
+            return "Parent [name=" + name + "]";
+        }
+    }
+
+    public static class Child {
+        private final String name;
+        private Parent parent;
+
+        Child(final String name, final Parent parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Parent getParent() {
+            return parent;
+        }
+
+        @Override
+        public String toString() {
+            return "Child [name=" + name + "]";
+        }
+    }
+
+    public static class Diamond {
+        private final String name;
+        private final Diamond next;
+
+        Diamond(final String name, final Diamond next) {
+            this.name = name;
+            this.next = next;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Diamond getLeft() {
+            return next;
+        }
+
+        public Diamond getRight() {
+            return next;
+        }
+
+        @Override
+        public String toString() {
+            return "Diamond [name=" + name + "]";
+        }
+    }
+}
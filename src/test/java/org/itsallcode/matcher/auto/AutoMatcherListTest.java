@@ -3,11 +3,19 @@ package org.itsallcode.matcher.auto;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
 import static org.itsallcode.matcher.auto.TestUtil.assertValuesDoNotMatch;
 import static org.itsallcode.matcher.auto.TestUtil.assertValuesMatch;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.stream.IntStream;
 
+import org.hamcrest.*;
 import org.itsallcode.matcher.model.DemoAttribute;
 import org.junit.jupiter.api.Test;
 
@@ -87,4 +95,89 @@ class AutoMatcherListTest {
         list.add("value2");
         assertValuesMatch(asList("value1", null, "value2"), list);
     }
+
+    @Test
+    void testLargeListMatches() {
+        final List<String> expected = IntStream.range(0, 1_000_000).mapToObj(i -> "value" + i).collect(toList());
+        final List<String> actual = new LinkedList<>(expected);
+        final Matcher<List<String>> matcher = AutoMatcher.equalTo(expected);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThat(actual, matcher));
+    }
+
+    @Test
+    void testDifferentSizeIsRejectedWithoutComparingElements() {
+        final List<DemoAttribute> expected = asList(new DemoAttribute("a"), new DemoAttribute("b"));
+        final List<Object> actual = asList(new Object(), new Object(), new Object());
+        assertThat(AutoMatcher.equalTo(expected).matches(actual), is(false));
+    }
+
+    @Test
+    void testMatchingModelElementsDoesNotCreateMatchers() {
+        final List<DemoAttribute> expected = IntStream.range(0, 10_000).mapToObj(i -> new DemoAttribute("value" + i))
+                .collect(toList());
+        final List<DemoAttribute> different = new ArrayList<>(expected);
+        different.set(5_000, new DemoAttribute("other"));
+        final ContainsInOrderMatcher<?> matcher = TestUtil.containsInOrderInObjectGraph(expected);
+
+        assertThat(matcher.matches(new ArrayList<>(expected)), is(true));
+        assertThat(matcher.matches(different), is(false));
+        assertThat(matcher.getRegisteredObjectCount(), equalTo(0));
+    }
+
+    @Test
+    void testMismatchDescriptionDoesNotKeepElementMatchers() {
+        final List<DemoAttribute> expected = IntStream.range(0, 50_000).mapToObj(i -> new DemoAttribute("value" + i))
+                .collect(toList());
+        final List<DemoAttribute> actual = new ArrayList<>(expected);
+        actual.set(49_999, new DemoAttribute("x"));
+        final ContainsInOrderMatcher<?> matcher = TestUtil.containsInOrderInObjectGraph(expected);
+
+        assertThat(describeMismatch(matcher, actual), equalTo("item 49999: {value was \"x\"}"));
+        assertThat(matcher.getRegisteredObjectCount(), equalTo(0));
+    }
+
+    @Test
+    void testDescriptionSameAsHamcrest() {
+        assertSameDescriptionAsHamcrest(asList("a", "b"), asList("a", "c"));
+        assertSameDescriptionAsHamcrest(asList("a", "b"), asList("a"));
+        assertSameDescriptionAsHamcrest(asList("a", "b"), asList("a", "b", "c"));
+        assertSameDescriptionAsHamcrest(asList("a", null), asList("a", "b"));
+        assertSameDescriptionAsHamcrest(asList(new DemoAttribute("a")), asList(new DemoAttribute("b")));
+        assertSameDescriptionAsHamcrest(asList(new DemoAttribute("a")), emptyList());
+    }
+
+    @Test
+    void testMismatchReportsMultipleDifferences() {
+        assertThat(describeMismatch(asList("a", "b", "c", "d"), asList("a", "x", "c", "y")),
+                equalTo("item 1: was \"x\", item 3: was \"y\""));
+    }
+
+    @Test
+    void testMismatchReportsAtMostTenDifferences() {
+        final List<Integer> expected = IntStream.range(0, 20).boxed().collect(toList());
+        final List<Integer> actual = IntStream.range(100, 120).boxed().collect(toList());
+        assertThat(describeMismatch(expected, actual), equalTo("item 0: was <100>, item 1: was <101>, "
+                + "item 2: was <102>, item 3: was <103>, item 4: was <104>, item 5: was <105>, item 6: was <106>, "
+                + "item 7: was <107>, item 8: was <108>, item 9: was <109>, ..."));
+    }
+
+    private static <T> void assertSameDescriptionAsHamcrest(final List<T> expected, final List<T> actual) {
+        final List<Matcher<? super T>> elementMatchers = expected.stream().map(AutoMatcher::equalTo)
+                .collect(toList());
+        final Matcher<Iterable<? extends T>> hamcrestMatcher = Matchers.contains(elementMatchers);
+        final Matcher<List<T>> matcher = AutoMatcher.equalTo(expected);
+        assertThat(matcher.matches(actual), is(false));
+        assertThat(describeMismatch(expected, actual), equalTo(describeMismatch(hamcrestMatcher, actual)));
+        assertThat(StringDescription.toString(matcher), equalTo(StringDescription.toString(hamcrestMatcher)));
+    }
+
+    private static String describeMismatch(final Object expected, final Object actual) {
+        return describeMismatch(AutoMatcher.equalTo(expected), actual);
+    }
+
+    private static String describeMismatch(final Matcher<?> matcher, final Object actual) {
+        final Description description = new StringDescription();
+        matcher.describeMismatch(actual, description);
+        return description.toString();
+    }
 }
@@ -2,13 +2,21 @@ package org.itsallcode.matcher.auto;
 
 import static java.util.Collections.*;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
 import static org.itsallcode.matcher.auto.TestUtil.assertValuesDoNotMatch;
 import static org.itsallcode.matcher.auto.TestUtil.assertValuesMatch;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.File;
+import java.time.Duration;
 
 import java.util.*;
 
 import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.itsallcode.matcher.model.DemoAttribute;
 import org.junit.jupiter.api.Test;
 
 class AutoMatcherMapTest {
@@ -79,4 +87,115 @@ class AutoMatcherMapTest {
         map.put("key1", "value1");
         assertValuesMatch(Map.of("key1", "value1"), map);
     }
+
+    @Test
+    void testLargeMapMatches() {
+        final Map<String, Integer> expected = new HashMap<>();
+        final Map<String, Integer> actual = new TreeMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            expected.put("key" + i, i);
+            actual.put("key" + i, i);
+        }
+        final Matcher<Map<String, Integer>> matcher = AutoMatcher.equalTo(expected);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThat(actual, matcher));
+    }
+
+    @Test
+    void testNullKeyInTreeMap() {
+        final Map<String, String> expected = new HashMap<>();
+        expected.put(null, "value");
+        final Map<String, String> actual = new TreeMap<>(Map.of("key", "value"));
+        assertThat(AutoMatcher.equalTo(expected).matches(actual), is(false));
+    }
+
+    @Test
+    void testCaseInsensitiveTreeMapDoesNotMatchDifferentCase() {
+        final Map<String, Integer> actual = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        actual.put("A", 1);
+        assertThat(AutoMatcher.equalTo(Map.of("a", 1)).matches(actual), is(false));
+        assertThat(describeMismatch(Map.of("a", 1), actual),
+                equalTo("{\"a\" missing, \"A\" unexpected with value <1>}"));
+    }
+
+    @Test
+    void testCaseInsensitiveTreeMapMatchesSameCase() {
+        final Map<String, Integer> actual = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        actual.put("a", 1);
+        assertValuesMatch(Map.of("a", 1), actual);
+    }
+
+    @Test
+    void testIdentityHashMapComparesKeysWithEquals() {
+        final Map<String, Integer> actual = new IdentityHashMap<>();
+        actual.put(new String("a"), 1);
+        assertThat(actual, AutoMatcher.equalTo(Map.of("a", 1)));
+        assertThat(AutoMatcher.equalTo(Map.of("b", 1)).matches(actual), is(false));
+    }
+
+    @Test
+    void testValuePathIsOnlyBuiltWhenMatcherIsCreated() {
+        final KeyWithCountedToString key = new KeyWithCountedToString();
+        final Matcher<Map<KeyWithCountedToString, List<String>>> matcher = AutoMatcher
+                .equalTo(Map.of(key, List.of("a")));
+        assertThat(key.toStringCalls, equalTo(0));
+        assertThat(matcher.matches(Map.of(key, List.of("a"))), is(true));
+    }
+
+    @Test
+    void testModelKeys() {
+        assertValuesMatch(Map.of(new DemoAttribute("a"), "value"), Map.of(new DemoAttribute("a"), "value"));
+        assertValuesDoNotMatch(Map.of(new DemoAttribute("a"), "value"), Map.of(new DemoAttribute("b"), "value"));
+    }
+
+    @Test
+    void testDescription() {
+        final Map<String, Integer> expected = new LinkedHashMap<>();
+        expected.put("a", 1);
+        expected.put("b", 2);
+        assertThat(StringDescription.toString(AutoMatcher.equalTo(expected)), equalTo("{\"a\"=<1>, \"b\"=<2>}"));
+    }
+
+    @Test
+    void testMismatchDescriptionReportsAllDifferences() {
+        final Map<String, Integer> expected = new LinkedHashMap<>();
+        expected.put("same", 1);
+        expected.put("different", 2);
+        expected.put("missing", 3);
+        final Map<String, Integer> actual = new LinkedHashMap<>();
+        actual.put("same", 1);
+        actual.put("different", 4);
+        actual.put("unexpected", 5);
+        assertThat(describeMismatch(expected, actual),
+                equalTo("{\"different\" was <4>, \"missing\" missing, \"unexpected\" unexpected with value <5>}"));
+    }
+
+    @Test
+    void testMismatchDescriptionForModelKey() {
+        assertThat(describeMismatch(Map.of(new DemoAttribute("a"), "value"), Map.of(new DemoAttribute("b"), "value")),
+                equalTo("{{value=\"a\"} missing, <DemoAttribute [value=b]> unexpected with value \"value\"}"));
+    }
+
+    private static <T> String describeMismatch(final T expected, final T actual) {
+        final StringDescription description = new StringDescription();
+        AutoMatcher.equalTo(expected).describeMismatch(actual, description);
+        return description.toString();
+    }
+
+    /**
+     * A key of simple type that counts how often it is converted to a string.
+     */
+    private static final class KeyWithCountedToString extends File {
+        private static final long serialVersionUID = 1L;
+        private transient int toStringCalls = 0;
+
+        private KeyWithCountedToString() {
+            super("key");
+        }
+
+        @Override
+        public String toString() {
+            toStringCalls++;
+            return "key";
+        }
+    }
 }
@@ -0,0 +1,281 @@
+package org.itsallcode.matcher.auto;
+
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class AutoMatcherParallelTest {
+
+    private static final int SIZE = 5_000;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final Parallelism parallelism = Parallelism.builder().comparisonThreshold(1000)
+            .constructionThreshold(1000).pool(pool).build();
+
+    @AfterEach
+    void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void largeListMatchesInParallel() {
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final List<Element> expected = elements(SIZE, null);
+        final List<Element> actual = elements(SIZE, threads);
+
+        assertThat(actual, AutoMatcher.equalTo(expected, parallelism));
+        assertThat(threads.stream().map(this::isPoolThread).collect(toList()), hasItem(true));
+    }
+
+    @Test
+    void largeArrayMatchesInParallel() {
+        final Element[] expected = elements(SIZE, null).toArray(new Element[0]);
+        final Element[] actual = elements(SIZE, null).toArray(new Element[0]);
+        assertThat(actual, AutoMatcher.equalTo(expected, parallelism));
+    }
+
+    @Test
+    void largeSetMatchesInParallel() {
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final Set<Element> expected = new LinkedHashSet<>(elements(SIZE, null));
+        final List<Element> reversed = elements(SIZE, threads);
+        Collections.reverse(reversed);
+        final Set<Element> actual = new LinkedHashSet<>(reversed);
+
+        assertThat(actual, AutoMatcher.equalTo(expected, parallelism));
+        assertThat(threads.stream().map(this::isPoolThread).collect(toList()), hasItem(true));
+    }
+
+    @Test
+    void listMismatchIsSameAsSequential() {
+        final List<Element> expected = elements(SIZE, null);
+        final List<Element> actual = elements(SIZE, null);
+        IntStream.range(0, 15).forEach(i -> actual.set(i * 300 + 7, new Element(-1, "other", null)));
+
+        assertSameMismatch(expected, actual);
+    }
+
+    @Test
+    void listMismatchWithFewDifferencesIsSameAsSequential() {
+        final List<Element> expected = elements(SIZE, null);
+        final List<Element> actual = elements(SIZE, null);
+        actual.set(SIZE - 1, new Element(-1, "other", null));
+
+        assertSameMismatch(expected, actual);
+    }
+
+    @Test
+    void setMismatchIsSameAsSequential() {
+        final Set<Element> expected = new LinkedHashSet<>(elements(SIZE, null));
+        final Set<Element> actual = elements(SIZE, null).stream().map(e -> e.getId() % 1000 == 0
+                ? new Element(e.getId(), "other", null)
+                : e).collect(toCollection(LinkedHashSet::new));
+
+        assertSameMismatch(expected, actual);
+    }
+
+    @Test
+    void largeSetMatcherIsCreatedInParallel() {
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final Set<Element> expected = new LinkedHashSet<>(elements(SIZE, threads));
+
+        AutoMatcher.equalTo(expected, parallelism);
+
+        assertThat(threads.stream().map(this::isPoolThread).collect(toList()), hasItem(true));
+    }
+
+    @Test
+    void setCreatedInParallelIsDescribedLikeSequential() {
+        final Set<Partner> expected = new LinkedHashSet<>(partners(SIZE));
+
+        assertThat(StringDescription.toString(AutoMatcher.equalTo(expected, parallelism)),
+                equalTo(StringDescription.toString(AutoMatcher.equalTo(expected))));
+    }
+
+    @Test
+    void setWithReferencesCreatedInParallelMatches() {
+        final Set<Partner> expected = new LinkedHashSet<>(partners(SIZE));
+        final List<Partner> actual = partners(SIZE);
+        actual.get(42).partner = actual.get(7);
+
+        assertThat(new LinkedHashSet<>(partners(SIZE)), AutoMatcher.equalTo(expected, parallelism));
+        assertSameMismatch(expected, new LinkedHashSet<>(actual));
+    }
+
+    @Test
+    void nestedMatchersAreCreatedConcurrently() {
+        final CountDownLatch creating = new CountDownLatch(2);
+        final List<Holder> expected = holders(SIZE, null);
+        expected.set(0, new Holder(0, new Child("child0", creating)));
+        expected.set(SIZE - 1, new Holder(SIZE - 1, new Child("child" + (SIZE - 1), creating)));
+
+        assertThat(new LinkedHashSet<>(holders(SIZE, null)),
+                AutoMatcher.equalTo(new LinkedHashSet<>(expected), parallelism));
+        assertAll(() -> assertThat(expected.get(0).getChild().createdConcurrently, is(true)),
+                () -> assertThat(expected.get(SIZE - 1).getChild().createdConcurrently, is(true)));
+    }
+
+    @Test
+    void invalidThresholdIsRejected() {
+        final Parallelism.Builder builder = Parallelism.builder();
+        assertAll(() -> assertThrows(IllegalArgumentException.class, () -> builder.comparisonThreshold(0)),
+                () -> assertThrows(IllegalArgumentException.class, () -> builder.constructionThreshold(0)));
+    }
+
+    private <T> void assertSameMismatch(final T expected, final T actual) {
+        final Matcher<T> parallelMatcher = AutoMatcher.equalTo(expected, parallelism);
+        final Matcher<T> sequentialMatcher = AutoMatcher.equalTo(expected);
+        assertThat(parallelMatcher.matches(actual), is(false));
+        assertThat(describeMismatch(parallelMatcher, actual), equalTo(describeMismatch(sequentialMatcher, actual)));
+    }
+
+    private static String describeMismatch(final Matcher<?> matcher, final Object actual) {
+        final StringDescription description = new StringDescription();
+        matcher.describeMismatch(actual, description);
+        return description.toString();
+    }
+
+    private boolean isPoolThread(final Thread thread) {
+        return thread instanceof java.util.concurrent.ForkJoinWorkerThread
+                && ((java.util.concurrent.ForkJoinWorkerThread) thread).getPool() == pool;
+    }
+
+    private static List<Element> elements(final int count, final Set<Thread> threads) {
+        return IntStream.range(0, count).mapToObj(i -> new Element(i, "element" + i, threads))
+                .collect(toCollection(ArrayList::new));
+    }
+
+    private static List<Holder> holders(final int count, final CountDownLatch creating) {
+        return IntStream.range(0, count).mapToObj(i -> new Holder(i, new Child("child" + i, creating)))
+                .collect(toCollection(ArrayList::new));
+    }
+
+    /**
+     * Create pairs of elements referencing each other.
+     */
+    private static List<Partner> partners(final int count) {
+        final List<Partner> partners = IntStream.range(0, count).mapToObj(Partner::new)
+                .collect(toCollection(ArrayList::new));
+        for (int i = 0; i < count; i++) {
+            partners.get(i).partner = partners.get(i ^ 1);
+        }
+        return partners;
+    }
+
+    public static class Partner {
+        private final int id;
+        private Partner partner;
+
+        Partner(final int id) {
+            this.id = id;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public Partner getPartner() {
+            return partner;
+        }
+
+        @Override
+        public String toString() {
+            return "Partner" + id;
+        }
+    }
+
+    public static class Holder {
+        private final int id;
+        private final Child child;
+
+        Holder(final int id, final Child child) {
+            this.id = id;
+            this.child = child;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public Child getChild() {
+            return child;
+        }
+    }
+
+    /**
+     * A child whose properties are read when its matcher is created. If it has
+     * a latch, reading waits until another thread is creating a matcher, too.
+     */
+    public static class Child {
+        private final String name;
+        private final CountDownLatch creating;
+        private volatile boolean createdConcurrently = false;
+
+        Child(final String name, final CountDownLatch creating) {
+            this.name = name;
+            this.creating = creating;
+        }
+
+        public String getName() {
+            if (creating != null && !createdConcurrently) {
+                creating.countDown();
+                createdConcurrently = awaitOtherThread();
+            }
+            return name;
+        }
+
+        private boolean awaitOtherThread() {
+            try {
+                return creating.await(10, TimeUnit.SECONDS);
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    public static class Element {
+        private final int id;
+        private final String name;
+        private final Set<Thread> threads;
+
+        Element(final int id, final String name, final Set<Thread> threads) {
+            this.id = id;
+            this.name = name;
+            this.threads = threads;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            if (threads != null) {
+                threads.add(Thread.currentThread());
+            }
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return "Element" + id;
+        }
+    }
+}
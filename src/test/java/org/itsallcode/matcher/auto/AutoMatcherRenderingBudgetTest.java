@@ -0,0 +1,170 @@
+package org.itsallcode.matcher.auto;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.Matchers;
+import org.hamcrest.StringDescription;
+import org.itsallcode.matcher.RenderingBudget;
+import org.junit.jupiter.api.Test;
+
+class AutoMatcherRenderingBudgetTest {
+
+    private static final RenderingBudget BUDGET = RenderingBudget.builder().maxCharacters(1000).maxElements(3)
+            .maxDepth(2).build();
+
+    @Test
+    void largeListIsElided() {
+        final Matcher<ListModel> matcher = BUDGET.limit(AutoMatcher.equalTo(new ListModel(strings(200_000))));
+        assertThat(StringDescription.toString(matcher),
+                equalTo("{values=iterable containing [\"0\", \"1\", \"2\", ... 199,997 more]}"));
+    }
+
+    @Test
+    void failingAssertionIsTruncated() {
+        final Matcher<ListModel> matcher = RenderingBudget.builder().maxCharacters(1000).maxElements(100_000).build()
+                .limit(AutoMatcher.equalTo(new ListModel(strings(200_000))));
+        final List<String> actualValues = strings(200_000);
+        actualValues.set(5, "other");
+
+        final AssertionError error = assertThrows(AssertionError.class,
+                () -> assertThat(new ListModel(actualValues), matcher));
+
+        assertThat(error.getMessage().length(), lessThan(2100));
+        assertThat(error.getMessage(), endsWith("{values item 5: was \"other\"}"));
+    }
+
+    @Test
+    void expectedDescriptionIsTruncated() {
+        final Matcher<ListModel> matcher = RenderingBudget.builder().maxCharacters(20).build()
+                .limit(AutoMatcher.equalTo(new ListModel(strings(200_000))));
+        assertThat(StringDescription.toString(matcher), equalTo("{values=iterable con..."));
+    }
+
+    @Test
+    void deepObjectsAreElided() {
+        final Matcher<Node> matcher = BUDGET.limit(AutoMatcher.equalTo(chain("expected", 4)));
+        assertThat(StringDescription.toString(matcher), equalTo("{value=\"expected0\", child={value=\"expected1\", "
+                + "child={...}}}"));
+    }
+
+    @Test
+    void deepMismatchIsElided() {
+        final Matcher<Node> matcher = BUDGET.limit(AutoMatcher.equalTo(chain("expected", 4)));
+        final Node actual = chain("expected", 4);
+        actual.child.child.child.value = "actual";
+
+        assertThat(matcher.matches(actual), equalTo(false));
+        assertThat(describeMismatch(matcher, actual), equalTo("{child {child {...}}}"));
+    }
+
+    @Test
+    void mismatchWithinDepthIsDescribed() {
+        final Matcher<Node> matcher = BUDGET.limit(AutoMatcher.equalTo(chain("expected", 4)));
+        final Node actual = chain("expected", 4);
+        actual.child.value = "actual";
+
+        assertThat(describeMismatch(matcher, actual), equalTo("{child {value was \"actual\"}}"));
+    }
+
+    @Test
+    void mapMismatchesAreElided() {
+        final Map<String, Integer> expected = Map.of("a", 1);
+        final Map<String, Integer> actual = IntStream.range(0, 50).boxed()
+                .collect(toMap(i -> "key" + i, Function.identity()));
+        actual.put("a", 1);
+
+        final Matcher<Map<String, Integer>> matcher = BUDGET.limit(AutoMatcher.equalTo(expected));
+
+        assertThat(describeMismatch(matcher, actual), endsWith(", ... 47 more}"));
+    }
+
+    @Test
+    void hamcrestValuesAreElided() {
+        final Matcher<List<String>> matcher = BUDGET.limit(Matchers.equalTo(strings(1000)));
+        assertThat(StringDescription.toString(matcher), equalTo("<[0, 1, 2, ... 997 more]>"));
+    }
+
+    @Test
+    void hamcrestArraysAreElided() {
+        final Matcher<int[]> matcher = BUDGET.limit(Matchers.equalTo(new int[1000]));
+        assertThat(StringDescription.toString(matcher), equalTo("[<0>, <0>, <0>, ... 997 more]"));
+    }
+
+    @Test
+    void unlimitedBudgetDoesNotChangeDescription() {
+        final ListModel expected = new ListModel(strings(100));
+        assertThat(StringDescription.toString(RenderingBudget.unlimited().limit(AutoMatcher.equalTo(expected))),
+                equalTo(StringDescription.toString(AutoMatcher.equalTo(expected))));
+    }
+
+    @Test
+    void budgetIsOnlyAppliedWhileDescribing() {
+        assertThat(RenderingBudget.current(), equalTo(RenderingBudget.unlimited()));
+    }
+
+    @Test
+    void invalidLimitIsRejected() {
+        final RenderingBudget.Builder builder = RenderingBudget.builder();
+        assertThrows(IllegalArgumentException.class, () -> builder.maxElements(0));
+    }
+
+    private static String describeMismatch(final Matcher<?> matcher, final Object actual) {
+        final StringDescription description = new StringDescription();
+        matcher.describeMismatch(actual, description);
+        return description.toString();
+    }
+
+    private static List<String> strings(final int count) {
+        return IntStream.range(0, count).mapToObj(String::valueOf).collect(toList());
+    }
+
+    private static Node chain(final String value, final int length) {
+        Node node = null;
+        for (int i = length - 1; i >= 0; i--) {
+            node = new Node(value + i, node);
+        }
+        return node;
+    }
+
+    public static class ListModel {
+        private final List<String> values;
+
+        ListModel(final List<String> values) {
+            this.values = values;
+        }
+
+        public List<String> getValues() {
+            return values;
+        }
+    }
+
+    public static class Node {
+        private String value;
+        private final Node child;
+
+        Node(final String value, final Node child) {
+            this.value = value;
+            this.child = child;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public Node getChild() {
+            return child;
+        }
+    }
+}
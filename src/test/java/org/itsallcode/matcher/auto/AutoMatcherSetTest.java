@@ -1,12 +1,21 @@
 package org.itsallcode.matcher.auto;
 
 import static java.util.Collections.emptySet;
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
 import static org.itsallcode.matcher.auto.TestUtil.assertValuesDoNotMatch;
 import static org.itsallcode.matcher.auto.TestUtil.assertValuesMatch;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.stream.IntStream;
 
+import org.hamcrest.*;
 import org.itsallcode.matcher.model.DemoAttribute;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.RepeatedTest;
 import org.junit.jupiter.api.Test;
 
@@ -59,4 +68,132 @@ class AutoMatcherSetTest {
         final Set<String> set2 = new LinkedHashSet<>(List.of("b", "a"));
         assertValuesMatch(set1, set2);
     }
+
+    @Test
+    void largeSetOfModelsMatches() {
+        final Set<Item> expected = items(2_000);
+        final Set<Item> actual = new LinkedHashSet<>(items(2_000).stream().sorted(
+                Comparator.comparing(Item::getId).reversed()).collect(toList()));
+        final Matcher<Set<Item>> matcher = AutoMatcher.equalTo(expected);
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThat(actual, matcher));
+    }
+
+    @Test
+    void modelsWithSameHashAreCompared() {
+        final Set<Item> expected = new LinkedHashSet<>(
+                List.of(new Item(1, "a", new DemoAttribute("x")), new Item(1, "a", new DemoAttribute("y"))));
+        final Set<Item> actual = new LinkedHashSet<>(
+                List.of(new Item(1, "a", new DemoAttribute("y")), new Item(1, "a", new DemoAttribute("x"))));
+        assertValuesMatch(expected, actual);
+    }
+
+    @Test
+    void modelsOfOtherClassAreCompared() {
+        final Set<Item> expected = new LinkedHashSet<>(List.of(new Item(1, "a", null)));
+        final Set<Item> actual = new LinkedHashSet<>(List.of(new SubItem(1, "a", null)));
+        assertValuesMatch(expected, actual);
+    }
+
+    @Test
+    void setWithNullElementMatches() {
+        final Set<String> expected = new LinkedHashSet<>(Arrays.asList("a", null));
+        final Set<String> actual = new LinkedHashSet<>(Arrays.asList(null, "a"));
+        assertValuesMatch(expected, actual);
+    }
+
+    @Test
+    void descriptionForMissingModel() {
+        assertSameDescriptionAsHamcrest(items(3), items(2));
+    }
+
+    @Test
+    void descriptionForAdditionalModel() {
+        assertSameDescriptionAsHamcrest(items(2), items(3));
+    }
+
+    @Test
+    void descriptionForDifferentModel() {
+        final Set<Item> actual = items(3);
+        final Item unmatched = new Item(1, "a", new DemoAttribute("other"));
+        actual.add(unmatched);
+        final Set<Item> expected = items(4);
+        final Item missing = new ArrayList<>(expected).get(3);
+        assertMismatchDescription(expected, actual, "not matched: <" + unmatched + ">; no item matches: "
+                + StringDescription.toString(AutoMatcher.equalTo(missing)));
+    }
+
+    @Test
+    void descriptionForDifferentSimpleValue() {
+        assertMismatchDescription(new LinkedHashSet<>(List.of("a", "b", "c")),
+                new LinkedHashSet<>(List.of("c", "a", "d")), "not matched: \"d\"; no item matches: \"b\"");
+    }
+
+    @Test
+    void descriptionForMissingSimpleValue() {
+        assertSameDescriptionAsHamcrest(new LinkedHashSet<>(List.of(1, 2, 3)), new LinkedHashSet<>(List.of(3, 1)));
+    }
+
+    private static <T> void assertSameDescriptionAsHamcrest(final Set<T> expected, final Set<T> actual) {
+        final List<Matcher<? super T>> elementMatchers = expected.stream().map(AutoMatcher::equalTo)
+                .collect(toList());
+        final Matcher<Iterable<? extends T>> hamcrestMatcher = Matchers.containsInAnyOrder(elementMatchers);
+        final Matcher<Set<T>> matcher = AutoMatcher.equalTo(expected);
+        assertThat(matcher.matches(actual), is(false));
+        assertThat(describeMismatch(matcher, actual), equalTo(describeMismatch(hamcrestMatcher, actual)));
+        assertThat(StringDescription.toString(matcher), equalTo(StringDescription.toString(hamcrestMatcher)));
+    }
+
+    private static <T> void assertMismatchDescription(final Set<T> expected, final Set<T> actual,
+            final String expectedDescription) {
+        final Matcher<Set<T>> matcher = AutoMatcher.equalTo(expected);
+        assertThat(matcher.matches(actual), is(false));
+        assertThat(describeMismatch(matcher, actual), equalTo(expectedDescription));
+    }
+
+    private static String describeMismatch(final Matcher<?> matcher, final Object actual) {
+        final Description description = new StringDescription();
+        matcher.describeMismatch(actual, description);
+        return description.toString();
+    }
+
+    private static Set<Item> items(final int count) {
+        return IntStream.range(0, count) //
+                .mapToObj(i -> new Item(i, "item" + i, new DemoAttribute("value" + (i % 10)))) //
+                .collect(toCollection(LinkedHashSet::new));
+    }
+
+    public static class Item {
+        private final int id;
+        private final String name;
+        private final DemoAttribute attribute;
+
+        Item(final int id, final String name, final DemoAttribute attribute) {
+            this.id = id;
+            this.name = name;
+            this.attribute = attribute;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public DemoAttribute getAttribute() {
+            return attribute;
+        }
+
+        @Override
+        public String toString() {
+            return "Item [id=" + id + ", name=" + name + "]";
+        }
+    }
+
+    public static class SubItem extends Item {
+        SubItem(final int id, final String name, final DemoAttribute attribute) {
+            super(id, name, attribute);
+        }
+    }
 }
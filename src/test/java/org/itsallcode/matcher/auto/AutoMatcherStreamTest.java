@@ -0,0 +1,253 @@
+package org.itsallcode.matcher.auto;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.itsallcode.matcher.model.DemoAttribute;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AutoMatcherStreamTest {
+
+    @Test
+    void streamMatches() {
+        assertThat(Stream.of("a", "b"), AutoMatcher.equalTo(Stream.of("a", "b")));
+    }
+
+    @Test
+    void intStreamMatches() {
+        assertThat(IntStream.range(0, 100), AutoMatcher.equalTo(IntStream.range(0, 100)));
+    }
+
+    @Test
+    void iteratorMatches() {
+        assertThat(List.of(1, 2).iterator(), AutoMatcher.equalTo(List.of(1, 2).iterator()));
+    }
+
+    @Test
+    void streamOfModelsMatches() {
+        assertThat(Stream.of(new DemoAttribute("a")), AutoMatcher.equalTo(Stream.of(new DemoAttribute("a"))));
+    }
+
+    @Test
+    void streamWithDifferentElementDoesNotMatch() {
+        assertThat(Stream.of("a", "c"), not(AutoMatcher.equalTo(Stream.of("a", "b"))));
+    }
+
+    @Test
+    void directoryStreamMatches(@TempDir final Path tempDir) throws IOException {
+        Files.createFile(tempDir.resolve("file1"));
+        Files.createFile(tempDir.resolve("file2"));
+        try (DirectoryStream<Path> expected = Files.newDirectoryStream(tempDir);
+                DirectoryStream<Path> actual = Files.newDirectoryStream(tempDir)) {
+            assertThat(actual, AutoMatcher.equalTo(expected));
+        }
+    }
+
+    @Test
+    void description() {
+        assertThat(StringDescription.toString(AutoMatcher.equalTo(Stream.of("a", "b"))),
+                equalTo("sequence containing [\"a\", \"b\"]"));
+    }
+
+    @Test
+    void descriptionOfLongSequenceIsTruncated() {
+        assertThat(StringDescription.toString(AutoMatcher.containsSequence(range(100))),
+                equalTo("sequence containing [<0>, <1>, <2>, <3>, <4>, <5>, <6>, <7>, <8>, <9>, <10>, <11>, <12>, "
+                        + "<13>, <14>, <15>, <16>, <17>, <18>, <19>, <20>, <21>, <22>, <23>, <24>, <25>, <26>, "
+                        + "<27>, <28>, <29>, <30>, <31>, ...]"));
+    }
+
+    @Test
+    void actualIsConsumedOnceWhenAssertionFails() {
+        final CountingIterator actual = new CountingIterator(10, 5);
+        final Matcher<Object> matcher = AutoMatcher.equalTo(IntStream.range(0, 10).iterator());
+
+        final AssertionError error = assertThrows(AssertionError.class, () -> assertThat(actual, matcher));
+
+        assertThat(error.getMessage(), equalTo("\nExpected: sequence containing [<0>, <1>, <2>, <3>, <4>, <5>, "
+                + "<6>, <7>, <8>, <9>]\n     but: item 5: was <-1>"));
+        assertThat(actual.consumed, equalTo(6));
+    }
+
+    @Test
+    void shorterSequenceDoesNotMatch() {
+        assertMismatch(Stream.of("a"), Stream.of("a", "b"), "no item was \"b\"");
+    }
+
+    @Test
+    void longerSequenceDoesNotMatch() {
+        assertMismatch(Stream.of("a", "b"), Stream.of("a"), "not matched: \"b\"");
+    }
+
+    @Test
+    void differentModelElement() {
+        assertMismatch(Stream.of(new DemoAttribute("a"), new DemoAttribute("c")),
+                Stream.of(new DemoAttribute("a"), new DemoAttribute("b")), "item 1: {value was \"c\"}");
+    }
+
+    @Test
+    void mismatchIsOnlyDescribedWhenReported() {
+        final CountingToString unexpected = new CountingToString();
+        final Matcher<Object> matcher = AutoMatcher.equalTo(Stream.of("a"));
+        final Stream<Object> actual = Stream.of("a", unexpected);
+
+        assertThat(matcher.matches(actual), is(false));
+        assertThat(unexpected.toStringCount, equalTo(0));
+
+        final StringDescription description = new StringDescription();
+        matcher.describeMismatch(actual, description);
+        assertThat(description.toString(), equalTo("not matched: <counting>"));
+        assertThat(unexpected.toStringCount, equalTo(1));
+    }
+
+    @Test
+    void valueOfOtherTypeDoesNotMatch() {
+        assertMismatch("value", Stream.of("a"), "was \"value\"");
+    }
+
+    @Test
+    void modelWithStreamProperty() {
+        assertThat(new StreamModel(List.of("a", "b")), AutoMatcher.equalTo(new StreamModel(List.of("a", "b"))));
+        assertMismatch(new StreamModel(List.of("a", "c")), new StreamModel(List.of("a", "b")),
+                "{values item 1: was \"c\"}");
+    }
+
+    @Test
+    void modelWithStoredStreamProperty() {
+        assertThat(new StoredStreamModel(Stream.of("a", "b")),
+                AutoMatcher.equalTo(new StoredStreamModel(Stream.of("a", "b"))));
+        assertMismatch(new StoredStreamModel(Stream.of("a", "c")), new StoredStreamModel(Stream.of("a", "b")),
+                "{values item 1: was \"c\"}");
+    }
+
+    @Test
+    void modelWithStoredIteratorProperty() {
+        assertThat(new StoredIteratorModel(List.of("a", "b").iterator()),
+                AutoMatcher.equalTo(new StoredIteratorModel(List.of("a", "b").iterator())));
+        assertMismatch(new StoredIteratorModel(List.of("a", "c").iterator()),
+                new StoredIteratorModel(List.of("a", "b").iterator()), "{values item 1: was \"c\"}");
+    }
+
+    @Test
+    void failingAssertionOfModelWithStoredStreamDescribesMismatch() {
+        final Matcher<StoredStreamModel> matcher = AutoMatcher.equalTo(new StoredStreamModel(Stream.of("a", "b")));
+        final StoredStreamModel actual = new StoredStreamModel(Stream.of("a", "c"));
+
+        final AssertionError error = assertThrows(AssertionError.class, () -> assertThat(actual, matcher));
+
+        assertThat(error.getMessage(),
+                equalTo("\nExpected: {values=sequence containing [\"a\", \"b\"]}\n"
+                        + "     but: {values item 1: was \"c\"}"));
+    }
+
+    @Test
+    void veryLongSequenceMatchesWithoutCopying() {
+        final int size = 20_000_000;
+        final Matcher<Object> matcher = AutoMatcher.containsSequence(range(size));
+
+        assertThat(matcher.matches(IntStream.range(0, size)), is(true));
+        assertThat(matcher.matches(IntStream.range(0, size + 1).iterator()), is(false));
+    }
+
+    private static Iterable<Integer> range(final int size) {
+        return () -> IntStream.range(0, size).iterator();
+    }
+
+    private static void assertMismatch(final Object actual, final Object expected, final String expectedMismatch) {
+        final Matcher<Object> matcher = AutoMatcher.equalTo(expected);
+        assertThat(matcher.matches(actual), is(false));
+        final StringDescription description = new StringDescription();
+        matcher.describeMismatch(actual, description);
+        assertThat(description.toString(), equalTo(expectedMismatch));
+    }
+
+    private static final class CountingToString {
+        private int toStringCount = 0;
+
+        @Override
+        public String toString() {
+            toStringCount++;
+            return "counting";
+        }
+    }
+
+    /**
+     * Counts the consumed elements and fails when traversed after the end.
+     */
+    private static final class CountingIterator implements Iterator<Integer> {
+        private final int size;
+        private final int differentIndex;
+        private int consumed = 0;
+
+        private CountingIterator(final int size, final int differentIndex) {
+            this.size = size;
+            this.differentIndex = differentIndex;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return consumed < size;
+        }
+
+        @Override
+        public Integer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final int index = consumed++;
+            return index == differentIndex ? -1 : index;
+        }
+    }
+
+    public static class StoredStreamModel {
+        private final Stream<String> values;
+
+        StoredStreamModel(final Stream<String> values) {
+            this.values = values;
+        }
+
+        public Stream<String> getValues() {
+            return values;
+        }
+    }
+
+    public static class StoredIteratorModel {
+        private final Iterator<String> values;
+
+        StoredIteratorModel(final Iterator<String> values) {
+            this.values = values;
+        }
+
+        public Iterator<String> getValues() {
+            return values;
+        }
+    }
+
+    public static class StreamModel {
+        private final List<String> values;
+
+        StreamModel(final List<String> values) {
+            this.values = values;
+        }
+
+        public Stream<String> getValues() {
+            return values.stream();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.itsallcode.matcher.auto;
+
+import static java.util.Collections.emptyList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.itsallcode.matcher.auto.AutoMatcherCompiledTest.PrimitiveModel;
+import org.itsallcode.matcher.auto.other.OtherPackageModels;
+import org.itsallcode.matcher.model.DemoAttribute;
+import org.itsallcode.matcher.model.DemoModel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ComparatorGeneratorTest {
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    void comparesProperties(final boolean hiddenClass) {
+        final TypeComparator.PropertiesComparison comparison = generate(DemoModel.class, hiddenClass);
+        final DemoModel expected = model(1, "name");
+        assertAll(() -> assertThat(comparison.matches(expected, model(1, "name"), null), equalTo(true)),
+                () -> assertThat(comparison.matches(expected, model(2, "name"), null), equalTo(false)),
+                () -> assertThat(comparison.matches(expected, model(1, "other"), null), equalTo(false)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    void comparesPrimitivesWithoutBoxing(final boolean hiddenClass) {
+        final TypeComparator.PropertiesComparison comparison = generate(PrimitiveModel.class, hiddenClass);
+        final PrimitiveModel expected = new PrimitiveModel(1, 2L, Double.NaN, 0.0F, true, 'a');
+        assertAll(
+                () -> assertThat(comparison.matches(expected,
+                        new PrimitiveModel(1, 2L, Double.NaN, 0.0F, true, 'a'), null), equalTo(true)),
+                () -> assertThat(comparison.matches(expected,
+                        new PrimitiveModel(1, 3L, Double.NaN, 0.0F, true, 'a'), null), equalTo(false)),
+                () -> assertThat(comparison.matches(expected,
+                        new PrimitiveModel(1, 2L, 0.0, 0.0F, true, 'a'), null), equalTo(false)),
+                () -> assertThat(comparison.matches(expected,
+                        new PrimitiveModel(1, 2L, Double.NaN, -0.0F, true, 'a'), null), equalTo(false)),
+                () -> assertThat(comparison.matches(expected,
+                        new PrimitiveModel(1, 2L, Double.NaN, 0.0F, false, 'a'), null), equalTo(false)),
+                () -> assertThat(comparison.matches(expected,
+                        new PrimitiveModel(1, 2L, Double.NaN, 0.0F, true, 'b'), null), equalTo(false)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    void wrapsExceptionOfGetter(final boolean hiddenClass) {
+        final TypeComparator.PropertiesComparison comparison = generate(ThrowingModel.class, hiddenClass);
+        final ThrowingModel expected = new ThrowingModel(null);
+        final ThrowingModel actual = new ThrowingModel(new UnsupportedOperationException("expected"));
+        final IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> comparison.matches(expected, actual, null));
+        assertThat(exception.getCause(), instanceOf(UnsupportedOperationException.class));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    void rethrowsErrorOfGetter(final boolean hiddenClass) {
+        final TypeComparator.PropertiesComparison comparison = generate(ThrowingModel.class, hiddenClass);
+        final ThrowingModel expected = new ThrowingModel(new StackOverflowError("expected"));
+        final ThrowingModel actual = new ThrowingModel(null);
+        assertThrows(StackOverflowError.class, () -> comparison.matches(expected, actual, null));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    void wrongTypeFails(final boolean hiddenClass) {
+        final TypeComparator.PropertiesComparison comparison = generate(DemoAttribute.class, hiddenClass);
+        final DemoAttribute expected = new DemoAttribute("attr");
+        final AssertionError error = assertThrows(AssertionError.class,
+                () -> comparison.matches(expected, "wrong", null));
+        assertThat(error.getMessage(), equalTo(
+                "Expected object of type org.itsallcode.matcher.model.DemoAttribute but got java.lang.String: wrong"));
+    }
+
+    @Test
+    void noComparisonForNonPublicClass() {
+        final Class<?> type = PropertyGetterTest.NonPublicModel.class;
+        assertThat(ComparatorGenerator.generate(type, AutoConfigBuilder.getGetters(type)), nullValue());
+    }
+
+    @Test
+    void noComparisonForNonPublicClassInOtherPackage() {
+        final Class<?> type = OtherPackageModels.create(1).getClass();
+        assertThat(ComparatorGenerator.generate(type, AutoConfigBuilder.getGetters(type)), nullValue());
+    }
+
+    private static TypeComparator.PropertiesComparison generate(final Class<?> type, final boolean hiddenClass) {
+        assumeTrue(!hiddenClass || Runtime.version().feature() >= 15, "Hidden classes require Java 15");
+        final TypeComparator.PropertiesComparison comparison = ComparatorGenerator.generate(type,
+                AutoConfigBuilder.getGetters(type), hiddenClass);
+        assertThat(comparison, notNullValue());
+        return comparison;
+    }
+
+    private static DemoModel model(final int id, final String name) {
+        return new DemoModel(id, name, 42L, new DemoAttribute("attr"), new String[] { "a" }, emptyList());
+    }
+
+    public static class ThrowingModel {
+        private final Throwable failure;
+
+        ThrowingModel(final Throwable failure) {
+            this.failure = failure;
+        }
+
+        public String getValue() throws Throwable {
+            if (failure != null) {
+                throw failure;
+            }
+            return "value";
+        }
+    }
+}
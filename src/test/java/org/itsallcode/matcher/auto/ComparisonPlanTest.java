@@ -0,0 +1,120 @@
+package org.itsallcode.matcher.auto;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.itsallcode.matcher.auto.AutoMatcherCompiledTest.collections;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.itsallcode.matcher.auto.AutoMatcherCompiledTest.CollectionModel;
+import org.itsallcode.matcher.model.DemoAttribute;
+import org.itsallcode.matcher.model.DemoModel;
+import org.junit.jupiter.api.Test;
+
+class ComparisonPlanTest {
+
+    private final ComparisonPlan<DemoModel> plan = AutoMatcher.planFor(DemoModel.class);
+
+    @Test
+    void planIsCreatedForType() {
+        assertThat(plan.getType(), sameInstance(DemoModel.class));
+    }
+
+    @Test
+    void matchingObjects() {
+        final DemoModel expected = model(1, asList(model(2, emptyList())));
+        final DemoModel actual = model(1, asList(model(2, emptyList())));
+        assertAll(() -> assertThat(plan.matches(expected, actual), equalTo(true)),
+                () -> assertThat(plan.diff(expected, actual), equalTo(Optional.empty())));
+    }
+
+    @Test
+    void differentObjects() {
+        final DemoModel expected = model(1, asList(model(2, emptyList())));
+        final DemoModel actual = model(1, asList(model(3, emptyList())));
+        assertAll(() -> assertThat(plan.matches(expected, actual), equalTo(false)),
+                () -> assertThat(plan.diff(expected, actual),
+                        equalTo(Optional.of(describeMismatch(expected, actual)))));
+    }
+
+    @Test
+    void severalDifferentProperties() {
+        final DemoModel expected = model(1, asList(model(2, emptyList())));
+        final DemoModel actual = new DemoModel(1, "other", 42L, new DemoAttribute("attr1"), new String[] { "b" },
+                asList(model(3, emptyList())));
+        assertThat(plan.diff(expected, actual), equalTo(Optional.of(describeMismatch(expected, actual))));
+    }
+
+    @Test
+    void collectionProperties() {
+        final ComparisonPlan<CollectionModel> collectionPlan = AutoMatcher.planFor(CollectionModel.class);
+        final CollectionModel expected = collections("a", "b");
+        final CollectionModel actual = collections("a", "c");
+        final StringDescription description = new StringDescription();
+        AutoMatcher.equalTo(expected).describeMismatch(actual, description);
+        assertAll(() -> assertThat(collectionPlan.matches(expected, collections("a", "b")), equalTo(true)),
+                () -> assertThat(collectionPlan.matches(expected, actual), equalTo(false)),
+                () -> assertThat(collectionPlan.diff(expected, actual),
+                        equalTo(Optional.of(description.toString()))));
+    }
+
+    @Test
+    void nullObjects() {
+        final DemoModel model = model(1, emptyList());
+        assertAll(() -> assertThat(plan.matches(null, null), equalTo(true)),
+                () -> assertThat(plan.matches(model, null), equalTo(false)),
+                () -> assertThat(plan.matches(null, model), equalTo(false)),
+                () -> assertThat(plan.diff(model, null), equalTo(Optional.of("was null"))));
+    }
+
+    @Test
+    void planIsReusedForManyPairs() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(plan.matches(model(i, emptyList()), model(i, emptyList())), equalTo(true));
+            assertThat(plan.matches(model(i, emptyList()), model(i + 1, emptyList())), equalTo(false));
+        }
+    }
+
+    @Test
+    void planForSimpleType() {
+        final ComparisonPlan<String> stringPlan = AutoMatcher.planFor(String.class);
+        assertAll(() -> assertThat(stringPlan.matches("a", "a"), equalTo(true)),
+                () -> assertThat(stringPlan.diff("a", "b"), equalTo(Optional.of("was \"b\""))));
+    }
+
+    @Test
+    void planForTypeWithoutPropertiesFails() {
+        final IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> AutoMatcher.planFor(Object.class));
+        assertThat(exception.getMessage(),
+                equalTo("Failed to build MatcherConfig: Class java.lang.Object has no properties."));
+    }
+
+    @Test
+    void matcherAdapter() {
+        final DemoModel expected = model(1, emptyList());
+        final Matcher<DemoModel> matcher = plan.matcher(expected);
+        assertAll(() -> assertThat(model(1, emptyList()), matcher),
+                () -> assertThat(matcher.matches(model(2, emptyList())), equalTo(false)),
+                () -> assertThat(StringDescription.toString(matcher),
+                        equalTo(StringDescription.toString(AutoMatcher.equalTo(expected)))));
+    }
+
+    private static String describeMismatch(final DemoModel expected, final DemoModel actual) {
+        final StringDescription description = new StringDescription();
+        AutoMatcher.equalTo(expected).describeMismatch(actual, description);
+        return description.toString();
+    }
+
+    private static DemoModel model(final int id, final List<DemoModel> children) {
+        return new DemoModel(id, "name" + id, 42L, new DemoAttribute("attr" + id), new String[] { "a" }, children);
+    }
+}
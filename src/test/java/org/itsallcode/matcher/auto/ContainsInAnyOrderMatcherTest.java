@@ -0,0 +1,88 @@
+package org.itsallcode.matcher.auto;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.hamcrest.*;
+import org.junit.jupiter.api.Test;
+
+class ContainsInAnyOrderMatcherTest {
+
+    @Test
+    void matchesWhenFirstMatchIsNotOptimal() {
+        final Matcher<Iterable<? extends String>> matcher = ContainsInAnyOrderMatcher
+                .create(List.of(anyOf(equalTo("a"), equalTo("b")), equalTo("a")));
+        assertThat(matcher.matches(List.of("a", "b")), is(true));
+    }
+
+    @Test
+    void describesMinimalUnmatchedElements() {
+        final Matcher<Iterable<? extends String>> matcher = ContainsInAnyOrderMatcher
+                .create(List.of(anyOf(equalTo("a"), equalTo("b")), equalTo("a"), equalTo("c")));
+        assertThat(describeMismatch(matcher, List.of("a", "b", "d")),
+                equalTo("not matched: \"d\"; no item matches: \"c\""));
+    }
+
+    @Test
+    void describesAdditionalElements() {
+        final Matcher<Iterable<? extends String>> matcher = ContainsInAnyOrderMatcher.create(List.of(equalTo("a")));
+        assertThat(describeMismatch(matcher, List.of("b", "a", "c")), equalTo("no match for: \"b\", \"c\""));
+    }
+
+    @Test
+    void describesMissingElements() {
+        final Matcher<Iterable<? extends String>> matcher = ContainsInAnyOrderMatcher
+                .create(List.of(equalTo("a"), equalTo("b")));
+        assertThat(describeMismatch(matcher, List.of("b")), equalTo("no item matches: \"a\" in [\"b\"]"));
+    }
+
+    @Test
+    void describesExpectedElements() {
+        final Matcher<Iterable<? extends String>> matcher = ContainsInAnyOrderMatcher
+                .create(List.of(equalTo("a"), equalTo("b")));
+        assertThat(StringDescription.toString(matcher), equalTo("iterable with items [\"a\", \"b\"] in any order"));
+    }
+
+    @Test
+    void describesNull() {
+        final Matcher<Iterable<? extends String>> matcher = ContainsInAnyOrderMatcher.create(List.of(equalTo("a")));
+        assertThat(describeMismatch(matcher, null), equalTo("was null"));
+    }
+
+    @Test
+    void findsLongAugmentingPath() {
+        final int count = 2000;
+        final List<Matcher<? super Integer>> matchers = IntStream.range(0, count)
+                .mapToObj(i -> anyOf(equalTo(i), equalTo(i + 1))).collect(toList());
+        final List<Integer> actual = new ArrayList<>();
+        IntStream.range(1, count).forEach(actual::add);
+        actual.add(0);
+        final Matcher<Iterable<? extends Integer>> matcher = ContainsInAnyOrderMatcher.create(matchers);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThat(actual, matcher));
+    }
+
+    @Test
+    void matchesWithStructuralHash() {
+        final Object[] expected = { "a", "b", null };
+        final List<Matcher<? super String>> matchers = asList(equalTo("a"), equalTo("b"), Matchers.nullValue());
+        final Matcher<Iterable<? extends String>> matcher = ContainsInAnyOrderMatcher.create(expected, matchers);
+        assertThat(matcher.matches(asList(null, "b", "a")), is(true));
+        assertThat(matcher.matches(asList(null, "b", "c")), is(false));
+    }
+
+    private static String describeMismatch(final Matcher<?> matcher, final Object actual) {
+        final Description description = new StringDescription();
+        matcher.describeMismatch(actual, description);
+        return description.toString();
+    }
+}
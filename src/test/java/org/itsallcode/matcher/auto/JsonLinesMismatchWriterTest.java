@@ -0,0 +1,202 @@
+package org.itsallcode.matcher.auto;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.hamcrest.Matcher;
+import org.itsallcode.matcher.JsonLinesMismatchWriter;
+import org.itsallcode.matcher.RenderingBudget;
+import org.itsallcode.matcher.model.DemoAttribute;
+import org.junit.jupiter.api.Test;
+
+class JsonLinesMismatchWriterTest {
+
+    @Test
+    void matchingObjectWritesNothing() {
+        final StringWriter output = new StringWriter();
+        final JsonLinesMismatchWriter writer = new JsonLinesMismatchWriter(output);
+
+        assertThat(writer.compare(AutoMatcher.equalTo(new Item("EUR", 1)), new Item("EUR", 1)), is(true));
+        assertThat(output.toString(), equalTo(""));
+        assertThat(writer.getCount(), equalTo(0L));
+    }
+
+    @Test
+    void differingPropertiesAreWrittenAsJsonValues() {
+        assertThat(write(new Item("EUR", 1), new Item("USD", 2)),
+                equalTo("{\"path\":\"amount\",\"kind\":\"DIFFERENT\",\"expected\":1,\"actual\":2}\n"
+                        + "{\"path\":\"currency\",\"kind\":\"DIFFERENT\",\"expected\":\"EUR\",\"actual\":\"USD\"}\n"));
+    }
+
+    @Test
+    void missingAndUnexpectedElementsLeaveOutFields() {
+        assertThat(write(List.of("a", "b"), List.of("a")),
+                equalTo("{\"path\":\"[1]\",\"kind\":\"MISSING\",\"expected\":\"b\"}\n"));
+        assertThat(write(List.of("a"), List.of("a", "b")),
+                equalTo("{\"path\":\"[1]\",\"kind\":\"UNEXPECTED\",\"actual\":\"b\"}\n"));
+    }
+
+    @Test
+    void stringsAreEscaped() {
+        assertThat(write(new Item("a\"b", 1), new Item("c\\d\n\u0001", 1)),
+                equalTo("{\"path\":\"currency\",\"kind\":\"DIFFERENT\","
+                        + "\"expected\":\"a\\\"b\",\"actual\":\"c\\\\d\\n\\u0001\"}\n"));
+    }
+
+    @Test
+    void otherValuesAreWrittenAsDescription() {
+        assertThat(write(List.of(new DemoAttribute("a")), Collections.singletonList(null)),
+                equalTo("{\"path\":\"[0]\",\"kind\":\"DIFFERENT\","
+                        + "\"expected\":\"{value=\\\"a\\\"}\",\"actual\":null}\n"));
+    }
+
+    @Test
+    void descriptionsAreLimitedByBudget() {
+        final StringWriter output = new StringWriter();
+        final JsonLinesMismatchWriter writer = new JsonLinesMismatchWriter(output,
+                RenderingBudget.builder().maxElements(2).build());
+
+        writer.compare(AutoMatcher.equalTo(new ListHolder(List.of(1, 2, 3, 4))), null);
+
+        assertThat(output.toString(), equalTo("{\"path\":\"\",\"kind\":\"DIFFERENT\","
+                + "\"expected\":\"{values=iterable containing [<1>, <2>, ... 2 more]}\",\"actual\":null}\n"));
+    }
+
+    @Test
+    void outputStreamIsWrittenAsUtf8() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonLinesMismatchWriter writer = new JsonLinesMismatchWriter(output)) {
+            writer.compare(AutoMatcher.equalTo(new Item("ä", 1)), new Item("ö", 1));
+        }
+        assertThat(output.toString(UTF_8),
+                equalTo("{\"path\":\"currency\",\"kind\":\"DIFFERENT\",\"expected\":\"ä\",\"actual\":\"ö\"}\n"));
+    }
+
+    @Test
+    void manyMismatchesAreStreamed() {
+        final int size = 1_000_000;
+        final CountingWriter output = new CountingWriter();
+        final JsonLinesMismatchWriter writer = new JsonLinesMismatchWriter(output);
+
+        final boolean matches = writer.compare(AutoMatcher.equalTo(strings(size, "a")), strings(size, "b"));
+
+        assertThat(matches, is(false));
+        assertThat(writer.getCount(), equalTo((long) size));
+        assertThat(output.lines, equalTo((long) size));
+    }
+
+    @Test
+    void streamedModelElementsAreNotKept() {
+        final int size = 5_000;
+        final ContainsInOrderMatcher<?> matcher = TestUtil.containsInOrderInObjectGraph(items(size, "EUR"));
+        final JsonLinesMismatchWriter writer = new JsonLinesMismatchWriter(new CountingWriter());
+
+        assertThat(writer.compare(matcher, items(size, "USD")), is(false));
+        assertThat(writer.getCount(), equalTo((long) size));
+        assertThat(matcher.getRegisteredObjectCount(), equalTo(0));
+    }
+
+    @Test
+    void writeFailureIsReported() {
+        final JsonLinesMismatchWriter writer = new JsonLinesMismatchWriter(new FailingWriter());
+        final Matcher<String> matcher = AutoMatcher.equalTo("a");
+        assertThrows(UncheckedIOException.class, () -> writer.compare(matcher, "b"));
+    }
+
+    private static String write(final Object expected, final Object actual) {
+        final StringWriter output = new StringWriter();
+        final JsonLinesMismatchWriter writer = new JsonLinesMismatchWriter(output);
+        assertThat(writer.compare(AutoMatcher.equalTo(expected), actual), is(false));
+        return output.toString();
+    }
+
+    private static List<String> strings(final int count, final String value) {
+        return IntStream.range(0, count).mapToObj(i -> value).collect(toList());
+    }
+
+    private static List<Item> items(final int count, final String currency) {
+        return IntStream.range(0, count).mapToObj(i -> new Item(currency, i)).collect(toList());
+    }
+
+    /**
+     * Counts the written lines without keeping them.
+     */
+    private static final class CountingWriter extends Writer {
+        private long lines = 0;
+
+        @Override
+        public void write(final char[] buffer, final int offset, final int length) {
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            // nothing to flush
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+
+    private static final class FailingWriter extends Writer {
+        @Override
+        public void write(final char[] buffer, final int offset, final int length) throws IOException {
+            throw new IOException("expected");
+        }
+
+        @Override
+        public void flush() {
+            // nothing to flush
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+
+    public static class Item {
+        private final String currency;
+        private final int amount;
+
+        Item(final String currency, final int amount) {
+            this.currency = currency;
+            this.amount = amount;
+        }
+
+        public String getCurrency() {
+            return currency;
+        }
+
+        public int getAmount() {
+            return amount;
+        }
+    }
+
+    public static class ListHolder {
+        private final List<Integer> values;
+
+        ListHolder(final List<Integer> values) {
+            this.values = values;
+        }
+
+        public List<Integer> getValues() {
+            return values;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.itsallcode.matcher.auto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.itsallcode.matcher.model.DemoModel;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class MatchStrategyTest {
+
+    static List<Arguments> strategies() {
+        return List.of(Arguments.of(int[].class, MatchStrategy.ARRAY),
+                Arguments.of(String[].class, MatchStrategy.ARRAY),
+                Arguments.of(String.class, MatchStrategy.SIMPLE),
+                Arguments.of(LocalDateTime.class, MatchStrategy.SIMPLE),
+                Arguments.of(ChronoUnit.class, MatchStrategy.SIMPLE),
+                Arguments.of(Path.of("a").getClass(), MatchStrategy.SIMPLE),
+                Arguments.of(HashMap.class, MatchStrategy.MAP),
+                Arguments.of(TreeSet.class, MatchStrategy.SET),
+                Arguments.of(ArrayList.class, MatchStrategy.ITERABLE),
+                Arguments.of(Stream.of("a").getClass(), MatchStrategy.STREAM),
+                Arguments.of(IntStream.class, MatchStrategy.STREAM),
+                Arguments.of(Iterator.class, MatchStrategy.STREAM),
+                Arguments.of(DirectoryStream.class, MatchStrategy.STREAM),
+                Arguments.of(Optional.class, MatchStrategy.OPTIONAL),
+                Arguments.of(DemoModel.class, MatchStrategy.BEAN));
+    }
+
+    @ParameterizedTest
+    @MethodSource("strategies")
+    void strategy(final Class<?> type, final MatchStrategy expectedStrategy) {
+        assertEquals(expectedStrategy, MatchStrategy.of(type));
+    }
+}
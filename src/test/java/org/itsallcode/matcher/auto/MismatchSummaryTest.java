@@ -0,0 +1,131 @@
+package org.itsallcode.matcher.auto;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import org.hamcrest.*;
+import org.itsallcode.matcher.Mismatch;
+import org.itsallcode.matcher.MismatchSummary;
+import org.itsallcode.matcher.RenderingBudget;
+import org.itsallcode.matcher.auto.MismatchTreeTest.Item;
+import org.itsallcode.matcher.auto.MismatchTreeTest.Order;
+import org.junit.jupiter.api.Test;
+
+class MismatchSummaryTest {
+
+    @Test
+    void matchingObjectHasNoGroups() {
+        final MismatchSummary summary = MismatchSummary.of(AutoMatcher.equalTo(order("EUR", 3)), order("EUR", 3));
+        assertThat(summary.isEmpty(), is(true));
+        assertThat(summary.getMismatchCount(), equalTo(0L));
+        assertThat(summary.toString(), equalTo(""));
+    }
+
+    @Test
+    void repeatedMismatchesAreSummarized() {
+        final MismatchSummary summary = MismatchSummary.of(AutoMatcher.equalTo(order("EUR", 2_000)),
+                order("USD", 2_000));
+
+        assertThat(summary.toString(),
+                equalTo("items[*].currency differs in 2,000 of 2,000 elements, e.g. [0], [1], [2]"));
+        final MismatchSummary.Group group = summary.getGroups().get(0);
+        assertThat(group.getPattern(), equalTo("items[*].currency"));
+        assertThat(group.getKind(), equalTo(Mismatch.Kind.DIFFERENT));
+        assertThat(group.getCount(), equalTo(2_000L));
+        assertThat(group.getElementCount(), equalTo(OptionalLong.of(2_000)));
+        assertThat(group.getFirstMismatch().getActual(), equalTo("USD"));
+    }
+
+    @Test
+    void singleMismatchIsDescribedInFull() {
+        final List<Item> items = order("EUR", 3).getItems();
+        final Order actual = new Order(List.of(items.get(0), new Item("USD", 1), items.get(2)));
+        assertThat(MismatchSummary.of(AutoMatcher.equalTo(order("EUR", 3)), actual).toString(),
+                equalTo("items[1].currency: expected \"EUR\" but was \"USD\""));
+    }
+
+    @Test
+    void mismatchesAreGroupedByPathAndKind() {
+        final Order actual = new Order(IntStream.range(0, 4).mapToObj(i -> new Item(i % 2 == 0 ? "USD" : "EUR", i + 1))
+                .collect(toList()));
+        final MismatchSummary summary = MismatchSummary.of(AutoMatcher.equalTo(order("EUR", 4)), actual);
+
+        assertThat(summary.getGroups().stream().map(MismatchSummary.Group::getPattern).collect(toList()),
+                contains("items[*].amount", "items[*].currency"));
+        assertThat(summary.getMismatchCount(), equalTo(6L));
+        assertThat(Arrays.asList(summary.toString().split("\n")),
+                contains("items[*].amount differs in 4 of 4 elements, e.g. [0], [1], [2]",
+                        "items[*].currency differs in 2 of 4 elements, e.g. [0], [2]"));
+    }
+
+    @Test
+    void missingAndUnexpectedElementsAreSummarized() {
+        assertThat(MismatchSummary.of(AutoMatcher.equalTo(List.of("a", "b", "c")), List.of("a")).toString(),
+                equalTo("[*] is missing in 2 of 3 elements, e.g. [1], [2]"));
+        assertThat(MismatchSummary.of(AutoMatcher.equalTo(List.of("a")), List.of("a", "b", "c")).toString(),
+                equalTo("[*] is unexpected in 2 of 3 elements, e.g. [1], [2]"));
+    }
+
+    @Test
+    void mapKeysAreSamples() {
+        final Map<String, Item> expected = new TreeMap<>(Map.of("a", new Item("EUR", 1), "b", new Item("EUR", 2)));
+        final Map<String, Item> actual = Map.of("a", new Item("USD", 1), "b", new Item("USD", 2));
+        assertThat(MismatchSummary.of(AutoMatcher.equalTo(expected), actual).toString(),
+                equalTo("[*].currency differs in 2 of 2 elements, e.g. [a], [b]"));
+    }
+
+    @Test
+    void numberOfSamplesIsConfigurable() {
+        final MismatchSummary summary = new MismatchSummary(1);
+        summary.compare(AutoMatcher.equalTo(order("EUR", 5)), order("USD", 5));
+        assertThat(summary.getGroups().get(0).getSamples(), contains("[0]"));
+        assertThat(summary.toString(), equalTo("items[*].currency differs in 5 of 5 elements, e.g. [0]"));
+    }
+
+    @Test
+    void describedGroupsAreLimitedByBudget() {
+        final Order actual = new Order(
+                IntStream.range(0, 3).mapToObj(i -> new Item("USD", i + 1)).collect(toList()));
+        final MismatchSummary summary = MismatchSummary.of(AutoMatcher.equalTo(order("EUR", 3)), actual);
+        final String rendered = StringDescription
+                .toString(RenderingBudget.builder().maxElements(1).build().limit(describing(summary)));
+        assertThat(Arrays.asList(rendered.split("\n")),
+                contains("items[*].amount differs in 3 of 3 elements, e.g. [0], [1], [2]", "... 1 more"));
+    }
+
+    @Test
+    void summarizingMatcherDescribesMismatchAsSummary() {
+        final Matcher<Order> matcher = MismatchSummary.summarizing(AutoMatcher.equalTo(order("EUR", 1_000)));
+        final Order actual = order("USD", 1_000);
+        final AssertionError error = assertThrows(AssertionError.class, () -> assertThat(actual, matcher));
+        assertThat(error.getMessage(),
+                endsWith("but: items[*].currency differs in 1,000 of 1,000 elements, e.g. [0], [1], [2]"));
+        assertThat(matcher.matches(order("EUR", 1_000)), is(true));
+    }
+
+    private static Matcher<Object> describing(final MismatchSummary summary) {
+        return new BaseMatcher<>() {
+            @Override
+            public boolean matches(final Object actual) {
+                return false;
+            }
+
+            @Override
+            public void describeTo(final Description description) {
+                summary.describeTo(description);
+            }
+        };
+    }
+
+    private static Order order(final String currency, final int itemCount) {
+        return new Order(IntStream.range(0, itemCount).mapToObj(i -> new Item(currency, i)).collect(toList()));
+    }
+}
@@ -0,0 +1,229 @@
+package org.itsallcode.matcher.auto;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import org.hamcrest.*;
+import org.itsallcode.matcher.*;
+import org.itsallcode.matcher.auto.AutoMatcherGraphTest.Child;
+import org.itsallcode.matcher.auto.AutoMatcherGraphTest.Diamond;
+import org.itsallcode.matcher.auto.AutoMatcherGraphTest.Parent;
+import org.itsallcode.matcher.model.DemoAttribute;
+import org.itsallcode.matcher.model.DemoModel;
+import org.itsallcode.matcher.model.DemoModelMatcher;
+import org.junit.jupiter.api.Test;
+
+class MismatchTreeTest {
+
+    @Test
+    void matchingObjectHasNoMismatches() {
+        final MismatchTree tree = MismatchTree.of(AutoMatcher.equalTo(order("EUR", 3)), order("EUR", 3));
+        assertThat(tree.isEmpty(), is(true));
+        assertThat(tree.getMismatchCount(), equalTo(0));
+        assertThat(tree.toString(), equalTo(""));
+    }
+
+    @Test
+    void differingElementsAreReportedByPath() {
+        final MismatchTree tree = MismatchTree.of(AutoMatcher.equalTo(order("EUR", 3)), order("USD", 3));
+
+        assertThat(paths(tree), contains("items[0].currency", "items[1].currency", "items[2].currency"));
+        final Mismatch mismatch = tree.getMismatches().get(0);
+        assertThat(mismatch.getKind(), equalTo(Mismatch.Kind.DIFFERENT));
+        assertThat(mismatch.getExpected(), equalTo("EUR"));
+        assertThat(mismatch.getActual(), equalTo("USD"));
+        assertThat(mismatch.getPath().getName(), equalTo("currency"));
+        assertThat(mismatch.getPath().getParent().getIndex(), equalTo(0));
+    }
+
+    @Test
+    void treeFollowsPaths() {
+        final MismatchTree tree = MismatchTree.of(AutoMatcher.equalTo(order("EUR", 2)), order("USD", 2));
+
+        final MismatchTree items = tree.getChildren().get(0);
+        assertThat(tree.getChildren().size(), equalTo(1));
+        assertThat(items.getPath().getName(), equalTo("items"));
+        assertThat(items.getMismatch().isPresent(), is(false));
+        assertThat(items.getChildren().size(), equalTo(2));
+        assertThat(items.getChildren().get(1).getMismatchCount(), equalTo(1));
+    }
+
+    @Test
+    void mismatchesAreRenderedOnDemand() {
+        final MismatchTree tree = MismatchTree.of(AutoMatcher.equalTo(order("EUR", 2)), order("USD", 2));
+        assertThat(tree.toString(), equalTo("items[0].currency: expected \"EUR\" but was \"USD\"\n"
+                + "items[1].currency: expected \"EUR\" but was \"USD\""));
+    }
+
+    @Test
+    void renderedMismatchesAreLimitedByBudget() {
+        final MismatchTree tree = MismatchTree.of(AutoMatcher.equalTo(order("EUR", 5)), order("USD", 5));
+        final String rendered = StringDescription
+                .toString(RenderingBudget.builder().maxElements(2).build().limit(describing(tree)));
+        assertThat(Arrays.asList(rendered.split("\n")),
+                contains("items[0].currency: expected \"EUR\" but was \"USD\"",
+                        "items[1].currency: expected \"EUR\" but was \"USD\"", "... 3 more"));
+    }
+
+    @Test
+    void shorterListReportsMissingElements() {
+        final MismatchTree tree = MismatchTree.of(AutoMatcher.equalTo(List.of("a", "b", "c")), List.of("a"));
+
+        assertThat(paths(tree), contains("[1]", "[2]"));
+        assertThat(kinds(tree), contains(Mismatch.Kind.MISSING, Mismatch.Kind.MISSING));
+        assertThat(tree.getMismatches().get(0).getExpected(), equalTo("b"));
+        assertThat(tree.getMismatches().get(0).toString(), equalTo("[1]: expected \"b\" but was missing"));
+    }
+
+    @Test
+    void longerListReportsUnexpectedElements() {
+        final MismatchTree tree = MismatchTree.of(AutoMatcher.equalTo(List.of("a")), List.of("a", "b"));
+
+        assertThat(paths(tree), contains("[1]"));
+        assertThat(kinds(tree), contains(Mismatch.Kind.UNEXPECTED));
+        assertThat(tree.toString(), equalTo("[1]: expected nothing but was \"b\""));
+    }
+
+    @Test
+    void mapReportsEntriesByKey() {
+        final Map<String, Integer> expected = new TreeMap<>(Map.of("a", 1, "b", 2));
+        final Map<String, Integer> actual = new TreeMap<>(Map.of("a", 3, "c", 4));
+
+        final MismatchTree tree = MismatchTree.of(AutoMatcher.equalTo(expected), actual);
+
+        assertThat(paths(tree), contains("[a]", "[b]", "[c]"));
+        assertThat(kinds(tree),
+                contains(Mismatch.Kind.DIFFERENT, Mismatch.Kind.MISSING, Mismatch.Kind.UNEXPECTED));
+        assertThat(tree.getMismatches().get(0).getExpected(), equalTo(1));
+        assertThat(tree.getMismatches().get(2).getPath().getKey(), equalTo("c"));
+    }
+
+    @Test
+    void setReportsUnmatchedElements() {
+        final MismatchTree tree = MismatchTree.of(AutoMatcher.equalTo(Set.of("a", "b")), Set.of("a", "c"));
+
+        assertThat(kinds(tree), contains(Mismatch.Kind.MISSING, Mismatch.Kind.UNEXPECTED));
+    }
+
+    @Test
+    void nullActualIsReportedAtRoot() {
+        final MismatchTree tree = MismatchTree.of(AutoMatcher.equalTo(order("EUR", 1)), null);
+
+        assertThat(tree.getMismatch().isPresent(), is(true));
+        assertThat(tree.getMismatches().get(0).getPath().isRoot(), is(true));
+    }
+
+    @Test
+    void cyclicGraphTerminates() {
+        final Parent expected = new Parent("p");
+        expected.getChildren().add(new Child("c1", expected));
+        final Parent actual = new Parent("p");
+        actual.getChildren().add(new Child("other", actual));
+
+        final MismatchTree tree = MismatchTree.of(AutoMatcher.equalTo(expected), actual);
+
+        assertThat(paths(tree), contains("children[0].name"));
+    }
+
+    @Test
+    void sharedObjectIsReportedOnce() {
+        final Diamond expected = new Diamond("node", new Diamond("leaf", null));
+        final Diamond actual = new Diamond("node", new Diamond("other", null));
+
+        final MismatchTree tree = MismatchTree.of(AutoMatcher.equalTo(expected), actual);
+
+        assertThat(paths(tree), contains("left.name"));
+    }
+
+    @Test
+    void configurableMatcherReportsExpectedValues() {
+        final DemoModel expected = new DemoModel(1, "name", 2L, new DemoAttribute("attr"), new String[0],
+                List.of());
+        final DemoModel actual = new DemoModel(2, "name", 2L, new DemoAttribute("other"), new String[0],
+                List.of());
+
+        final MismatchTree tree = MismatchTree.of(DemoModelMatcher.equalTo(expected), actual);
+
+        assertThat(paths(tree), contains("id", "attr.value"));
+        assertThat(tree.getMismatches().get(0).getExpected(), equalTo(1));
+        assertThat(tree.getMismatches().get(0).getActual(), equalTo(2));
+    }
+
+    @Test
+    void limitedMatcherReportsMismatchesOfDelegate() {
+        final MismatchTree tree = MismatchTree.of(
+                RenderingBudget.builder().build().limit(AutoMatcher.equalTo(order("EUR", 1))), order("USD", 1));
+        assertThat(paths(tree), contains("items[0].currency"));
+    }
+
+    @Test
+    void pathOfMatchingObjectIsEmpty() {
+        assertThat(MismatchPath.root().toString(), equalTo(""));
+        assertThat(MismatchPath.root().property("a").index(2).key("k").property("b").toString(),
+                equalTo("a[2][k].b"));
+        assertThat(paths(MismatchTree.of(AutoMatcher.equalTo("a"), "a")), empty());
+    }
+
+    private static Matcher<Object> describing(final MismatchTree tree) {
+        return new BaseMatcher<>() {
+            @Override
+            public boolean matches(final Object actual) {
+                return false;
+            }
+
+            @Override
+            public void describeTo(final Description description) {
+                tree.describeTo(description);
+            }
+        };
+    }
+
+    private static List<String> paths(final MismatchTree tree) {
+        return tree.getMismatches().stream().map(mismatch -> mismatch.getPath().toString()).collect(toList());
+    }
+
+    private static List<Mismatch.Kind> kinds(final MismatchTree tree) {
+        return tree.getMismatches().stream().map(Mismatch::getKind).collect(toList());
+    }
+
+    private static Order order(final String currency, final int itemCount) {
+        return new Order(IntStream.range(0, itemCount).mapToObj(i -> new Item(currency, i)).collect(toList()));
+    }
+
+    public static class Order {
+        private final List<Item> items;
+
+        Order(final List<Item> items) {
+            this.items = items;
+        }
+
+        public List<Item> getItems() {
+            return items;
+        }
+    }
+
+    public static class Item {
+        private final String currency;
+        private final int amount;
+
+        Item(final String currency, final int amount) {
+            this.currency = currency;
+            this.amount = amount;
+        }
+
+        public String getCurrency() {
+            return currency;
+        }
+
+        public int getAmount() {
+            return amount;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.itsallcode.matcher.auto;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.itsallcode.matcher.auto.other.OtherPackageModels;
+import org.itsallcode.matcher.model.DemoAttribute;
+import org.itsallcode.matcher.model.DemoModel;
+import org.junit.jupiter.api.Test;
+
+class PropertyGetterTest {
+
+    @Test
+    void getValueOfPublicClass() throws NoSuchMethodException {
+        final PropertyGetter getter = PropertyGetter.create("value", DemoAttribute.class.getMethod("getValue"));
+        assertThat(getter.getValue(new DemoAttribute("attr")), equalTo("attr"));
+    }
+
+    @Test
+    void getPrimitiveValue() throws NoSuchMethodException {
+        final PropertyGetter getter = PropertyGetter.create("id", DemoModel.class.getMethod("getId"));
+        assertThat(getter.getValue(new DemoModel(42, null, null, null, null, null)), equalTo(42));
+    }
+
+    @Test
+    void getValueOfNonPublicClass() throws NoSuchMethodException {
+        final PropertyGetter getter = PropertyGetter.create("value", NonPublicModel.class.getMethod("getValue"));
+        assertThat(getter.getValue(new NonPublicModel(42)), equalTo(42));
+    }
+
+    @Test
+    void getValueOfNonPublicClassInOtherPackage() throws NoSuchMethodException {
+        final Object model = OtherPackageModels.create(42);
+        final PropertyGetter getter = PropertyGetter.create("value", model.getClass().getMethod("getValue"));
+        assertThat(getter.getValue(model), equalTo(42));
+    }
+
+    @Test
+    void getValueOfNonPublicClassInOtherPackageWrapsExceptionOfGetter() throws NoSuchMethodException {
+        final Object model = OtherPackageModels.create(1);
+        final PropertyGetter getter = PropertyGetter.create("failure", model.getClass().getMethod("getFailure"));
+        final IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> getter.getValue(model));
+        assertThat(exception.getCause(), instanceOf(UnsupportedOperationException.class));
+    }
+
+    @Test
+    void getValueOfWrongTypeFails() throws NoSuchMethodException {
+        final PropertyGetter getter = PropertyGetter.create("value", DemoAttribute.class.getMethod("getValue"));
+        final AssertionError error = assertThrows(AssertionError.class, () -> getter.getValue("wrong"));
+        assertThat(error.getMessage(), equalTo(
+                "Expected object of type org.itsallcode.matcher.model.DemoAttribute but got java.lang.String: wrong"));
+    }
+
+    @Test
+    void getValueWrapsExceptionOfGetter() throws NoSuchMethodException {
+        final PropertyGetter getter = PropertyGetter.create("value", NonPublicModel.class.getMethod("getFailure"));
+        final IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> getter.getValue(new NonPublicModel(1)));
+        assertThat(exception.getCause(), instanceOf(UnsupportedOperationException.class));
+    }
+
+    @Test
+    void getValueRethrowsErrorOfGetter() throws NoSuchMethodException {
+        final PropertyGetter getter = PropertyGetter.create("error", NonPublicModel.class.getMethod("getError"));
+        final NonPublicModel model = new NonPublicModel(1);
+        assertThrows(StackOverflowError.class, () -> getter.getValue(model));
+    }
+
+    static class NonPublicModel {
+        private final int value;
+
+        NonPublicModel(final int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public String getFailure() {
+            throw new UnsupportedOperationException("expected");
+        }
+
+        public String getError() {
+            throw new StackOverflowError("expected");
+        }
+    }
+}
@@ -4,6 +4,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.List;
+
 import org.hamcrest.Matcher;
 
 public class TestUtil {
@@ -32,4 +34,15 @@ public class TestUtil {
                 () -> assertThat(value1, matcher));
         assertThat(error.getMessage(), expectedMessage);
     }
+
+    /**
+     * Create a matcher for an iterable containing the expected elements in
+     * order as root of a new object graph, so that the objects registered in
+     * the graph can be counted.
+     */
+    @SuppressWarnings("unchecked") // the matcher accepts any object
+    static ContainsInOrderMatcher<?> containsInOrderInObjectGraph(final List<?> expected) {
+        return (ContainsInOrderMatcher<?>) ConstructionContext.createMatcher(expected.toArray(),
+                elements -> (Matcher<Object[]>) (Matcher<?>) ContainsInOrderMatcher.forIterable(elements));
+    }
 }
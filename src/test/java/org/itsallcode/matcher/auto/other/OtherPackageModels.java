@@ -0,0 +1,31 @@
+package org.itsallcode.matcher.auto.other;
+
+/**
+ * Creates instances of a model class that is not accessible from the package
+ * of the auto matcher.
+ */
+public final class OtherPackageModels {
+    private OtherPackageModels() {
+        // not instantiable
+    }
+
+    public static Object create(final int value) {
+        return new NonPublicModel(value);
+    }
+
+    static class NonPublicModel {
+        private final int value;
+
+        NonPublicModel(final int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public String getFailure() {
+            throw new UnsupportedOperationException("expected");
+        }
+    }
+}
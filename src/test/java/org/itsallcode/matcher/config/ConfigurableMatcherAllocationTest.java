@@ -0,0 +1,88 @@
+package org.itsallcode.matcher.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Predicate;
+
+import org.hamcrest.Matcher;
+import org.itsallcode.matcher.BaseTypeSafeDiagnosingMatcher;
+import org.itsallcode.matcher.auto.AutoMatcher;
+import org.itsallcode.matcher.model.DemoAttribute;
+import org.itsallcode.matcher.model.DemoAttributeMatcher;
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+class ConfigurableMatcherAllocationTest {
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+    private static final int ITERATIONS = 100_000;
+
+    @Test
+    void matchingDoesNotAllocate() {
+        final Matcher<DemoAttribute> matcher = DemoAttributeMatcher.equalTo(new DemoAttribute("value"));
+        assertAllocatedBytesPerMatch(
+                actual -> BaseTypeSafeDiagnosingMatcher.matchesWithoutDescription(matcher, actual),
+                new DemoAttribute("value"));
+    }
+
+    @Test
+    void matchingNestedModelDoesNotAllocate() {
+        final Matcher<Model> matcher = AutoMatcher.equalTo(new Model("name", 42, new DemoAttribute("value")));
+        assertAllocatedBytesPerMatch(matcher::matches, new Model("name", 42, new DemoAttribute("value")));
+    }
+
+    private static <T> void assertAllocatedBytesPerMatch(final Predicate<T> matcher, final T actual) {
+        final ThreadMXBean threadBean = getThreadBean();
+        final long threadId = Thread.currentThread().getId();
+        assertMatches(matcher, actual, WARMUP_ITERATIONS);
+        final long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        assertMatches(matcher, actual, ITERATIONS);
+        final long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        assertThat("allocated bytes per match", (double) allocated / ITERATIONS, lessThan(1.0));
+    }
+
+    private static <T> void assertMatches(final Predicate<T> matcher, final T actual, final int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            if (!matcher.test(actual)) {
+                throw new AssertionError("Matcher does not match");
+            }
+        }
+    }
+
+    private static ThreadMXBean getThreadBean() {
+        final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof ThreadMXBean, "ThreadMXBean does not support allocation measurement");
+        final ThreadMXBean allocationBean = (ThreadMXBean) threadBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported(), "Allocation measurement not supported");
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+        return allocationBean;
+    }
+
+    public static class Model {
+        private final String name;
+        private final int count;
+        private final DemoAttribute attribute;
+
+        Model(final String name, final int count, final DemoAttribute attribute) {
+            this.name = name;
+            this.count = count;
+            this.attribute = attribute;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public DemoAttribute getAttribute() {
+            return attribute;
+        }
+    }
+}
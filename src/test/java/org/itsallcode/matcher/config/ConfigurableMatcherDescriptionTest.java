@@ -0,0 +1,88 @@
+package org.itsallcode.matcher.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.itsallcode.matcher.RenderingBudget;
+import org.itsallcode.matcher.model.DemoAttribute;
+import org.junit.jupiter.api.Test;
+
+class ConfigurableMatcherDescriptionTest {
+
+    private final CountingMatcher valueMatcher = new CountingMatcher("value");
+    private final Matcher<DemoAttribute> matcher = new ConfigurableMatcher<>(
+            MatcherConfig.builder(new DemoAttribute("value")) //
+                    .addProperty("value", DemoAttribute::getValue, value -> valueMatcher) //
+                    .build());
+
+    @Test
+    void descriptionIsRenderedOnce() {
+        assertThat(StringDescription.toString(matcher), equalTo("{value=counting \"value\"}"));
+        assertThat(StringDescription.toString(matcher), equalTo("{value=counting \"value\"}"));
+        assertThat(valueMatcher.describeCount, equalTo(1));
+    }
+
+    @Test
+    void descriptionIsRenderedAgainForOtherBudget() {
+        StringDescription.toString(matcher);
+        final Matcher<DemoAttribute> limitedMatcher = RenderingBudget.builder().maxCharacters(10).build()
+                .limit(matcher);
+
+        assertThat(StringDescription.toString(limitedMatcher), equalTo("{value=cou..."));
+        assertThat(StringDescription.toString(limitedMatcher), equalTo("{value=cou..."));
+        assertThat(StringDescription.toString(matcher), equalTo("{value=counting \"value\"}"));
+        assertThat(valueMatcher.describeCount, equalTo(3));
+    }
+
+    @Test
+    void nestedDescriptionIsNotCached() {
+        final Matcher<DemoAttribute> outerMatcher = new ConfigurableMatcher<>(
+                MatcherConfig.builder(new DemoAttribute("outer")) //
+                        .addProperty("nested", attribute -> attribute, attribute -> matcher) //
+                        .build());
+
+        assertThat(StringDescription.toString(outerMatcher), equalTo("{nested={value=counting \"value\"}}"));
+        assertThat(StringDescription.toString(outerMatcher), equalTo("{nested={value=counting \"value\"}}"));
+        assertThat(valueMatcher.describeCount, equalTo(1));
+        assertThat(StringDescription.toString(matcher), equalTo("{value=counting \"value\"}"));
+        assertThat(valueMatcher.describeCount, equalTo(2));
+    }
+
+    @Test
+    void longDescriptionIsNotCached() {
+        final CountingMatcher longMatcher = new CountingMatcher("x".repeat(2_000_000));
+        final Matcher<DemoAttribute> matcherWithLongDescription = new ConfigurableMatcher<>(
+                MatcherConfig.builder(new DemoAttribute("value")) //
+                        .addProperty("value", DemoAttribute::getValue, value -> longMatcher) //
+                        .build());
+
+        StringDescription.toString(matcherWithLongDescription);
+        StringDescription.toString(matcherWithLongDescription);
+
+        assertThat(longMatcher.describeCount, equalTo(2));
+    }
+
+    private static final class CountingMatcher extends BaseMatcher<String> {
+        private final String expected;
+        private int describeCount = 0;
+
+        private CountingMatcher(final String expected) {
+            this.expected = expected;
+        }
+
+        @Override
+        public boolean matches(final Object actual) {
+            return expected.equals(actual);
+        }
+
+        @Override
+        public void describeTo(final Description description) {
+            describeCount++;
+            description.appendText("counting ").appendValue(expected);
+        }
+    }
+}